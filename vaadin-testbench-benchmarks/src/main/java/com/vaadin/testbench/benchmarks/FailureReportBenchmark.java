@@ -0,0 +1,121 @@
+/**
+ * Copyright (C) 2000-2026 Vaadin Ltd
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full
+ * license.
+ */
+package com.vaadin.testbench.benchmarks;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vaadin.testbench.Parameters;
+import com.vaadin.testbench.benchmarks.SyntheticImages.Difference;
+import com.vaadin.testbench.benchmarks.SyntheticImages.Resolution;
+import com.vaadin.testbench.screenshot.ImageComparisonUtil;
+import com.vaadin.testbench.screenshot.ImageUtil;
+import com.vaadin.testbench.screenshot.ImageUtil.ImageProperties;
+import com.vaadin.testbench.screenshot.ScreenShotFailureReporter;
+
+/**
+ * Measures writing the error screenshot and the HTML diff report for a failed
+ * comparison into a temporary error directory. The files are written
+ * synchronously so that the time includes encoding and writing them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FailureReportBenchmark {
+
+    @Param({ "HD_1080P", "QHD_1440P", "UHD_4K" })
+    public Resolution resolution;
+
+    @Param({ "REGION", "SCATTERED" })
+    public Difference difference;
+
+    private BufferedImage reference;
+    private BufferedImage screenshot;
+    private boolean[][] falseBlocks;
+    private Path errorDirectory;
+    private String previousErrorDirectory;
+    private boolean previousWritesAsync;
+
+    @Setup
+    public void setup() throws IOException {
+        reference = SyntheticImages.createReference(resolution,
+                BufferedImage.TYPE_INT_ARGB);
+        screenshot = SyntheticImages.createScreenshot(reference, difference);
+        falseBlocks = findDifferingBlocks(reference, screenshot);
+
+        errorDirectory = Files.createTempDirectory("testbench-benchmark");
+        previousErrorDirectory = Parameters.getScreenshotErrorDirectory();
+        previousWritesAsync = Parameters.isScreenshotWritesAsync();
+        Parameters.setScreenshotErrorDirectory(errorDirectory.toString());
+        Parameters.setScreenshotWritesAsync(false);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Parameters.setScreenshotErrorDirectory(previousErrorDirectory);
+        Parameters.setScreenshotWritesAsync(previousWritesAsync);
+        try (Stream<Path> files = Files.walk(errorDirectory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder())
+                    .toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public void createErrorImageAndHTML() {
+        // The reporter clears the blocks it has reported
+        boolean[][] blocks = new boolean[falseBlocks.length][];
+        for (int x = 0; x < blocks.length; x++) {
+            blocks[x] = falseBlocks[x].clone();
+        }
+        new ScreenShotFailureReporter(reference, blocks)
+                .createErrorImageAndHTML("benchmark", screenshot);
+    }
+
+    private static boolean[][] findDifferingBlocks(BufferedImage reference,
+            BufferedImage screenshot) {
+        ImageProperties referenceProperties = ImageUtil
+                .getImageProperties(reference);
+        ImageProperties screenshotProperties = ImageUtil
+                .getImageProperties(screenshot);
+        int xBlocks = ImageComparisonUtil.getNrBlocks(reference.getWidth());
+        int yBlocks = ImageComparisonUtil.getNrBlocks(reference.getHeight());
+        boolean[][] blocks = new boolean[xBlocks][yBlocks];
+        for (int x = 0; x < xBlocks; x++) {
+            for (int y = 0; y < yBlocks; y++) {
+                blocks[x][y] = ImageUtil.getBlockDifference(
+                        referenceProperties, screenshotProperties, x * 16,
+                        y * 16) != -1;
+            }
+        }
+        return blocks;
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright (C) 2000-2026 Vaadin Ltd
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full
+ * license.
+ */
+package com.vaadin.testbench.benchmarks;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.vaadin.testbench.benchmarks.SyntheticImages.Difference;
+import com.vaadin.testbench.benchmarks.SyntheticImages.Resolution;
+import com.vaadin.testbench.screenshot.ImageUtil;
+import com.vaadin.testbench.screenshot.ImageUtil.ImageProperties;
+
+/**
+ * Measures reading all 16x16 blocks of an image using
+ * {@link ImageUtil#getBlock}, and comparing all blocks of two images the way
+ * the image comparison does: directly from the pixel arrays using
+ * {@link ImageUtil#getBlockDifference} for the int packed image types produced
+ * by the screenshot decoder, and by copying the blocks for other image types.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GetBlockBenchmark {
+
+    @Param({ "HD_1080P", "UHD_4K" })
+    public Resolution resolution;
+
+    @Param({ "INT_ARGB", "INT_RGB", "3BYTE_BGR" })
+    public String imageType;
+
+    private ImageProperties reference;
+    private ImageProperties screenshot;
+    private int width;
+    private int height;
+    private boolean intPixels;
+    private final int[] block = new int[16 * 16];
+    private final int[] screenshotBlock = new int[16 * 16];
+    private final int[] sampleBuffer = ImageUtil.createSampleBuffer();
+
+    @Setup
+    public void setup() {
+        int type = switch (imageType) {
+        case "INT_ARGB" -> BufferedImage.TYPE_INT_ARGB;
+        case "INT_RGB" -> BufferedImage.TYPE_INT_RGB;
+        case "3BYTE_BGR" -> BufferedImage.TYPE_3BYTE_BGR;
+        default -> throw new IllegalArgumentException(imageType);
+        };
+        BufferedImage referenceImage = SyntheticImages
+                .createReference(resolution, type);
+        reference = ImageUtil.getImageProperties(referenceImage);
+        screenshot = ImageUtil.getImageProperties(SyntheticImages
+                .createScreenshot(referenceImage, Difference.NOISE));
+        intPixels = ImageUtil.hasIntPixels(reference)
+                && ImageUtil.hasIntPixels(screenshot);
+        width = referenceImage.getWidth();
+        height = referenceImage.getHeight();
+    }
+
+    @Benchmark
+    public void getBlock(Blackhole blackhole) {
+        for (int y = 0; y < height; y += 16) {
+            for (int x = 0; x < width; x += 16) {
+                blackhole.consume(ImageUtil.getBlock(reference, x, y, block,
+                        sampleBuffer));
+            }
+        }
+    }
+
+    @Benchmark
+    public int compareBlocks() {
+        int differingBlocks = 0;
+        for (int y = 0; y < height; y += 16) {
+            for (int x = 0; x < width; x += 16) {
+                if (intPixels) {
+                    if (ImageUtil.getBlockDifference(reference, screenshot, x,
+                            y) != -1) {
+                        differingBlocks++;
+                    }
+                } else {
+                    ImageUtil.getBlock(reference, x, y, block, sampleBuffer);
+                    ImageUtil.getBlock(screenshot, x, y, screenshotBlock,
+                            sampleBuffer);
+                    if (!Arrays.equals(block, screenshotBlock)) {
+                        differingBlocks++;
+                    }
+                }
+            }
+        }
+        return differingBlocks;
+    }
+}
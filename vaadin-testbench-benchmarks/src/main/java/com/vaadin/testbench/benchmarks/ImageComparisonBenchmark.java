@@ -0,0 +1,84 @@
+/**
+ * Copyright (C) 2000-2026 Vaadin Ltd
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full
+ * license.
+ */
+package com.vaadin.testbench.benchmarks;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vaadin.testbench.Parameters;
+import com.vaadin.testbench.benchmarks.SyntheticImages.Difference;
+import com.vaadin.testbench.benchmarks.SyntheticImages.Resolution;
+import com.vaadin.testbench.screenshot.ImageComparison;
+
+/**
+ * Measures comparing a screenshot to a reference image, with and without
+ * comparing block rows in parallel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageComparisonBenchmark {
+
+    @Param({ "HD_1080P", "QHD_1440P", "UHD_4K" })
+    public Resolution resolution;
+
+    @Param({ "NONE", "NOISE", "REGION", "SCATTERED" })
+    public Difference difference;
+
+    @Param({ "false", "true" })
+    public boolean parallel;
+
+    private final ImageComparison comparison = new ImageComparison();
+    private BufferedImage reference;
+    private BufferedImage screenshot;
+    private double tolerance;
+    private boolean previousParallel;
+    private boolean previousCursorDetection;
+
+    @Setup
+    public void setup() {
+        reference = SyntheticImages.createReference(resolution,
+                BufferedImage.TYPE_INT_ARGB);
+        screenshot = SyntheticImages.createScreenshot(reference, difference);
+        tolerance = Parameters.getScreenshotComparisonTolerance();
+        previousParallel = Parameters.isScreenshotComparisonParallel();
+        previousCursorDetection = Parameters
+                .isScreenshotComparisonCursorDetection();
+        Parameters.setScreenshotComparisonParallel(parallel);
+        Parameters.setScreenshotComparisonCursorDetection(false);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Parameters.setScreenshotComparisonParallel(previousParallel);
+        Parameters.setScreenshotComparisonCursorDetection(
+                previousCursorDetection);
+    }
+
+    @Benchmark
+    public boolean compareImages() {
+        return comparison.compareImages(reference, screenshot, tolerance);
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright (C) 2000-2026 Vaadin Ltd
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full
+ * license.
+ */
+package com.vaadin.testbench.benchmarks;
+
+import javax.imageio.ImageIO;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vaadin.testbench.Parameters;
+import com.vaadin.testbench.benchmarks.SyntheticImages.Difference;
+import com.vaadin.testbench.benchmarks.SyntheticImages.Resolution;
+import com.vaadin.testbench.screenshot.ArtifactWriter;
+import com.vaadin.testbench.screenshot.ImageUtil;
+
+/**
+ * Measures decoding screenshots using the TestBench screenshot decoder and
+ * using ImageIO, and encoding them with different compression levels.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PngCodecBenchmark {
+
+    @Param({ "HD_1080P", "QHD_1440P", "UHD_4K" })
+    public Resolution resolution;
+
+    private BufferedImage screenshot;
+    private byte[] png;
+
+    /**
+     * The compression level used when encoding, -1 for the ImageIO default.
+     */
+    @State(Scope.Benchmark)
+    public static class Compression {
+
+        @Param({ "-1", "1", "6" })
+        public int compressionLevel;
+
+        private int previousCompressionLevel;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            previousCompressionLevel = Parameters
+                    .getScreenshotPngCompressionLevel();
+            Parameters.setScreenshotPngCompressionLevel(compressionLevel);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            Parameters
+                    .setScreenshotPngCompressionLevel(previousCompressionLevel);
+        }
+    }
+
+    @Setup
+    public void setup() {
+        BufferedImage reference = SyntheticImages.createReference(resolution,
+                BufferedImage.TYPE_INT_ARGB);
+        screenshot = SyntheticImages.createScreenshot(reference,
+                Difference.NOISE);
+        png = SyntheticImages.encodePng(screenshot);
+    }
+
+    @Benchmark
+    public BufferedImage decode() throws IOException {
+        return ImageUtil.decodeImage(png);
+    }
+
+    @Benchmark
+    public BufferedImage decodeImageIO() throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(png));
+    }
+
+    @Benchmark
+    public int encode(Compression compression) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(png.length);
+        ArtifactWriter.writePng(screenshot, out);
+        return out.size();
+    }
+}
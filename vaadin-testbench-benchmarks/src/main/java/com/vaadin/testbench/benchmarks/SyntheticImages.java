@@ -0,0 +1,211 @@
+/**
+ * Copyright (C) 2000-2026 Vaadin Ltd
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full
+ * license.
+ */
+package com.vaadin.testbench.benchmarks;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import com.vaadin.testbench.screenshot.ArtifactWriter;
+import com.vaadin.testbench.screenshot.ImageUtil;
+
+/**
+ * Generates reproducible screenshot-like images for the benchmarks.
+ * <p>
+ * The reference image resembles an application view: a header, cards with
+ * lines of "text" and a text field. Screenshots are copies of the reference
+ * with a controlled {@link Difference}.
+ */
+public final class SyntheticImages {
+
+    /**
+     * Screen resolutions used by the benchmarks.
+     */
+    public enum Resolution {
+        HD_1080P(1920, 1080), QHD_1440P(2560, 1440), UHD_4K(3840, 2160);
+
+        private final int width;
+        private final int height;
+
+        Resolution(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+    }
+
+    /**
+     * The ways a screenshot differs from its reference.
+     */
+    public enum Difference {
+        /** The screenshot is identical to the reference. */
+        NONE,
+        /**
+         * Every 50th pixel differs by one in each color channel, like
+         * rendering noise between browser versions. Within the default
+         * tolerance.
+         */
+        NOISE,
+        /** A blinking text cursor is visible in the text field. */
+        CURSOR,
+        /** A 320x200 pixel area is rendered differently. */
+        REGION,
+        /** Small 6x6 pixel differences are scattered over the whole image. */
+        SCATTERED
+    }
+
+    /** The text field in which the cursor is drawn. */
+    private static final int FIELD_X = 160;
+    private static final int FIELD_Y = 96;
+    private static final int FIELD_WIDTH = 320;
+    private static final int FIELD_HEIGHT = 36;
+
+    private static final long SEED = 20260101L;
+
+    private SyntheticImages() {
+    }
+
+    /**
+     * Creates a reference image.
+     *
+     * @param resolution
+     *            the size of the image
+     * @param imageType
+     *            the {@link BufferedImage} type of the image
+     * @return a new image, always the same for the same parameters
+     */
+    public static BufferedImage createReference(Resolution resolution,
+            int imageType) {
+        int width = resolution.getWidth();
+        int height = resolution.getHeight();
+        BufferedImage image = new BufferedImage(width, height, imageType);
+        Random random = new Random(SEED);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.setColor(new Color(0x1676f3));
+            g.fillRect(0, 0, width, 64);
+
+            // Cards with lines of text
+            for (int cardY = 160; cardY + 240 < height; cardY += 280) {
+                for (int cardX = 40; cardX + 400 < width; cardX += 440) {
+                    g.setColor(new Color(0xf3f5f7));
+                    g.fillRect(cardX, cardY, 400, 240);
+                    g.setColor(new Color(0x1a2030));
+                    for (int y = cardY + 20; y < cardY + 220; y += 24) {
+                        int x = cardX + 16;
+                        while (x < cardX + 360) {
+                            int word = 8 + random.nextInt(48);
+                            g.fillRect(x, y, Math.min(word, cardX + 384 - x),
+                                    12);
+                            x += word + 6;
+                        }
+                    }
+                }
+            }
+
+            // Text field
+            g.setColor(new Color(0x8a8f99));
+            g.drawRect(FIELD_X - 1, FIELD_Y - 1, FIELD_WIDTH + 1,
+                    FIELD_HEIGHT + 1);
+            g.setColor(Color.WHITE);
+            g.fillRect(FIELD_X, FIELD_Y, FIELD_WIDTH, FIELD_HEIGHT);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * Creates a screenshot that differs from the reference as given.
+     *
+     * @param reference
+     *            the reference image created using
+     *            {@link #createReference(Resolution, int)}
+     * @param difference
+     *            how the screenshot should differ from the reference
+     * @return a new image of the same type as the reference
+     */
+    public static BufferedImage createScreenshot(BufferedImage reference,
+            Difference difference) {
+        BufferedImage image = ImageUtil.cloneImage(reference);
+        int width = image.getWidth();
+        int height = image.getHeight();
+        Random random = new Random(SEED + difference.ordinal());
+        switch (difference) {
+        case NONE:
+            break;
+        case NOISE:
+            for (int i = 0, n = width * height; i < n; i += 50) {
+                int x = i % width;
+                int y = i / width;
+                int rgb = image.getRGB(x, y);
+                int delta = (rgb & 0xff) > 0x80 ? -0x010101 : 0x010101;
+                image.setRGB(x, y, rgb + delta);
+            }
+            break;
+        case CURSOR:
+            // A one pixel wide cursor crossing two block rows
+            int cursorX = FIELD_X + 37;
+            for (int y = FIELD_Y + 6; y < FIELD_Y + FIELD_HEIGHT - 12; y++) {
+                image.setRGB(cursorX, y, 0xff000000);
+            }
+            break;
+        case REGION:
+            fill(image, width / 2 - 160, height / 2 - 100, 320, 200,
+                    0xffe04030);
+            break;
+        case SCATTERED:
+            for (int i = 0; i < 200; i++) {
+                fill(image, random.nextInt(width - 6),
+                        random.nextInt(height - 6), 6, 6,
+                        0xff000000 | random.nextInt(0x1000000));
+            }
+            break;
+        }
+        return image;
+    }
+
+    /**
+     * Encodes the image as a PNG the same way TestBench writes screenshots.
+     *
+     * @param image
+     *            the image to encode
+     * @return the PNG data
+     */
+    public static byte[] encodePng(BufferedImage image) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            ArtifactWriter.writePng(image, out);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to encode image", e);
+        }
+        return out.toByteArray();
+    }
+
+    private static void fill(BufferedImage image, int x, int y, int width,
+            int height, int rgb) {
+        for (int j = y; j < y + height; j++) {
+            for (int i = x; i < x + width; i++) {
+                image.setRGB(i, j, rgb);
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright (C) 2000-2026 Vaadin Ltd
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full
+ * license.
+ */
+package com.vaadin.testbench.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openqa.selenium.remote.RemoteWebElement;
+
+import com.vaadin.testbench.TestBench;
+import com.vaadin.testbench.TestBenchElement;
+
+/**
+ * Measures wrapping web elements in {@link TestBenchElement} proxies, which is
+ * done for every element returned by a query. No browser is needed, the
+ * wrapped elements are never invoked.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WrapBenchmark {
+
+    /**
+     * The number of elements in a large query result, e.g. the cells of a
+     * grid.
+     */
+    private static final int QUERY_RESULT_SIZE = 1000;
+
+    /**
+     * An element class like the ones of the Vaadin components.
+     */
+    public static class ButtonElement extends TestBenchElement {
+    }
+
+    private RemoteWebElement webElement;
+    private TestBenchElement element;
+    private final List<RemoteWebElement> queryResult = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        webElement = createWebElement(0);
+        element = TestBench.createElement(webElement, null);
+        for (int i = 0; i < QUERY_RESULT_SIZE; i++) {
+            queryResult.add(createWebElement(i));
+        }
+    }
+
+    private static RemoteWebElement createWebElement(int id) {
+        RemoteWebElement webElement = new RemoteWebElement();
+        webElement.setId("element-" + id);
+        return webElement;
+    }
+
+    @Benchmark
+    public TestBenchElement createElement() {
+        return TestBench.createElement(webElement, null);
+    }
+
+    @Benchmark
+    public ButtonElement wrap() {
+        return element.wrap(ButtonElement.class);
+    }
+
+    @Benchmark
+    public void wrapQueryResult(Blackhole blackhole) {
+        for (RemoteWebElement result : queryResult) {
+            blackhole.consume(TestBench.createElement(ButtonElement.class,
+                    result, null));
+        }
+    }
+}
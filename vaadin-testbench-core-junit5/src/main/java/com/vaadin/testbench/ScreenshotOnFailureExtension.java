@@ -8,14 +8,12 @@
  */
 package com.vaadin.testbench;
 
-import javax.imageio.ImageIO;
-
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.junit.jupiter.api.extension.BeforeEachCallback;
 import org.junit.jupiter.api.extension.ExtensionContext;
 import org.junit.jupiter.api.extension.TestWatcher;
 import org.openqa.selenium.OutputType;
@@ -26,7 +24,9 @@ import org.openqa.selenium.remote.RemoteWebDriver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.vaadin.testbench.screenshot.ArtifactWriter;
 import com.vaadin.testbench.screenshot.ImageFileUtil;
+import com.vaadin.testbench.screenshot.ImageUtil;
 
 /**
  * This JUnit extension grabs a screenshot when a test fails. Usage:
@@ -51,7 +51,8 @@ import com.vaadin.testbench.screenshot.ImageFileUtil;
  * possible to grab a screen shot of the situation.
  * </p>
  */
-public class ScreenshotOnFailureExtension implements TestWatcher {
+public class ScreenshotOnFailureExtension
+        implements BeforeEachCallback, TestWatcher {
 
     private HasDriver driverHolder;
     private boolean quitDriverOnFinish = false;
@@ -99,6 +100,13 @@ public class ScreenshotOnFailureExtension implements TestWatcher {
         this.quitDriverOnFinish = quitDriverOnFinish;
     }
 
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        // Registered before any test runs, so that also artifacts written by
+        // screenshot comparisons in passing tests are flushed
+        flushArtifactsAtEnd(context);
+    }
+
     @Override
     public void testFailed(ExtensionContext context, Throwable cause) {
 
@@ -119,14 +127,13 @@ public class ScreenshotOnFailureExtension implements TestWatcher {
 
         // Grab a screenshot when a test fails
         try {
-            BufferedImage screenshotImage = ImageIO
-                    .read(new ByteArrayInputStream(
-                            ((TakesScreenshot) driverHolder.getDriver())
-                                    .getScreenshotAs(OutputType.BYTES)));
+            BufferedImage screenshotImage = ImageUtil
+                    .decodeImage(((TakesScreenshot) driverHolder.getDriver())
+                            .getScreenshotAs(OutputType.BYTES));
             // Store the screenshot in the errors directory
             ImageFileUtil.createScreenshotDirectoriesIfNeeded();
             final File errorScreenshotFile = getErrorScreenshotFile(context);
-            ImageIO.write(screenshotImage, "png", errorScreenshotFile);
+            ArtifactWriter.writePng(screenshotImage, errorScreenshotFile);
             getLogger().info("Error screenshot written to: "
                     + errorScreenshotFile.getAbsolutePath());
         } catch (Exception e) {
@@ -138,6 +145,13 @@ public class ScreenshotOnFailureExtension implements TestWatcher {
         }
     }
 
+    private static void flushArtifactsAtEnd(ExtensionContext context) {
+        // Values in the root store are closed when all tests have run
+        context.getRoot().getStore(ExtensionContext.Namespace.GLOBAL)
+                .getOrComputeIfAbsent(ArtifactWriter.class,
+                        key -> (AutoCloseable) ArtifactWriter::flush);
+    }
+
     @Override
     public void testSuccessful(ExtensionContext context) {
         quitDriverOnFinish();
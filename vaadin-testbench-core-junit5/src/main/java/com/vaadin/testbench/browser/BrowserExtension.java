@@ -8,6 +8,11 @@
  */
 package com.vaadin.testbench.browser;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+
 import org.junit.jupiter.api.extension.BeforeEachCallback;
 import org.junit.jupiter.api.extension.ConditionEvaluationResult;
 import org.junit.jupiter.api.extension.ExecutionCondition;
@@ -33,6 +38,7 @@ import com.vaadin.testbench.annotations.RunLocally;
 import com.vaadin.testbench.annotations.RunOnHub;
 import com.vaadin.testbench.parallel.Browser;
 import com.vaadin.testbench.parallel.SauceLabsIntegration;
+import com.vaadin.testbench.parallel.setup.DriverPrewarmer;
 import com.vaadin.testbench.parallel.setup.SetupDriver;
 
 /**
@@ -181,6 +187,12 @@ public class BrowserExtension implements Extension, BeforeEachCallback,
      * the driver to connect to localhost ({@link RunLocally} annotation
      * overrides {@link RunOnHub} annotation).
      * </p>
+     * <p>
+     * If {@link Parameters#isBrowserSessionPool()} is enabled, an idle browser
+     * session from {@link BrowserSessionPool} is used when available. If
+     * {@link Parameters#getDriverPrewarmCount()} is set, a driver started in
+     * the background by {@link DriverPrewarmer} is used when available.
+     * </p>
      *
      * @throws Exception
      *             if unable to instantiate {@link WebDriver}
@@ -226,6 +238,50 @@ public class BrowserExtension implements Extension, BeforeEachCallback,
         }
 
         Class<?> testClass = context.getRequiredTestClass();
+        Object sessionKey = getSessionKey(testClass, driverConfig);
+        Callable<WebDriver> factory = () -> createDriver(testClass,
+                driverConfig);
+        if (!SauceLabsIntegration.isConfiguredForSauceLabs()) {
+            // The session is named after the test so it cannot be prewarmed
+            // on Sauce Labs. A copy of the configuration is used so that
+            // drivers started in the background are not affected by later
+            // changes.
+            SetupDriver configCopy = new SetupDriver();
+            configCopy.setDesiredCapabilities(new DesiredCapabilities(
+                    driverConfig.getDesiredCapabilities()));
+            // Quit the drivers started in the background when all tests
+            // have run
+            context.getRoot().getStore(ExtensionContext.Namespace.GLOBAL)
+                    .getOrComputeIfAbsent(DriverPrewarmer.class,
+                            key -> DriverPrewarmer.getInstance());
+            factory = () -> DriverPrewarmer.getInstance().take(sessionKey,
+                    () -> createDriver(testClass, configCopy));
+        }
+        if (Parameters.isBrowserSessionPool()) {
+            // Close the pooled sessions when all tests have run
+            context.getRoot().getStore(ExtensionContext.Namespace.GLOBAL)
+                    .getOrComputeIfAbsent(BrowserSessionPool.class,
+                            key -> BrowserSessionPool.getInstance());
+            return BrowserSessionPool.getInstance().acquire(sessionKey,
+                    factory);
+        }
+        return factory.call();
+    }
+
+    /**
+     * Gets the key for browser sessions which can be reused for the given
+     * test class and configuration.
+     */
+    private List<Object> getSessionKey(Class<?> testClass,
+            SetupDriver driverConfig) {
+        return Arrays.asList(getRunLocallyBrowser(testClass),
+                getRunLocallyBrowserVersion(testClass), getHubURL(testClass),
+                new HashMap<>(driverConfig.getDesiredCapabilities().asMap()));
+    }
+
+    private WebDriver createDriver(Class<?> testClass, SetupDriver driverConfig)
+            throws Exception {
+        WebDriver webDriver;
         // Always give priority to @RunLocally annotation
         if ((getRunLocallyBrowser(testClass) != null)) {
             webDriver = driverConfig.setupLocalDriver(
@@ -0,0 +1,304 @@
+/**
+ * Copyright (C) 2000-2026 Vaadin Ltd
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full
+ * license.
+ */
+package com.vaadin.testbench.browser;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WrapsDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vaadin.testbench.Parameters;
+import com.vaadin.testbench.TestBenchDriverProxy;
+
+/**
+ * A pool of browser sessions which are reused between tests.
+ * <p>
+ * A driver acquired from the pool returns its session to the pool when
+ * {@link WebDriver#quit()} is called. The session is then reset and given to
+ * the next test acquiring a session with the same key. Sessions which fail to
+ * reset, fail the health check when acquired or have been used
+ * {@link Parameters#getBrowserSessionMaxReuse()} times are closed.
+ * <p>
+ * The pool keeps the plain browser drivers, so that each test wraps the
+ * acquired driver in its own {@link TestBenchDriverProxy} with its own command
+ * executor.
+ * <p>
+ * Cookies, local and session storage and service workers are cleared only for
+ * the page which is open when the session is returned. Data stored for other
+ * origins visited during the test is kept, so tests using several origins
+ * should not rely on starting with empty storage for them.
+ *
+ * @see Parameters#setBrowserSessionPool(boolean)
+ */
+public class BrowserSessionPool implements AutoCloseable {
+
+    private static final BrowserSessionPool INSTANCE = new BrowserSessionPool();
+
+    // Clears the storage of the current page and unregisters service workers
+    // @formatter:off
+    private static final String CLEAR_STORAGE_SCRIPT =
+            "var callback = arguments[arguments.length - 1];"
+            + "try {"
+            + "  window.localStorage.clear();"
+            + "  window.sessionStorage.clear();"
+            + "} catch (e) {"
+            + "}"
+            + "if (navigator.serviceWorker && navigator.serviceWorker.getRegistrations) {"
+            + "  navigator.serviceWorker.getRegistrations().then(function(registrations) {"
+            + "    return Promise.all(registrations.map(function(r) { return r.unregister(); }));"
+            + "  }).then(function() { callback(); }, function() { callback(); });"
+            + "} else {"
+            + "  callback();"
+            + "}";
+    // @formatter:on
+
+    private static Logger getLogger() {
+        return LoggerFactory.getLogger(BrowserSessionPool.class);
+    }
+
+    private static class Session {
+        private final Object key;
+        private final WebDriver driver;
+        private final int generation;
+        private final String windowHandle;
+        private final Dimension windowSize;
+        private int uses;
+
+        private Session(Object key, WebDriver driver, int generation) {
+            this.key = key;
+            this.driver = driver;
+            this.generation = generation;
+            windowHandle = driver.getWindowHandle();
+            windowSize = driver.manage().window().getSize();
+        }
+    }
+
+    private final Map<Object, Deque<Session>> idleSessions = new HashMap<>();
+    // Incremented when the pool is closed, so that sessions in use at that
+    // time are not returned to the pool
+    private int generation;
+
+    BrowserSessionPool() {
+    }
+
+    /**
+     * Gets the pool shared by all tests.
+     *
+     * @return the shared pool
+     */
+    public static BrowserSessionPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Gets a driver using an idle session with the given key, or a new
+     * session created using the given factory if there is no idle session.
+     * <p>
+     * Quitting the returned driver returns the session to the pool. The
+     * returned driver must not be used after that. If the factory returns a
+     * {@link TestBenchDriverProxy}, the driver wrapped by it is pooled, and
+     * the returned driver is not a TestBench proxy.
+     *
+     * @param key
+     *            the key identifying sessions which can be used
+     *            interchangeably, e.g. based on the capabilities and the
+     *            address of the hub
+     * @param factory
+     *            the factory creating a new session
+     * @return a driver using a pooled session
+     * @throws Exception
+     *             if the factory fails to create a session
+     */
+    public WebDriver acquire(Object key, Callable<WebDriver> factory)
+            throws Exception {
+        Session session;
+        while ((session = pollIdle(key)) != null) {
+            if (isHealthy(session)) {
+                break;
+            }
+            discard(session);
+        }
+        if (session == null) {
+            int currentGeneration;
+            synchronized (idleSessions) {
+                currentGeneration = generation;
+            }
+            WebDriver driver = factory.call();
+            // The TestBench proxy and its command executor belong to a single
+            // test, so only the browser driver is reused
+            if (driver instanceof TestBenchDriverProxy proxy) {
+                driver = proxy.getWrappedDriver();
+            }
+            session = new Session(key, driver, currentGeneration);
+        }
+        session.uses++;
+        return createHandle(session);
+    }
+
+    /**
+     * Closes all idle sessions. Sessions which are in use are closed when
+     * they are returned to the pool. The pool can still be used after closing
+     * it, e.g. by tests of a later test run in the same JVM, and then creates
+     * new sessions.
+     */
+    @Override
+    public void close() {
+        List<Session> sessions = new ArrayList<>();
+        synchronized (idleSessions) {
+            generation++;
+            idleSessions.values().forEach(sessions::addAll);
+            idleSessions.clear();
+        }
+        sessions.forEach(this::discard);
+    }
+
+    /**
+     * Gets the number of idle sessions in the pool.
+     *
+     * @return the number of idle sessions
+     */
+    public int getIdleCount() {
+        synchronized (idleSessions) {
+            return idleSessions.values().stream().mapToInt(Deque::size)
+                    .sum();
+        }
+    }
+
+    private Session pollIdle(Object key) {
+        synchronized (idleSessions) {
+            Deque<Session> sessions = idleSessions.get(key);
+            return sessions == null ? null : sessions.poll();
+        }
+    }
+
+    private void release(Session session) {
+        if (session.uses >= Parameters.getBrowserSessionMaxReuse()) {
+            discard(session);
+            return;
+        }
+        try {
+            reset(session);
+        } catch (Exception e) {
+            getLogger().debug("Unable to reset browser session", e);
+            discard(session);
+            return;
+        }
+        synchronized (idleSessions) {
+            if (session.generation == generation) {
+                idleSessions
+                        .computeIfAbsent(session.key, k -> new ArrayDeque<>())
+                        .push(session);
+                return;
+            }
+        }
+        discard(session);
+    }
+
+    private static void reset(Session session) {
+        WebDriver driver = session.driver;
+        for (String handle : driver.getWindowHandles()) {
+            if (!handle.equals(session.windowHandle)) {
+                driver.switchTo().window(handle);
+                driver.close();
+            }
+        }
+        driver.switchTo().window(session.windowHandle);
+        // Cookies and storage are cleared for the current page only, as
+        // WebDriver has no way to clear them for other origins
+        driver.manage().deleteAllCookies();
+        if (driver instanceof JavascriptExecutor executor) {
+            executor.executeAsyncScript(CLEAR_STORAGE_SCRIPT);
+        }
+        driver.get("about:blank");
+        if (!session.windowSize.equals(driver.manage().window().getSize())) {
+            driver.manage().window().setSize(session.windowSize);
+        }
+    }
+
+    private static boolean isHealthy(Session session) {
+        try {
+            return session.windowHandle
+                    .equals(session.driver.getWindowHandle());
+        } catch (Exception e) {
+            getLogger().debug("Pooled browser session is not available", e);
+            return false;
+        }
+    }
+
+    private void discard(Session session) {
+        try {
+            session.driver.quit();
+        } catch (Exception e) {
+            getLogger().debug("Unable to quit browser session", e);
+        }
+    }
+
+    /**
+     * Creates a driver which delegates to the driver of the session, except
+     * that quitting it returns the session to the pool.
+     */
+    private WebDriver createHandle(Session session) {
+        WebDriver driver = session.driver;
+        Set<Class<?>> interfaces = new LinkedHashSet<>();
+        for (Class<?> type = driver.getClass(); type != null; type = type
+                .getSuperclass()) {
+            interfaces.addAll(List.of(type.getInterfaces()));
+        }
+        interfaces.add(WrapsDriver.class);
+
+        AtomicBoolean released = new AtomicBoolean();
+        return (WebDriver) Proxy.newProxyInstance(
+                driver.getClass().getClassLoader(),
+                interfaces.toArray(new Class<?>[0]), (proxy, method, args) -> {
+                    if (isMethod(method, "equals", 1)) {
+                        return proxy == args[0];
+                    } else if (isMethod(method, "hashCode", 0)) {
+                        return System.identityHashCode(proxy);
+                    } else if (isMethod(method, "getWrappedDriver", 0)) {
+                        return driver;
+                    } else if (isMethod(method, "quit", 0)) {
+                        if (released.compareAndSet(false, true)) {
+                            release(session);
+                        }
+                        return null;
+                    } else if (released.get()) {
+                        throw new NoSuchSessionException(
+                                "The browser session has been returned to the pool");
+                    }
+                    try {
+                        return method.invoke(driver, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private static boolean isMethod(Method method, String name,
+            int parameterCount) {
+        return method.getName().equals(name)
+                && method.getParameterCount() == parameterCount;
+    }
+}
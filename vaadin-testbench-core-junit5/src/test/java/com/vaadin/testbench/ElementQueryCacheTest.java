@@ -0,0 +1,139 @@
+/**
+ * Copyright (C) 2000-2026 Vaadin Ltd
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full
+ * license.
+ */
+package com.vaadin.testbench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.chrome.ChromeDriver;
+
+import com.vaadin.testbench.commands.TestBenchCommandExecutor;
+
+public class ElementQueryCacheTest {
+
+    private static final String DOM_GENERATION = "return g.id + ':' + g.count";
+
+    private ChromeDriver driver;
+    private TestBenchCommandExecutor tbce;
+    private WebElement div;
+    private boolean previousElementQueryCache;
+
+    @BeforeEach
+    public void setup() {
+        previousElementQueryCache = Parameters.isElementQueryCache();
+        Parameters.setElementQueryCache(true);
+
+        driver = Mockito.mock(ChromeDriver.class);
+        mockDomGeneration("page:0");
+        div = Mockito.mock(WebElement.class);
+        Mockito.when(driver.executeScript(Mockito.contains("querySelectorAll"),
+                Mockito.any(Object[].class)))
+                .thenAnswer(invocation -> new ArrayList<>(List.of(div)));
+        tbce = new TestBenchCommandExecutor(null, null);
+        tbce.setDriver(TestBench.createDriver(driver, tbce));
+    }
+
+    @AfterEach
+    public void teardown() {
+        Parameters.setElementQueryCache(previousElementQueryCache);
+    }
+
+    @Test
+    public void sameQuery_domUnchanged_resultReused() {
+        List<TestBenchElement> first = query().all();
+        List<TestBenchElement> second = query().all();
+
+        Assertions.assertEquals(1, first.size());
+        Assertions.assertEquals(first, second);
+        verifySearchCount(1);
+        verifyDomGenerationRead(2);
+    }
+
+    @Test
+    public void sameQuery_domChanged_searchedAgain() {
+        query().all();
+        mockDomGeneration("page:1");
+        query().all();
+
+        verifySearchCount(2);
+    }
+
+    @Test
+    public void differentQueries_domUnchanged_searchedSeparately() {
+        query().all();
+        query().withAttribute("id", "foo").all();
+        query().withAttribute("id", "foo").all();
+
+        verifySearchCount(2);
+    }
+
+    @Test
+    public void sameQuery_conditionEvaluatedEachTime() {
+        AtomicInteger evaluated = new AtomicInteger();
+
+        query().withCondition(element -> evaluated.incrementAndGet() > 0)
+                .all();
+        query().withCondition(element -> evaluated.incrementAndGet() > 0)
+                .all();
+
+        verifySearchCount(1);
+        Assertions.assertEquals(2, evaluated.get());
+    }
+
+    @Test
+    public void cacheDisabled_searchedEachTime() {
+        Parameters.setElementQueryCache(false);
+        Mockito.when(
+                driver.executeScript(Mockito.contains("window.Vaadin.Flow")))
+                .thenReturn(true);
+
+        query().all();
+        query().all();
+
+        verifySearchCount(2);
+        verifyDomGenerationRead(0);
+    }
+
+    @Test
+    public void newSearch_observesShadowRoots() {
+        query().all();
+
+        Mockito.verify(driver).executeScript(
+                Mockito.contains("g.observer.observe(root, g.options)"),
+                Mockito.any(Object[].class));
+    }
+
+    private ElementQuery<TestBenchElement> query() {
+        return new ElementQuery<>(TestBenchElement.class, "div")
+                .context(tbce.getDriver());
+    }
+
+    private void mockDomGeneration(String generation) {
+        Mockito.when(driver.executeScript(Mockito.contains(DOM_GENERATION)))
+                .thenReturn(generation);
+    }
+
+    private void verifySearchCount(int count) {
+        Mockito.verify(driver, Mockito.times(count)).executeScript(
+                Mockito.contains("querySelectorAll"),
+                Mockito.any(Object[].class));
+    }
+
+    private void verifyDomGenerationRead(int count) {
+        Mockito.verify(driver, Mockito.times(count))
+                .executeScript(Mockito.contains(DOM_GENERATION));
+    }
+}
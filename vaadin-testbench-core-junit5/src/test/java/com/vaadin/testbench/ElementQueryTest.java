@@ -32,13 +32,14 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class ElementQueryTest {
     private static final String DOCUMENT_QUERY_FRAGMENT = "document.querySelectorAll(arguments[1]+arguments[2])";
     private static final String ELEMENT_QUERY_FRAGMENT = "arguments[0].shadowRoot.querySelectorAll(arguments[1]+arguments[2])";
     private static final String SINGLE_RESULT_QUERY_SUFFIX = ";return result";
-    private static final String FIRST_RESULT_QUERY_SUFFIX = ";return result[0]";
+    private static final String FIRST_RESULT_QUERY_SUFFIX = ";return result[arguments[4]]";
 
     private TestBenchDriverProxy mockDriver;
     private TestBenchElement exampleElement;
@@ -77,6 +78,8 @@ class ElementQueryTest {
         private Object lastContext;
         private String lastTagName;
         private Object lastAttributePairs;
+        private List<String> lastFilterValues;
+        private Integer lastIndex;
         private final List<Predicate<T>> lastConditions;
         private boolean executed;
 
@@ -93,6 +96,7 @@ class ElementQueryTest {
         @Override
         protected List<T> executeSearchScript(String script, Object context,
                 String tagName, String attributePairs,
+                List<String> filterValues, Integer index,
                 JavascriptExecutor executor) {
             if (executed) {
                 throw new IllegalStateException(
@@ -103,6 +107,8 @@ class ElementQueryTest {
             lastContext = context;
             lastTagName = tagName;
             lastAttributePairs = attributePairs;
+            lastFilterValues = filterValues;
+            lastIndex = index;
             return List.of();
         }
 
@@ -261,6 +267,39 @@ class ElementQueryTest {
                 SINGLE_RESULT_QUERY_SUFFIX, null, expectedPredicate);
     }
 
+    private void findFirstFilterInElement(
+            Function<TestElementQuery<ExampleElement>, ?> action,
+            String expectedFilter, String expectedFilterValue) {
+        TestElementQuery<ExampleElement> query = createExampleElementQuery();
+        findInElement(query, action, "", FIRST_RESULT_QUERY_SUFFIX, null,
+                null);
+        assertFilter(query, expectedFilter, expectedFilterValue);
+    }
+
+    private void findFirstFilterInDocument(
+            Function<TestElementQuery<ExampleElement>, ?> action,
+            String expectedFilter, String expectedFilterValue) {
+        TestElementQuery<ExampleElement> query = createExampleDocumentQuery();
+        findInDocument(query, action, "", FIRST_RESULT_QUERY_SUFFIX, null,
+                null);
+        assertFilter(query, expectedFilter, expectedFilterValue);
+    }
+
+    /**
+     * Ensures the query was filtered in the browser using the given filter
+     * expression, without any conditions evaluated in the test.
+     */
+    private static void assertFilter(TestElementQuery<?> query,
+            String expectedFilter, String expectedFilterValue) {
+        assertTrue(query.lastScript.contains(
+                "result.filter(function(e) { return " + expectedFilter
+                        + "; })"),
+                "query script should filter by " + expectedFilter);
+        assertEquals(List.of(expectedFilterValue), query.lastFilterValues);
+        assertTrue(query.lastConditions.isEmpty(),
+                "query should not have conditions");
+    }
+
     @Test
     void findInElement_allElements() {
         findSingleInElement(ElementQuery::all, "", null);
@@ -587,120 +626,224 @@ class ElementQueryTest {
 
     @Test
     void findInElement_byLabel() {
-        findFirstConditionInElement(
+        findFirstFilterInElement(
                 query -> query.withLabel("Example element label").first(),
-                element -> element.getLabel().equals("Example element label"));
+                "match(str(e.label), 0, false)", "Example element label");
     }
 
     @Test
     void findInDocument_byLabel() {
-        findFirstConditionInDocument(
+        findFirstFilterInDocument(
                 query -> query.withLabel("Example element label").first(),
-                element -> element.getLabel().equals("Example element label"));
+                "match(str(e.label), 0, false)", "Example element label");
     }
 
     @Test
     void findInElement_byContainsLabel() {
-        findFirstConditionInElement(
+        findFirstFilterInElement(
                 query -> query.withLabelContaining("element").first(),
-                element -> element.getLabel().contains("element"));
+                "match(str(e.label), 0, true)", "element");
     }
 
     @Test
     void findInDocument_byContainsLabel() {
-        findFirstConditionInDocument(
+        findFirstFilterInDocument(
                 query -> query.withLabelContaining("element").first(),
-                element -> element.getLabel().contains("element"));
+                "match(str(e.label), 0, true)", "element");
     }
 
     @Test
     void findInElement_byPlaceholder() {
-        findFirstConditionInElement(
+        findFirstFilterInElement(
                 query -> query.withPlaceholder("Example element placeholder")
                         .first(),
-                element -> element.getPlaceholder()
-                        .equals("Example element placeholder"));
+                "match(str(e.placeholder), 0, false)",
+                "Example element placeholder");
     }
 
     @Test
     void findInDocument_byPlaceholder() {
-        findFirstConditionInDocument(
+        findFirstFilterInDocument(
                 query -> query.withPlaceholder("Example element placeholder")
                         .first(),
-                element -> element.getPlaceholder()
-                        .equals("Example element placeholder"));
+                "match(str(e.placeholder), 0, false)",
+                "Example element placeholder");
     }
 
     @Test
     void findInElement_byContainsPlaceholder() {
-        findFirstConditionInElement(
+        findFirstFilterInElement(
                 query -> query.withPlaceholderContaining("element").first(),
-                element -> element.getPlaceholder().contains("element"));
+                "match(str(e.placeholder), 0, true)", "element");
     }
 
     @Test
     void findInDocument_byContainsPlaceholder() {
-        findFirstConditionInDocument(
+        findFirstFilterInDocument(
                 query -> query.withPlaceholderContaining("element").first(),
-                element -> element.getPlaceholder().contains("element"));
+                "match(str(e.placeholder), 0, true)", "element");
     }
 
     @Test
     void findInElement_byCaption() {
-        findFirstConditionInElement(
+        findFirstFilterInElement(
                 query -> query.withCaption("Example element caption").first(),
-                element -> element.getLabel()
-                        .equals("Example element caption"));
+                "caption(e, 0, false, true, true, false)",
+                "Example element caption");
     }
 
     @Test
     void findInDocument_byCaption() {
-        findFirstConditionInDocument(
+        findFirstFilterInDocument(
                 query -> query.withCaption("Example element caption").first(),
-                element -> element.getLabel()
-                        .equals("Example element caption"));
+                "caption(e, 0, false, true, true, false)",
+                "Example element caption");
     }
 
     @Test
     void findInElement_byContainsCaption() {
-        findFirstConditionInElement(
+        findFirstFilterInElement(
                 query -> query.withCaptionContaining("element").first(),
-                element -> element.getLabel().contains("element"));
+                "caption(e, 0, true, true, true, false)", "element");
     }
 
     @Test
     void findInDocument_byContainsCaption() {
-        findFirstConditionInDocument(
+        findFirstFilterInDocument(
                 query -> query.withCaptionContaining("element").first(),
-                element -> element.getLabel().contains("element"));
+                "caption(e, 0, true, true, true, false)", "element");
     }
 
     @Test
     void findInElement_byText() {
-        findFirstConditionInElement(
+        findFirstFilterInElement(
                 query -> query.withText("Example element text").first(),
-                element -> element.getText().equals("Example element text"));
+                "match(text(e), 0, false)", "Example element text");
     }
 
     @Test
     void findInDocument_byText() {
-        findFirstConditionInDocument(
+        findFirstFilterInDocument(
                 query -> query.withText("Example element text").first(),
-                element -> element.getText().equals("Example element text"));
+                "match(text(e), 0, false)", "Example element text");
     }
 
     @Test
     void findInElement_byContainsText() {
-        findFirstConditionInElement(
+        findFirstFilterInElement(
                 query -> query.withTextContaining("element").first(),
-                element -> element.getText().contains("element"));
+                "match(text(e), 0, true)", "element");
     }
 
     @Test
     void findInDocument_byContainsText() {
-        findFirstConditionInDocument(
+        findFirstFilterInDocument(
                 query -> query.withTextContaining("element").first(),
-                element -> element.getText().contains("element"));
+                "match(text(e), 0, true)", "element");
+    }
+
+    @Test
+    void get_indexPassedAsArgument() {
+        TestElementQuery<ExampleElement> query = createExampleDocumentQuery();
+        assertThrows(NoSuchElementException.class, () -> query.get(3));
+        TestElementQuery<ExampleElement> other = createExampleDocumentQuery();
+        assertThrows(NoSuchElementException.class, () -> other.get(7));
+
+        assertEquals(3, query.lastIndex);
+        assertEquals(7, other.lastIndex);
+        assertEquals(query.lastScript, other.lastScript,
+                "the script should not depend on the index");
+    }
+
+    @Test
+    void findInElement_byLabelAndText_combinedFilter() {
+        TestElementQuery<ExampleElement> query = createExampleElementQuery();
+        findInElement(query,
+                q -> q.withLabel("Example element label")
+                        .withTextContaining("text").first(),
+                "", FIRST_RESULT_QUERY_SUFFIX, null, null);
+
+        assertTrue(query.lastScript.contains(
+                "return match(str(e.label), 0, false) && match(text(e), 1, true);"),
+                "query script should combine the filters");
+        assertEquals(List.of("Example element label", "text"),
+                query.lastFilterValues);
+    }
+
+    @Test
+    void findInElement_byLabelComparison_evaluatedInTest() {
+        findFirstConditionInElement(
+                query -> query.withLabel("EXAMPLE element label",
+                        String::equalsIgnoreCase).first(),
+                element -> element.getLabel()
+                        .equalsIgnoreCase("EXAMPLE element label"));
+    }
+
+    @Test
+    void findInElement_byTextAndCondition_filteredInBrowserFirst() {
+        TestElementQuery<ExampleElement> query = createExampleElementQuery();
+        findInElement(query,
+                q -> q.withText("Example element text")
+                        .withCondition(ExampleElement::isEnabled).first(),
+                "", SINGLE_RESULT_QUERY_SUFFIX, null, null);
+
+        assertTrue(query.lastScript.contains("match(text(e), 0, false)"),
+                "query script should filter by text");
+        assertEquals(1, query.lastConditions.size());
+    }
+
+    @Element(CustomLabelElement.TAG)
+    public static class CustomLabelElement extends TestBenchElement
+            implements HasLabel {
+        public static final String TAG = "custom-label-element";
+
+        @Override
+        public String getLabel() {
+            return getText();
+        }
+    }
+
+    @Test
+    void findInDocument_byLabelWithOverriddenGetter_evaluatedInTest() {
+        TestElementQuery<CustomLabelElement> query = new TestElementQuery<>(
+                CustomLabelElement.class).context(mockDriver);
+        query.withLabel("Custom label").all();
+
+        assertEquals(1, query.lastConditions.size());
+        assertTrue(query.lastFilterValues.isEmpty(),
+                "query should not filter in the browser");
+    }
+
+    @Test
+    void deep_inElement_searchesNestedShadowRoots() {
+        TestElementQuery<ExampleElement> query = createExampleElementQuery();
+        query.deep().all();
+
+        assertTrue(query.lastScript.contains(
+                "var roots = arguments[0].shadowRoot ? [arguments[0].shadowRoot, arguments[0]]"),
+                "query should start from the element and its shadow root");
+        assertTrue(query.lastScript.contains("roots.push(e.shadowRoot)"),
+                "query should search nested shadow roots");
+        assertTrue(query.lastScript.contains("depths[i] < 2147483647"),
+                "query should not limit the depth");
+        assertSame(exampleElement, query.lastContext);
+    }
+
+    @Test
+    void deep_inDocumentWithDepth_searchesLimitedDepth() {
+        TestElementQuery<ExampleElement> query = createExampleDocumentQuery();
+        query.deep(2).all();
+
+        assertTrue(query.lastScript.startsWith("var roots = [document];"),
+                "query should start from the document");
+        assertTrue(query.lastScript.contains("depths[i] < 2"),
+                "query should limit the depth");
+    }
+
+    @Test
+    void deep_negativeDepth_throws() {
+        assertThrows(IllegalArgumentException.class,
+                () -> createExampleElementQuery().deep(-1));
     }
 
     @Attribute(name = "id", value = Attribute.SIMPLE_CLASS_NAME)
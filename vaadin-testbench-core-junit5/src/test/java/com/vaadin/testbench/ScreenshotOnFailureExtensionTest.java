@@ -17,8 +17,12 @@ import org.openqa.selenium.WebDriverException;
 import org.openqa.selenium.remote.RemoteWebDriver;
 import org.openqa.selenium.remote.SessionId;
 
+import com.vaadin.testbench.screenshot.ArtifactWriter;
+
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -106,6 +110,27 @@ public class ScreenshotOnFailureExtensionTest {
         }, "Extension should not throw exception when screenshot capture fails");
     }
 
+    /**
+     * Tests that pending artifact writes are flushed at the end of the test
+     * run also when no test fails, as screenshot comparisons write artifacts
+     * asynchronously in passing tests too.
+     */
+    @Test
+    public void beforeEach_registersArtifactFlushInRootStore() {
+        ScreenshotOnFailureExtension extension = new ScreenshotOnFailureExtension(
+                new TestDriverHolder(null), false);
+        ExtensionContext mockContext = mock(ExtensionContext.class);
+        ExtensionContext rootContext = mock(ExtensionContext.class);
+        ExtensionContext.Store store = mock(ExtensionContext.Store.class);
+        when(mockContext.getRoot()).thenReturn(rootContext);
+        when(rootContext.getStore(ExtensionContext.Namespace.GLOBAL))
+                .thenReturn(store);
+
+        extension.beforeEach(mockContext);
+
+        verify(store).getOrComputeIfAbsent(eq(ArtifactWriter.class), any());
+    }
+
     /**
      * Simple test driver holder for testing purposes.
      */
@@ -8,6 +8,7 @@
  */
 package com.vaadin.testbench;
 
+import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -17,7 +18,9 @@ import java.util.Set;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.openqa.selenium.Capabilities;
 import org.openqa.selenium.WebElement;
+import org.openqa.selenium.firefox.FirefoxDriver;
 import org.openqa.selenium.remote.RemoteWebElement;
 
 import com.vaadin.testbench.commands.TestBenchCommandExecutor;
@@ -121,6 +124,129 @@ public class TestBenchElementTest {
         return TestBenchElement.wrapElement(webElement, null);
     }
 
+    @Test
+    public void wrapElement_sameTypes_proxyClassReused() {
+        TestBenchElement element1 = createElementWithClass("foo");
+        Constructor<?> constructor = TestBench.getCachedElementProxyConstructor(
+                TestBenchElement.class,
+                Mockito.mock(WebElement.class).getClass());
+        TestBenchElement element2 = createElementWithClass("bar");
+
+        Assertions.assertNotNull(constructor);
+        Assertions.assertSame(constructor,
+                TestBench.getCachedElementProxyConstructor(
+                        TestBenchElement.class,
+                        Mockito.mock(WebElement.class).getClass()));
+        Assertions.assertSame(constructor.getDeclaringClass(),
+                element1.getClass());
+        Assertions.assertSame(element1.getClass(), element2.getClass());
+        // Each proxy delegates to its own web element
+        Assertions.assertTrue(element1.hasClassName("foo"));
+        Assertions.assertTrue(element2.hasClassName("bar"));
+        Assertions.assertFalse(element2.hasClassName("foo"));
+    }
+
+    @Test
+    public void click_focusesAndClicksUsingOneScript() {
+        WebElement webElement = Mockito.mock(WebElement.class);
+        TestBenchCommandExecutor tbCommandExecutor = mockClickExecutor(
+                Boolean.TRUE);
+        TestBenchElement element = TestBenchElement.wrapElement(webElement,
+                tbCommandExecutor);
+
+        element.click();
+
+        Mockito.verify(tbCommandExecutor, Mockito.times(1)).executeScript(
+                Mockito.anyString(), Mockito.any(Object[].class));
+        Mockito.verify(tbCommandExecutor, Mockito.never()).waitForVaadin();
+        Mockito.verify(webElement, Mockito.never()).click();
+    }
+
+    @Test
+    public void click_noClickFunction_clicksUsingWebDriver() {
+        WebElement webElement = Mockito.mock(WebElement.class);
+        TestBenchCommandExecutor tbCommandExecutor = mockClickExecutor(
+                Boolean.FALSE);
+        TestBenchElement element = TestBenchElement.wrapElement(webElement,
+                tbCommandExecutor);
+
+        element.click();
+
+        Mockito.verify(webElement, Mockito.times(1)).click();
+    }
+
+    private static TestBenchCommandExecutor mockClickExecutor(
+            Boolean clicked) {
+        TestBenchCommandExecutor tbCommandExecutor = Mockito
+                .mock(TestBenchCommandExecutor.class);
+        Mockito.when(tbCommandExecutor.executeScript(
+                Mockito.contains("elem.click()"), Mockito.any(Object[].class)))
+                .thenReturn(clicked);
+        return tbCommandExecutor;
+    }
+
+    @Test
+    public void snapshot_readsAllPropertiesUsingOneScript() {
+        TestBenchCommandExecutor tbCommandExecutor = Mockito
+                .mock(TestBenchCommandExecutor.class);
+        Mockito.when(tbCommandExecutor.executeScript(Mockito.anyString(),
+                Mockito.any(Object[].class)))
+                .thenReturn(List.of(Arrays.asList(List.of(false, "foo"),
+                        List.of(false, true), List.of(true, "3"),
+                        List.of(true, "1.5"), Arrays.asList(false, null))));
+        TestBenchElement element = TestBenchElement
+                .wrapElement(Mockito.mock(WebElement.class), tbCommandExecutor);
+
+        ElementSnapshot snapshot = element.snapshot("value", "hidden",
+                "childElementCount", "style.opacity", "label");
+
+        Mockito.verify(tbCommandExecutor, Mockito.times(1)).executeScript(
+                Mockito.anyString(), Mockito.any(Object[].class));
+        Assertions.assertEquals("foo", snapshot.getString("value"));
+        Assertions.assertEquals(Boolean.TRUE, snapshot.getBoolean("hidden"));
+        Assertions.assertEquals(Integer.valueOf(3),
+                snapshot.getInteger("childElementCount"));
+        Assertions.assertEquals(Double.valueOf(1.5),
+                snapshot.getDouble("style.opacity"));
+        Assertions.assertNull(snapshot.getString("label"));
+        Assertions.assertEquals(
+                Arrays.asList("value", "hidden", "childElementCount",
+                        "style.opacity", "label"),
+                new ArrayList<>(snapshot.asMap().keySet()));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> snapshot.getString("hidden"));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> snapshot.get("foo"));
+    }
+
+    @Test
+    public void snapshot_emptyList_noScriptExecuted() {
+        Assertions.assertTrue(
+                TestBenchElement.snapshot(List.of(), "value").isEmpty());
+    }
+
+    @Test
+    public void getProperty_firefoxNumber_readUsingOneScript() {
+        TestBenchCommandExecutor tbCommandExecutor = Mockito
+                .mock(TestBenchCommandExecutor.class);
+        FirefoxDriver driver = Mockito.mock(FirefoxDriver.class);
+        Capabilities capabilities = Mockito.mock(Capabilities.class);
+        Mockito.when(capabilities.getBrowserName()).thenReturn("firefox");
+        Mockito.when(driver.getCapabilities()).thenReturn(capabilities);
+        TestBenchDriverProxy driverProxy = TestBench.createDriver(driver,
+                tbCommandExecutor);
+        Mockito.when(tbCommandExecutor.getDriver()).thenReturn(driverProxy);
+        Mockito.when(tbCommandExecutor.executeScript(Mockito.anyString(),
+                Mockito.any(Object[].class))).thenReturn(List.of(true, "2"));
+        TestBenchElement element = TestBenchElement
+                .wrapElement(Mockito.mock(WebElement.class), tbCommandExecutor);
+
+        Assertions.assertEquals(Double.valueOf(2),
+                element.getProperty("value"));
+        Mockito.verify(tbCommandExecutor, Mockito.times(1)).executeScript(
+                Mockito.anyString(), Mockito.any(Object[].class));
+    }
+
     @Test
     public void wrapNullElement() {
         Assertions.assertNull(TestBenchElement.wrapElement(null, null));
@@ -0,0 +1,236 @@
+/**
+ * Copyright (C) 2000-2026 Vaadin Ltd
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full
+ * license.
+ */
+package com.vaadin.testbench.browser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WrapsDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+
+import com.vaadin.testbench.Parameters;
+import com.vaadin.testbench.TestBench;
+import com.vaadin.testbench.TestBenchDriverProxy;
+import com.vaadin.testbench.TestBenchElement;
+
+public class BrowserSessionPoolTest {
+
+    private BrowserSessionPool pool;
+    private List<ChromeDriver> created;
+    private int previousMaxReuse;
+
+    @BeforeEach
+    public void setup() {
+        previousMaxReuse = Parameters.getBrowserSessionMaxReuse();
+        pool = new BrowserSessionPool();
+        created = new ArrayList<>();
+    }
+
+    @AfterEach
+    public void teardown() {
+        Parameters.setBrowserSessionMaxReuse(previousMaxReuse);
+    }
+
+    @Test
+    public void quit_sessionResetAndReused() throws Exception {
+        WebDriver first = pool.acquire("chrome", this::createDriver);
+        first.quit();
+        WebDriver second = pool.acquire("chrome", this::createDriver);
+
+        Assertions.assertEquals(1, created.size());
+        Assertions.assertSame(unwrap(first), unwrap(second));
+        ChromeDriver driver = created.get(0);
+        Mockito.verify(driver, Mockito.never()).quit();
+        Mockito.verify(driver.manage()).deleteAllCookies();
+        Mockito.verify(driver).executeAsyncScript(
+                Mockito.contains("localStorage.clear()"));
+        Mockito.verify(driver).get("about:blank");
+    }
+
+    @Test
+    public void differentKeys_separateSessions() throws Exception {
+        pool.acquire("chrome", this::createDriver).quit();
+        pool.acquire("firefox", this::createDriver);
+
+        Assertions.assertEquals(2, created.size());
+        Assertions.assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    public void sessionInUse_newSessionCreated() throws Exception {
+        pool.acquire("chrome", this::createDriver);
+        pool.acquire("chrome", this::createDriver);
+
+        Assertions.assertEquals(2, created.size());
+    }
+
+    @Test
+    public void resetChangedWindow_closesExtraWindowsAndRestoresSize()
+            throws Exception {
+        WebDriver handle = pool.acquire("chrome", this::createDriver);
+        ChromeDriver driver = created.get(0);
+        Mockito.when(driver.getWindowHandles())
+                .thenReturn(Set.of("main", "popup"));
+        Mockito.when(driver.manage().window().getSize())
+                .thenReturn(new Dimension(400, 300));
+
+        handle.quit();
+
+        Mockito.verify(driver.switchTo()).window("popup");
+        Mockito.verify(driver).close();
+        Mockito.verify(driver.manage().window())
+                .setSize(new Dimension(1024, 768));
+        Assertions.assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    public void resetFails_sessionDiscarded() throws Exception {
+        WebDriver handle = pool.acquire("chrome", this::createDriver);
+        Mockito.when(created.get(0).getWindowHandles())
+                .thenThrow(new WebDriverException("Browser crashed"));
+
+        handle.quit();
+
+        Mockito.verify(created.get(0)).quit();
+        Assertions.assertEquals(0, pool.getIdleCount());
+    }
+
+    @Test
+    public void healthCheckFails_sessionDiscarded() throws Exception {
+        pool.acquire("chrome", this::createDriver).quit();
+        Mockito.when(created.get(0).getWindowHandle())
+                .thenThrow(new NoSuchSessionException("Session timed out"));
+
+        pool.acquire("chrome", this::createDriver);
+
+        Assertions.assertEquals(2, created.size());
+        Mockito.verify(created.get(0)).quit();
+    }
+
+    @Test
+    public void maxReuseReached_sessionDiscarded() throws Exception {
+        Parameters.setBrowserSessionMaxReuse(2);
+
+        pool.acquire("chrome", this::createDriver).quit();
+        pool.acquire("chrome", this::createDriver).quit();
+        pool.acquire("chrome", this::createDriver);
+
+        Assertions.assertEquals(2, created.size());
+        Mockito.verify(created.get(0)).quit();
+    }
+
+    @Test
+    public void quitDriver_driverNoLongerUsable() throws Exception {
+        WebDriver handle = pool.acquire("chrome", this::createDriver);
+        handle.quit();
+        handle.quit();
+
+        Assertions.assertThrows(NoSuchSessionException.class,
+                () -> handle.get("http://localhost/"));
+        Assertions.assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    public void testBenchDriver_quitReturnsSessionToPool() throws Exception {
+        TestBenchDriverProxy driver = TestBench
+                .createDriver(pool.acquire("chrome", this::createDriver));
+
+        driver.quit();
+
+        Mockito.verify(created.get(0), Mockito.never()).quit();
+        Assertions.assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    public void testBenchDriverFromFactory_browserDriverPooled()
+            throws Exception {
+        WebDriver first = pool.acquire("chrome",
+                () -> TestBench.createDriver(createDriver()));
+
+        Assertions.assertFalse(first instanceof TestBenchDriverProxy);
+        Assertions.assertSame(created.get(0), unwrap(first));
+
+        TestBenchDriverProxy firstProxy = TestBench.createDriver(first);
+        firstProxy.quit();
+        Mockito.verify(created.get(0), Mockito.never()).quit();
+
+        TestBenchDriverProxy secondProxy = TestBench.createDriver(pool.acquire(
+                "chrome", () -> TestBench.createDriver(createDriver())));
+        Assertions.assertEquals(1, created.size());
+        Assertions.assertSame(created.get(0),
+                unwrap(secondProxy.getWrappedDriver()));
+
+        // Elements are wrapped only by the proxy of the current test
+        secondProxy.getCommandExecutor().disableWaitForVaadin();
+        Mockito.when(created.get(0).findElement(By.id("foo")))
+                .thenReturn(Mockito.mock(WebElement.class));
+        TestBenchElement element = (TestBenchElement) secondProxy
+                .findElement(By.id("foo"));
+        Assertions.assertSame(secondProxy.getCommandExecutor(),
+                element.getCommandExecutor());
+        Assertions.assertFalse(
+                element.getWrappedElement() instanceof TestBenchElement);
+    }
+
+    @Test
+    public void close_idleSessionsQuit() throws Exception {
+        pool.acquire("chrome", this::createDriver).quit();
+        WebDriver inUse = pool.acquire("firefox", this::createDriver);
+
+        pool.close();
+        Mockito.verify(created.get(0)).quit();
+        Mockito.verify(created.get(1), Mockito.never()).quit();
+
+        inUse.quit();
+        Mockito.verify(created.get(1)).quit();
+        Assertions.assertEquals(0, pool.getIdleCount());
+    }
+
+    @Test
+    public void close_poolUsableAfterwards() throws Exception {
+        pool.acquire("chrome", this::createDriver).quit();
+        pool.close();
+
+        WebDriver driver = pool.acquire("chrome", this::createDriver);
+        Assertions.assertSame(created.get(1), unwrap(driver));
+        driver.quit();
+
+        Mockito.verify(created.get(1), Mockito.never()).quit();
+        Assertions.assertEquals(1, pool.getIdleCount());
+        Assertions.assertSame(created.get(1),
+                unwrap(pool.acquire("chrome", this::createDriver)));
+    }
+
+    private WebDriver createDriver() {
+        ChromeDriver driver = Mockito.mock(ChromeDriver.class,
+                Mockito.RETURNS_DEEP_STUBS);
+        Mockito.when(driver.getWindowHandle()).thenReturn("main");
+        Mockito.when(driver.getWindowHandles()).thenReturn(Set.of("main"));
+        Mockito.when(driver.manage().window().getSize())
+                .thenReturn(new Dimension(1024, 768));
+        created.add(driver);
+        return driver;
+    }
+
+    private static WebDriver unwrap(WebDriver driver) {
+        return ((WrapsDriver) driver).getWrappedDriver();
+    }
+}
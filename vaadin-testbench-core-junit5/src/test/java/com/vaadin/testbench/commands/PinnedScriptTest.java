@@ -0,0 +1,121 @@
+/**
+ * Copyright (C) 2000-2026 Vaadin Ltd
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full
+ * license.
+ */
+package com.vaadin.testbench.commands;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.openqa.selenium.chrome.ChromeDriver;
+
+import com.vaadin.testbench.Parameters;
+import com.vaadin.testbench.TestBench;
+
+public class PinnedScriptTest {
+
+    private static final String SCRIPT = "return arguments[0] + 1;";
+
+    private ChromeDriver driver;
+    private TestBenchCommandExecutor tbce;
+    private boolean previousScriptPinning;
+
+    @BeforeEach
+    public void setup() {
+        previousScriptPinning = Parameters.isScriptPinning();
+        Parameters.setScriptPinning(true);
+        driver = Mockito.mock(ChromeDriver.class);
+        Mockito.when(driver.executeScript(Mockito.anyString(),
+                Mockito.any(Object[].class))).thenReturn(2L);
+        tbce = new TestBenchCommandExecutor(null, null);
+        tbce.setDriver(TestBench.createDriver(driver, tbce));
+    }
+
+    @AfterEach
+    public void teardown() {
+        Parameters.setScriptPinning(previousScriptPinning);
+    }
+
+    @Test
+    public void pinnedScript_sourceOnlySentOnFirstExecution() {
+        Assertions.assertEquals(2L,
+                tbce.executePinnedScript(driver, SCRIPT, 1));
+        Assertions.assertEquals(2L,
+                tbce.executePinnedScript(driver, SCRIPT, 1));
+
+        List<String> scripts = captureScripts(2);
+        Assertions.assertTrue(scripts.get(0).contains(SCRIPT));
+        Assertions.assertFalse(scripts.get(1).contains(SCRIPT));
+        Assertions.assertTrue(
+                scripts.get(1).contains("window.vaadinTestBenchScripts"));
+    }
+
+    @Test
+    public void pinnedScript_missingFromPage_sentAgain() {
+        tbce.executePinnedScript(driver, SCRIPT, 1);
+        Mockito.when(driver.executeScript(
+                Mockito.contains("vaadin-testbench-pinned-script-missing"),
+                Mockito.any(Object[].class)))
+                .thenReturn("vaadin-testbench-pinned-script-missing");
+
+        Assertions.assertEquals(2L,
+                tbce.executePinnedScript(driver, SCRIPT, 1));
+
+        List<String> scripts = captureScripts(3);
+        Assertions.assertFalse(scripts.get(1).contains(SCRIPT));
+        Assertions.assertTrue(scripts.get(2).contains(SCRIPT));
+    }
+
+    @Test
+    public void pinnedScript_navigated_sentAgain() {
+        tbce.executePinnedScript(driver, SCRIPT, 1);
+        tbce.getDriver().get("http://localhost/");
+        tbce.executePinnedScript(driver, SCRIPT, 1);
+
+        List<String> scripts = captureScripts(2);
+        Assertions.assertTrue(scripts.get(1).contains(SCRIPT));
+    }
+
+    @Test
+    public void manyDistinctScripts_pinnedScriptIdsBounded() {
+        int max = TestBenchCommandExecutor.MAX_PINNED_SCRIPTS;
+        for (int i = 0; i < max + 10; i++) {
+            tbce.executePinnedScript(driver, "return " + i + ";", 1);
+        }
+
+        Assertions.assertTrue(
+                TestBenchCommandExecutor.getPinnedScriptIdCount() <= max);
+        // Scripts are still pinned after the ids have been forgotten
+        tbce.executePinnedScript(driver, SCRIPT, 1);
+        tbce.executePinnedScript(driver, SCRIPT, 1);
+        List<String> scripts = captureScripts(max + 12);
+        Assertions.assertTrue(scripts.get(max + 10).contains(SCRIPT));
+        Assertions.assertFalse(scripts.get(max + 11).contains(SCRIPT));
+    }
+
+    @Test
+    public void pinningDisabled_scriptExecutedAsIs() {
+        Parameters.setScriptPinning(false);
+
+        tbce.executePinnedScript(driver, SCRIPT, 1);
+        tbce.executePinnedScript(driver, SCRIPT, 1);
+
+        Mockito.verify(driver, Mockito.times(2)).executeScript(SCRIPT, 1);
+    }
+
+    private List<String> captureScripts(int count) {
+        ArgumentCaptor<String> scripts = ArgumentCaptor.forClass(String.class);
+        Mockito.verify(driver, Mockito.times(count))
+                .executeScript(scripts.capture(), Mockito.any(Object[].class));
+        return scripts.getAllValues();
+    }
+}
@@ -0,0 +1,190 @@
+/**
+ * Copyright (C) 2000-2026 Vaadin Ltd
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full
+ * license.
+ */
+package com.vaadin.testbench.commands;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.openqa.selenium.JavascriptException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.chrome.ChromeDriver;
+
+import com.vaadin.testbench.TestBench;
+import com.vaadin.testbench.TestBenchElement;
+
+public class ScriptBatchTest {
+
+    private ChromeDriver driver;
+    private TestBenchCommandExecutor tbce;
+
+    @BeforeEach
+    public void setup() {
+        driver = Mockito.mock(ChromeDriver.class);
+        Mockito.when(
+                driver.executeScript(Mockito.contains("window.Vaadin.Flow")))
+                .thenReturn(Boolean.TRUE);
+        tbce = new TestBenchCommandExecutor(null, null);
+        tbce.setDriver(TestBench.createDriver(driver, tbce));
+    }
+
+    @Test
+    public void batch_scriptsExecutedOnceAndResultsDemultiplexed()
+            throws Exception {
+        mockBatchResult(Arrays.asList(1L, "foo", null));
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[3];
+
+        tbce.batch(batch -> {
+            futures[0] = batch.executeScript(Integer.class,
+                    "return arguments[0] + 1", 0);
+            futures[1] = batch.executeScript("return arguments[0]", "foo");
+            futures[2] = batch.executeScript("window.foo = 'bar'");
+            Assertions.assertFalse(futures[0].isDone());
+        });
+
+        Object[] args = verifyBatchExecuted();
+        Assertions.assertEquals(3, args.length);
+        Assertions.assertEquals(List.of(0), args[0]);
+        Assertions.assertEquals(List.of("foo"), args[1]);
+        Assertions.assertEquals(List.of(), args[2]);
+
+        Assertions.assertEquals(1, futures[0].get());
+        Assertions.assertEquals("foo", futures[1].get());
+        Assertions.assertNull(futures[2].get());
+    }
+
+    @Test
+    public void batch_elementSetters_addedToBatch() {
+        mockBatchResult(Arrays.asList(null, null, null));
+        TestBenchElement element = TestBench
+                .createElement(Mockito.mock(WebElement.class), tbce);
+
+        tbce.batch(batch -> {
+            element.setProperty("value", "foo");
+            element.dispatchEvent("change");
+            element.scrollIntoView();
+            Assertions.assertEquals(3, batch.size());
+        });
+
+        String script = captureBatchScript();
+        Assertions.assertTrue(
+                script.contains("arguments[0][arguments[1]]=arguments[2]"));
+        Assertions.assertTrue(script.contains("new CustomEvent(arguments[1])"));
+        Assertions.assertTrue(
+                script.contains("arguments[0].scrollIntoView()"));
+        Object[] args = verifyBatchExecuted();
+        Assertions.assertEquals(List.of(element, "value", "foo"), args[0]);
+        Assertions.assertEquals(List.of(element, "change"), args[1]);
+    }
+
+    @Test
+    public void batch_nested_addedToOuterBatch() {
+        mockBatchResult(Arrays.asList(null, null));
+
+        tbce.batch(batch -> {
+            batch.executeScript("window.foo = 1");
+            tbce.batch(inner -> {
+                Assertions.assertSame(batch, inner);
+                inner.executeScript("window.bar = 2");
+            });
+            Mockito.verify(driver, Mockito.never()).executeScript(
+                    Mockito.contains("results.push"), Mockito.any());
+        });
+
+        Assertions.assertEquals(2, verifyBatchExecuted().length);
+    }
+
+    @Test
+    public void batch_scriptFails_allFuturesCompletedExceptionally() {
+        JavascriptException error = new JavascriptException("failed");
+        Mockito.when(driver.executeScript(Mockito.contains("results.push"),
+                Mockito.any(Object[].class))).thenThrow(error);
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[2];
+
+        Assertions.assertThrows(JavascriptException.class,
+                () -> tbce.batch(batch -> {
+                    futures[0] = batch.executeScript("return 1");
+                    futures[1] = batch.executeScript("throw 'failed'");
+                }));
+
+        for (CompletableFuture<?> future : futures) {
+            ExecutionException e = Assertions
+                    .assertThrows(ExecutionException.class, future::get);
+            Assertions.assertSame(error, e.getCause());
+        }
+    }
+
+    @Test
+    public void batch_callbackFails_futuresCompletedExceptionally() {
+        IllegalStateException error = new IllegalStateException("failed");
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[1];
+
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> tbce.batch(batch -> {
+                    futures[0] = batch.executeScript("return 1");
+                    throw error;
+                }));
+
+        ExecutionException e = Assertions.assertThrows(ExecutionException.class,
+                futures[0]::get);
+        Assertions.assertSame(error, e.getCause());
+        Mockito.verify(driver, Mockito.never()).executeScript(
+                Mockito.contains("results.push"), Mockito.any(Object[].class));
+    }
+
+    @Test
+    public void batch_empty_nothingExecuted() {
+        tbce.batch(batch -> {
+        });
+
+        Mockito.verify(driver, Mockito.never()).executeScript(
+                Mockito.contains("results.push"), Mockito.any(Object[].class));
+    }
+
+    @Test
+    public void setProperty_outsideBatch_executedImmediately() {
+        TestBenchElement element = TestBench
+                .createElement(Mockito.mock(WebElement.class), tbce);
+
+        element.setProperty("value", "foo");
+
+        Mockito.verify(driver).executeScript(
+                "arguments[0][arguments[1]]=arguments[2]", element, "value",
+                "foo");
+    }
+
+    private void mockBatchResult(List<Object> results) {
+        Mockito.when(driver.executeScript(Mockito.contains("results.push"),
+                Mockito.any(Object[].class))).thenReturn(results);
+    }
+
+    private String captureBatchScript() {
+        verifyBatchExecuted();
+        return Mockito.mockingDetails(driver).getInvocations().stream()
+                .flatMap(invocation -> Arrays
+                        .stream(invocation.getRawArguments()).limit(1))
+                .filter(argument -> argument instanceof String script
+                        && script.contains("results.push"))
+                .map(String.class::cast).findFirst().orElseThrow();
+    }
+
+    private Object[] verifyBatchExecuted() {
+        ArgumentCaptor<Object[]> args = ArgumentCaptor
+                .forClass(Object[].class);
+        Mockito.verify(driver, Mockito.times(1)).executeScript(
+                Mockito.contains("results.push"), args.capture());
+        return args.getValue();
+    }
+}
@@ -11,16 +11,21 @@ package com.vaadin.testbench.commands;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.net.URL;
 import java.util.Arrays;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.openqa.selenium.Capabilities;
 import org.openqa.selenium.OutputType;
+import org.openqa.selenium.ScriptTimeoutException;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WrapsDriver;
 import org.openqa.selenium.firefox.FirefoxDriver;
+import org.openqa.selenium.remote.HttpCommandExecutor;
 import org.openqa.selenium.remote.RemoteWebDriver;
 
 import com.vaadin.testbench.Parameters;
@@ -49,6 +54,33 @@ public class TestBenchCommandExecutorTest {
         Assertions.assertTrue(tbce instanceof TestBenchCommands);
     }
 
+    @Test
+    public void getRemoteControlName_wrappedRemoteDriver_hubAddress()
+            throws Exception {
+        HttpCommandExecutor commandExecutor = Mockito
+                .mock(HttpCommandExecutor.class);
+        Mockito.when(commandExecutor.getAddressOfRemoteServer())
+                .thenReturn(new URL("http://127.0.0.2:4444/wd/hub"));
+        RemoteWebDriver remoteDriver = Mockito.mock(RemoteWebDriver.class);
+        Mockito.when(remoteDriver.getCommandExecutor())
+                .thenReturn(commandExecutor);
+        // E.g. a session from the browser session pool
+        WebDriver pooledDriver = Mockito.mock(WebDriver.class,
+                Mockito.withSettings().extraInterfaces(WrapsDriver.class));
+        Mockito.when(((WrapsDriver) pooledDriver).getWrappedDriver())
+                .thenReturn(remoteDriver);
+        TestBenchDriverProxy driver = Mockito
+                .mock(TestBenchDriverProxy.class);
+        Mockito.when(driver.getWrappedDriver()).thenReturn(pooledDriver);
+        TestBenchCommandExecutor tbce = new TestBenchCommandExecutor(null,
+                null);
+        tbce.setDriver(driver);
+
+        Assertions.assertTrue(
+                tbce.getRemoteControlName().endsWith("(127.0.0.2)"),
+                tbce.getRemoteControlName());
+    }
+
     @Test
     public void testCompareScreen_takesScreenshotAndComparesImages()
             throws IOException {
@@ -206,6 +238,190 @@ public class TestBenchCommandExecutorTest {
         }
     }
 
+    @Test
+    public void testCompareScreen_acceptsBufferedImage_noDelayAfterLastAttempt()
+            throws IOException {
+        int previousDelay = Parameters.getScreenshotRetryDelay();
+        Parameters.setScreenshotStabilityTimeout(5000);
+        Parameters.setScreenshotRetryDelay(2000);
+        try {
+            BufferedImage mockImg = Mockito.mock(BufferedImage.class);
+
+            WebDriver driver = mockScreenshotDriver(2, false);
+            ImageComparison icMock = Mockito.mock(ImageComparison.class);
+            Mockito.when(icMock.imageEqualToReference(
+                    Mockito.any(BufferedImage.class),
+                    Mockito.any(BufferedImage.class), Mockito.eq("bar name"),
+                    Mockito.eq(Parameters.getScreenshotComparisonTolerance())))
+                    .thenReturn(false);
+
+            TestBenchCommandExecutor tbce = new TestBenchCommandExecutor(icMock,
+                    null);
+            tbce.setDriver(TestBench.createDriver(driver, tbce));
+            long start = System.currentTimeMillis();
+            Assertions.assertFalse(tbce.compareScreen(mockImg, "bar name"));
+
+            Assertions.assertTrue(System.currentTimeMillis() - start < 2000,
+                    "Should not wait for a retry which is never made");
+        } finally {
+            Parameters.setScreenshotStabilityTimeout(0);
+            Parameters.setScreenshotRetryDelay(previousDelay);
+        }
+    }
+
+    @Test
+    public void testCompareScreen_waitForStability_comparesOnce()
+            throws IOException {
+        Parameters.setScreenshotStabilityTimeout(5000);
+        try {
+            WebDriver driver = mockScreenshotDriver(2, true);
+            ReferenceNameGenerator rngMock = mockReferenceNameGenerator("foo",
+                    "foo_bar_11");
+            ImageComparison icMock = mockImageComparison(1, "foo_bar_11",
+                    false);
+
+            TestBenchCommandExecutor tbce = new TestBenchCommandExecutor(icMock,
+                    rngMock);
+            tbce.setDriver(TestBench.createDriver(driver, tbce));
+            Assertions.assertFalse(tbce.compareScreen("foo"));
+
+            // Two identical screenshots, compared to the reference once
+            Mockito.verify((RemoteWebDriver) driver, Mockito.times(2))
+                    .getScreenshotAs(OutputType.BYTES);
+            Mockito.verify(icMock, Mockito.times(1)).imageEqualToReference(
+                    Mockito.any(BufferedImage.class), Mockito.anyString(),
+                    Mockito.anyDouble(), Mockito.any(Capabilities.class));
+        } finally {
+            Parameters.setScreenshotStabilityTimeout(0);
+        }
+    }
+
+    @Test
+    public void testGetStableScreenshot_changingScreen_waitsUntilStable()
+            throws IOException {
+        Parameters.setScreenshotStabilityTimeout(5000);
+        try {
+            BufferedImage[] screens = new BufferedImage[4];
+            for (int i = 0; i < screens.length; i++) {
+                screens[i] = new BufferedImage(32, 32,
+                        BufferedImage.TYPE_INT_RGB);
+                // The screen changes twice and then stays the same
+                screens[i].setRGB(Math.min(i, 2), 0, 0xffffff);
+            }
+            int[] captured = new int[1];
+
+            BufferedImage stable = ScreenshotComparator
+                    .getStableScreenshot(() -> screens[captured[0]++]);
+
+            Assertions.assertEquals(4, captured[0]);
+            Assertions.assertSame(screens[3], stable);
+        } finally {
+            Parameters.setScreenshotStabilityTimeout(0);
+        }
+    }
+
+    @Test
+    public void testWaitForVaadin_async_waitsUsingSingleAsyncScript() {
+        Parameters.setWaitForVaadinAsync(true);
+        try {
+            FirefoxDriver driver = Mockito.mock(FirefoxDriver.class);
+            Mockito.when(driver.executeAsyncScript(
+                    Mockito.contains("window.Vaadin.Flow"), Mockito.any()))
+                    .thenReturn(Boolean.TRUE);
+
+            TestBenchCommandExecutor tbce = new TestBenchCommandExecutor(null,
+                    null);
+            tbce.setDriver(TestBench.createDriver(driver, tbce));
+            tbce.waitForVaadin();
+
+            ArgumentCaptor<Object> timeout = ArgumentCaptor
+                    .forClass(Object.class);
+            Mockito.verify(driver, Mockito.times(1)).executeAsyncScript(
+                    Mockito.contains("callback(ready)"), timeout.capture());
+            Assertions.assertTrue(
+                    ((Number) timeout.getValue()).longValue() <= 10000);
+            Mockito.verify(driver, Mockito.never())
+                    .executeScript(Mockito.anyString());
+        } finally {
+            Parameters.setWaitForVaadinAsync(false);
+        }
+    }
+
+    @Test
+    public void testWaitForVaadin_asyncScriptTimesOut_waitsAgain() {
+        Parameters.setWaitForVaadinAsync(true);
+        try {
+            FirefoxDriver driver = Mockito.mock(FirefoxDriver.class);
+            Mockito.when(driver.executeAsyncScript(
+                    Mockito.contains("window.Vaadin.Flow"), Mockito.any()))
+                    .thenThrow(new ScriptTimeoutException())
+                    .thenReturn(Boolean.FALSE).thenReturn(Boolean.TRUE);
+
+            TestBenchCommandExecutor tbce = new TestBenchCommandExecutor(null,
+                    null);
+            tbce.setDriver(TestBench.createDriver(driver, tbce));
+            tbce.waitForVaadin();
+
+            Mockito.verify(driver, Mockito.times(3)).executeAsyncScript(
+                    Mockito.anyString(), Mockito.any());
+        } finally {
+            Parameters.setWaitForVaadinAsync(false);
+        }
+    }
+
+    @Test
+    public void testWaitForVaadin_skipRedundant_consecutiveReadsCheckOnce() {
+        Parameters.setWaitForVaadinSkipRedundant(true);
+        try {
+            FirefoxDriver driver = mockWaitForVaadinDriver();
+            TestBenchCommandExecutor tbce = new TestBenchCommandExecutor(null,
+                    null);
+            tbce.setDriver(TestBench.createDriver(driver, tbce));
+
+            tbce.waitForVaadinBeforeRead();
+            tbce.waitForVaadinBeforeRead();
+            tbce.waitForVaadinBeforeRead();
+            verifyWaitForVaadinChecks(driver, 1);
+
+            // A command that may change the page is followed by a new check
+            tbce.waitForVaadin();
+            tbce.waitForVaadinBeforeRead();
+            tbce.waitForVaadinBeforeRead();
+            verifyWaitForVaadinChecks(driver, 2);
+
+            tbce.markPageChanged();
+            tbce.waitForVaadinBeforeRead();
+            verifyWaitForVaadinChecks(driver, 3);
+        } finally {
+            Parameters.setWaitForVaadinSkipRedundant(false);
+        }
+    }
+
+    @Test
+    public void testWaitForVaadin_skipRedundantDisabled_alwaysChecks() {
+        FirefoxDriver driver = mockWaitForVaadinDriver();
+        TestBenchCommandExecutor tbce = new TestBenchCommandExecutor(null,
+                null);
+        tbce.setDriver(TestBench.createDriver(driver, tbce));
+
+        tbce.waitForVaadinBeforeRead();
+        tbce.waitForVaadinBeforeRead();
+        verifyWaitForVaadinChecks(driver, 2);
+    }
+
+    private FirefoxDriver mockWaitForVaadinDriver() {
+        FirefoxDriver driver = Mockito.mock(FirefoxDriver.class);
+        Mockito.when(
+                driver.executeScript(Mockito.contains("window.Vaadin.Flow")))
+                .thenReturn(Boolean.TRUE);
+        return driver;
+    }
+
+    private void verifyWaitForVaadinChecks(FirefoxDriver driver, int times) {
+        Mockito.verify(driver, Mockito.times(times))
+                .executeScript(Mockito.contains("window.Vaadin.Flow"));
+    }
+
     private WebDriver mockScreenshotDriver(int nrScreenshotsGrabbed,
             boolean expectGetCapabilities) throws IOException {
         RemoteWebDriver driver = Mockito.mock(FirefoxDriver.class);
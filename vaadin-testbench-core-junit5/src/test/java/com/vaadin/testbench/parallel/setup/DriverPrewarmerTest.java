@@ -0,0 +1,160 @@
+/**
+ * Copyright (C) 2000-2026 Vaadin Ltd
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full
+ * license.
+ */
+package com.vaadin.testbench.parallel.setup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+
+import com.vaadin.testbench.Parameters;
+
+public class DriverPrewarmerTest {
+
+    private DriverPrewarmer prewarmer;
+    private List<ChromeDriver> created;
+    private Map<WebDriver, String> startedBy;
+    private int previousPrewarmCount;
+
+    @BeforeEach
+    public void setup() {
+        previousPrewarmCount = Parameters.getDriverPrewarmCount();
+        Parameters.setDriverPrewarmCount(1);
+        prewarmer = new DriverPrewarmer();
+        created = new CopyOnWriteArrayList<>();
+        startedBy = new ConcurrentHashMap<>();
+    }
+
+    @AfterEach
+    public void teardown() {
+        prewarmer.close();
+        Parameters.setDriverPrewarmCount(previousPrewarmCount);
+    }
+
+    @Test
+    public void take_nextDriverStartedInBackground() throws Exception {
+        WebDriver first = prewarmer.take("chrome", this::createDriver);
+        Assertions.assertEquals(1, prewarmer.getPrewarmedCount());
+
+        WebDriver second = prewarmer.take("chrome", this::createDriver);
+
+        Assertions.assertFalse(isStartedInBackground(first));
+        Assertions.assertTrue(isStartedInBackground(second));
+        Assertions.assertEquals(1, prewarmer.getPrewarmedCount());
+    }
+
+    @Test
+    public void take_lookaheadBounded() throws Exception {
+        Parameters.setDriverPrewarmCount(2);
+
+        for (int i = 0; i < 5; i++) {
+            prewarmer.take("chrome", this::createDriver);
+        }
+
+        Assertions.assertEquals(2, prewarmer.getPrewarmedCount());
+        prewarmer.close();
+        Assertions.assertEquals(7, created.size());
+    }
+
+    @Test
+    public void differentKeys_notShared() throws Exception {
+        WebDriver chrome = prewarmer.take("chrome", this::createDriver);
+        WebDriver firefox = prewarmer.take("firefox", this::createDriver);
+
+        Assertions.assertFalse(isStartedInBackground(chrome));
+        Assertions.assertFalse(isStartedInBackground(firefox));
+        Assertions.assertEquals(2, prewarmer.getPrewarmedCount());
+    }
+
+    @Test
+    public void prewarmedDriverExpired_newDriverStarted() throws Exception {
+        List<ChromeDriver> expired = new CopyOnWriteArrayList<>();
+        prewarmer.take("chrome", () -> {
+            ChromeDriver driver = createDriver();
+            if (isStartedInBackground(driver)) {
+                Mockito.when(driver.getWindowHandle()).thenThrow(
+                        new NoSuchSessionException("Session timed out"));
+                expired.add(driver);
+            }
+            return driver;
+        });
+
+        WebDriver driver = prewarmer.take("chrome", this::createDriver);
+
+        Assertions.assertFalse(isStartedInBackground(driver));
+        Assertions.assertEquals(1, expired.size());
+        Mockito.verify(expired.get(0)).quit();
+    }
+
+    @Test
+    public void prewarmedDriverFailedToStart_newDriverStarted()
+            throws Exception {
+        prewarmer.take("chrome", () -> {
+            if (Thread.currentThread().getName()
+                    .startsWith("testbench-driver-prewarmer")) {
+                throw new IllegalStateException("Unable to start browser");
+            }
+            return createDriver();
+        });
+
+        WebDriver driver = prewarmer.take("chrome", this::createDriver);
+
+        Assertions.assertFalse(isStartedInBackground(driver));
+    }
+
+    @Test
+    public void close_unusedDriversQuit() throws Exception {
+        WebDriver used = prewarmer.take("chrome", this::createDriver);
+
+        prewarmer.close();
+
+        Assertions.assertEquals(2, created.size());
+        for (ChromeDriver driver : created) {
+            Mockito.verify(driver, Mockito.times(driver == used ? 0 : 1))
+                    .quit();
+        }
+        Assertions.assertEquals(0, prewarmer.getPrewarmedCount());
+
+        prewarmer.take("chrome", this::createDriver);
+        Assertions.assertEquals(0, prewarmer.getPrewarmedCount());
+    }
+
+    @Test
+    public void prewarmingDisabled_noDriversStartedInBackground()
+            throws Exception {
+        Parameters.setDriverPrewarmCount(0);
+
+        prewarmer.take("chrome", this::createDriver);
+        prewarmer.take("chrome", this::createDriver);
+
+        Assertions.assertEquals(2, created.size());
+        Assertions.assertEquals(0, prewarmer.getPrewarmedCount());
+    }
+
+    private boolean isStartedInBackground(WebDriver driver) {
+        return startedBy.get(driver).startsWith("testbench-driver-prewarmer");
+    }
+
+    private ChromeDriver createDriver() {
+        ChromeDriver driver = Mockito.mock(ChromeDriver.class);
+        Mockito.when(driver.getWindowHandle()).thenReturn("main");
+        startedBy.put(driver, Thread.currentThread().getName());
+        created.add(driver);
+        return driver;
+    }
+}
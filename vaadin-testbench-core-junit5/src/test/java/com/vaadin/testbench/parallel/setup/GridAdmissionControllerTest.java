@@ -0,0 +1,274 @@
+/**
+ * Copyright (C) 2000-2026 Vaadin Ltd
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full
+ * license.
+ */
+package com.vaadin.testbench.parallel.setup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.Platform;
+import org.openqa.selenium.remote.DesiredCapabilities;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+public class GridAdmissionControllerTest {
+
+    private static final Capabilities CHROME = new DesiredCapabilities(
+            "chrome", "", Platform.ANY);
+    private static final Capabilities FIREFOX = new DesiredCapabilities(
+            "firefox", "", Platform.ANY);
+
+    private HttpServer server;
+    private String hubURL;
+    private volatile String status;
+    private volatile int statusCode = 200;
+    private volatile long statusDelay;
+    private final AtomicInteger statusRequests = new AtomicInteger();
+    private GridAdmissionController controller;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/wd/hub/status", this::handleStatus);
+        server.start();
+        hubURL = "http://localhost:" + server.getAddress().getPort()
+                + "/wd/hub";
+        controller = new GridAdmissionController(Duration.ofMillis(50),
+                Duration.ofMillis(500));
+    }
+
+    @AfterEach
+    public void teardown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void freeSlot_admitted() throws Exception {
+        status = status(node(1, slot("chrome", false)));
+
+        Assertions.assertTrue(controller.awaitFreeSlot(hubURL, CHROME));
+    }
+
+    @Test
+    public void slotReserved_nextTestWaitsForNewSession() throws Exception {
+        status = status(node(2, slot("chrome", false), slot("chrome", false)));
+
+        Assertions.assertTrue(controller.awaitFreeSlot(hubURL, CHROME));
+        Assertions.assertTrue(controller.awaitFreeSlot(hubURL, CHROME));
+        long start = System.nanoTime();
+        Assertions.assertFalse(controller.awaitFreeSlot(hubURL, CHROME));
+
+        Assertions.assertTrue(Duration.ofNanos(System.nanoTime() - start)
+                .compareTo(Duration.ofMillis(500)) >= 0);
+        Assertions.assertTrue(statusRequests.get() > 1,
+                "Status should be polled while waiting");
+    }
+
+    @Test
+    public void slotFreedWhileWaiting_admitted() throws Exception {
+        status = status(node(1, slot("chrome", true)));
+        Thread thread = new Thread(() -> {
+            try {
+                Thread.sleep(150);
+            } catch (InterruptedException e) {
+                return;
+            }
+            status = status(node(1, slot("chrome", false)));
+        });
+        thread.start();
+
+        Assertions.assertTrue(controller.awaitFreeSlot(hubURL, CHROME));
+        thread.join();
+    }
+
+    @Test
+    public void reservedSlotNotReleased_stillReservedAfterPoll()
+            throws Exception {
+        status = status(node(1, slot("chrome", false)));
+
+        Assertions.assertTrue(controller.awaitFreeSlot(hubURL, CHROME));
+        Assertions.assertFalse(controller.awaitFreeSlot(hubURL, CHROME));
+
+        controller.releaseSlot(hubURL, CHROME);
+        Assertions.assertTrue(controller.awaitFreeSlot(hubURL, CHROME));
+    }
+
+    @Test
+    public void statusCached_notReadForEachTest() throws Exception {
+        status = status(node(3, slot("chrome", false), slot("chrome", false),
+                slot("chrome", false)));
+
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertTrue(controller.awaitFreeSlot(hubURL, CHROME));
+        }
+
+        Assertions.assertEquals(1, statusRequests.get());
+    }
+
+    @Test
+    public void nodeMaxSessionsReached_notAdmitted() throws Exception {
+        status = status(node(1, slot("firefox", true), slot("chrome", false)));
+
+        Assertions.assertFalse(controller.awaitFreeSlot(hubURL, CHROME));
+    }
+
+    @Test
+    public void slotsForOtherBrowserOnly_admittedWithoutWaiting()
+            throws Exception {
+        status = status(node(1, slot("firefox", true)));
+        long start = System.nanoTime();
+
+        Assertions.assertFalse(controller.awaitFreeSlot(hubURL, CHROME));
+
+        Assertions.assertTrue(Duration.ofNanos(System.nanoTime() - start)
+                .compareTo(Duration.ofMillis(500)) < 0);
+        Assertions.assertEquals(1, statusRequests.get());
+    }
+
+    @Test
+    public void matchingBrowser_admittedOnMatchingNode() throws Exception {
+        status = status(node(1, slot("chrome", true)),
+                node(1, slot("firefox", false)));
+
+        Assertions.assertTrue(controller.awaitFreeSlot(hubURL, FIREFOX));
+    }
+
+    @Test
+    public void statusNotAvailable_admittedWithoutWaiting() throws Exception {
+        statusCode = 404;
+        status = "{}";
+
+        Assertions.assertFalse(controller.awaitFreeSlot(hubURL, CHROME));
+        Assertions.assertEquals(1, statusRequests.get());
+    }
+
+    @Test
+    public void statusRead_slotReleasedWithoutWaitingForRead()
+            throws Exception {
+        status = status(node(1, slot("chrome", false)));
+        statusDelay = 500;
+        Thread thread = new Thread(() -> {
+            try {
+                controller.awaitFreeSlot(hubURL, CHROME);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.start();
+        while (statusRequests.get() == 0) {
+            Thread.sleep(10);
+        }
+
+        long start = System.nanoTime();
+        controller.releaseSlot(hubURL, FIREFOX);
+
+        Assertions.assertTrue(Duration.ofNanos(System.nanoTime() - start)
+                .compareTo(Duration.ofMillis(250)) < 0,
+                "Releasing a slot should not wait for the status to be read");
+        thread.join();
+    }
+
+    @Test
+    public void concurrentTests_statusReadOnce() throws Exception {
+        status = status(node(2, slot("chrome", false), slot("chrome", false)));
+        statusDelay = 200;
+        Thread thread = new Thread(() -> {
+            try {
+                Assertions.assertTrue(controller.awaitFreeSlot(hubURL, CHROME));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.start();
+
+        Assertions.assertTrue(controller.awaitFreeSlot(hubURL, CHROME));
+        thread.join();
+
+        Assertions.assertEquals(1, statusRequests.get());
+    }
+
+    @Test
+    public void browserVersion_matchesSameOrMoreSpecificVersion()
+            throws Exception {
+        status = status(node(1, slot("chrome", "120.0.6099.109", false)));
+
+        Assertions.assertTrue(controller.awaitFreeSlot(hubURL,
+                new DesiredCapabilities("chrome", "120", Platform.ANY)));
+        controller.releaseSlot(hubURL,
+                new DesiredCapabilities("chrome", "120", Platform.ANY));
+        Assertions.assertTrue(controller.awaitFreeSlot(hubURL,
+                new DesiredCapabilities("chrome", "120.0.6099.109",
+                        Platform.ANY)));
+    }
+
+    @Test
+    public void browserVersion_prefixOfOtherVersion_noSlot() throws Exception {
+        status = status(node(1, slot("chrome", "120.0", false)));
+        long start = System.nanoTime();
+
+        Assertions.assertFalse(controller.awaitFreeSlot(hubURL,
+                new DesiredCapabilities("chrome", "12", Platform.ANY)));
+
+        Assertions.assertTrue(Duration.ofNanos(System.nanoTime() - start)
+                .compareTo(Duration.ofMillis(500)) < 0);
+    }
+
+    private void handleStatus(HttpExchange exchange) throws IOException {
+        statusRequests.incrementAndGet();
+        if (statusDelay > 0) {
+            try {
+                Thread.sleep(statusDelay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        byte[] body = status.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type",
+                "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(statusCode, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String status(String... nodes) {
+        return "{\"value\": {\"ready\": true, \"message\": \"Selenium Grid ready.\", \"nodes\": ["
+                + String.join(",", nodes) + "]}}";
+    }
+
+    private static String node(int maxSessions, String... slots) {
+        return "{\"availability\": \"UP\", \"maxSessions\": " + maxSessions
+                + ", \"slots\": [" + String.join(",", slots) + "]}";
+    }
+
+    private static String slot(String browserName, boolean busy) {
+        return "{\"session\": "
+                + (busy ? "{\"sessionId\": \"1234\"}" : "null")
+                + ", \"stereotype\": {\"browserName\": \"" + browserName
+                + "\", \"platformName\": \"LINUX\"}}";
+    }
+
+    private static String slot(String browserName, String browserVersion,
+            boolean busy) {
+        return "{\"session\": "
+                + (busy ? "{\"sessionId\": \"1234\"}" : "null")
+                + ", \"stereotype\": {\"browserName\": \"" + browserName
+                + "\", \"browserVersion\": \"" + browserVersion
+                + "\", \"platformName\": \"LINUX\"}}";
+    }
+}
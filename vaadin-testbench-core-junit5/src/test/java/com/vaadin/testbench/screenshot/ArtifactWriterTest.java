@@ -0,0 +1,116 @@
+/**
+ * Copyright (C) 2000-2026 Vaadin Ltd
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full
+ * license.
+ */
+package com.vaadin.testbench.screenshot;
+
+import javax.imageio.ImageIO;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.vaadin.testbench.Parameters;
+
+public class ArtifactWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private boolean previousWritesAsync;
+    private int previousCompressionLevel;
+
+    @BeforeEach
+    public void setup() {
+        previousWritesAsync = Parameters.isScreenshotWritesAsync();
+        previousCompressionLevel = Parameters
+                .getScreenshotPngCompressionLevel();
+    }
+
+    @AfterEach
+    public void teardown() {
+        ArtifactWriter.flush();
+        Parameters.setScreenshotWritesAsync(previousWritesAsync);
+        Parameters.setScreenshotPngCompressionLevel(previousCompressionLevel);
+    }
+
+    @Test
+    public void asyncWrites_allWrittenAfterFlush() throws IOException {
+        Parameters.setScreenshotWritesAsync(true);
+        BufferedImage image = createImage();
+
+        // More writes than fit in the queue
+        for (int i = 0; i < 50; i++) {
+            ArtifactWriter.writePng(image,
+                    tempDir.resolve(i + ".png").toFile());
+        }
+        ArtifactWriter.flush();
+
+        for (int i = 0; i < 50; i++) {
+            assertImage(tempDir.resolve(i + ".png").toFile());
+        }
+    }
+
+    @Test
+    public void syncWrite_writtenImmediately() throws IOException {
+        Parameters.setScreenshotWritesAsync(false);
+        File file = tempDir.resolve("sync.png").toFile();
+
+        ArtifactWriter.writePng(createImage(), file);
+
+        assertImage(file);
+    }
+
+    @Test
+    public void syncWrite_errorThrown() {
+        Parameters.setScreenshotWritesAsync(false);
+        File file = tempDir.resolve("missing").resolve("error.png").toFile();
+
+        Assertions.assertThrows(IOException.class,
+                () -> ArtifactWriter.writePng(createImage(), file));
+    }
+
+    @Test
+    public void compressionLevel_affectsFileSize() throws IOException {
+        Parameters.setScreenshotWritesAsync(false);
+        BufferedImage image = createImage();
+        File uncompressed = tempDir.resolve("0.png").toFile();
+        File compressed = tempDir.resolve("9.png").toFile();
+
+        Parameters.setScreenshotPngCompressionLevel(0);
+        ArtifactWriter.writePng(image, uncompressed);
+        Parameters.setScreenshotPngCompressionLevel(9);
+        ArtifactWriter.writePng(image, compressed);
+
+        assertImage(uncompressed);
+        assertImage(compressed);
+        Assertions.assertTrue(uncompressed.length() > compressed.length());
+    }
+
+    private static BufferedImage createImage() {
+        BufferedImage image = new BufferedImage(100, 100,
+                BufferedImage.TYPE_INT_RGB);
+        for (int i = 0; i < 100; i++) {
+            image.setRGB(i, i, 0xff0000);
+        }
+        return image;
+    }
+
+    private static void assertImage(File file) throws IOException {
+        BufferedImage image = ImageIO.read(file);
+        Assertions.assertNotNull(image, "Unable to read " + file);
+        Assertions.assertEquals(0xffff0000, image.getRGB(42, 42));
+        Assertions.assertEquals(0xff000000, image.getRGB(42, 43));
+    }
+}
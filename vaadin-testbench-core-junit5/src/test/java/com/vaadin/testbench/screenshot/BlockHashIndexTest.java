@@ -0,0 +1,169 @@
+/**
+ * Copyright (C) 2000-2026 Vaadin Ltd
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full
+ * license.
+ */
+package com.vaadin.testbench.screenshot;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.vaadin.testbench.Parameters;
+import com.vaadin.testbench.testutils.ImageLoader;
+
+public class BlockHashIndexTest {
+
+    private static final String FOLDER = BlockHashIndexTest.class.getPackage()
+            .getName().replace('.', '/');
+
+    @TempDir
+    Path tempDir;
+
+    private String previousScreenshotErrorDirectory;
+    private String previousScreenshotReferenceDirectory;
+    private boolean previousScreenshotReferenceBlockHashes;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        previousScreenshotErrorDirectory = Parameters
+                .getScreenshotErrorDirectory();
+        previousScreenshotReferenceDirectory = Parameters
+                .getScreenshotReferenceDirectory();
+        previousScreenshotReferenceBlockHashes = Parameters
+                .isScreenshotReferenceBlockHashes();
+
+        Parameters.setScreenshotErrorDirectory(
+                tempDir.resolve("errors").toString());
+        Parameters.setScreenshotReferenceDirectory(
+                tempDir.resolve("reference").toString());
+        Parameters.setScreenshotReferenceBlockHashes(true);
+        Files.createDirectories(tempDir.resolve("reference"));
+        ReferenceImageCache.clear();
+    }
+
+    @AfterEach
+    public void teardown() {
+        Parameters
+                .setScreenshotErrorDirectory(previousScreenshotErrorDirectory);
+        Parameters.setScreenshotReferenceDirectory(
+                previousScreenshotReferenceDirectory);
+        Parameters.setScreenshotReferenceBlockHashes(
+                previousScreenshotReferenceBlockHashes);
+        ReferenceImageCache.clear();
+    }
+
+    @Test
+    public void sameImage_allBlocksEqual() throws IOException {
+        BufferedImage image = ImageLoader.loadImage(FOLDER, "big-image.png");
+        BlockHashIndex index = BlockHashIndex.create(image);
+
+        Assertions.assertTrue(index
+                .allBlocksEqual(BlockHashIndex.create(convert(image))));
+    }
+
+    @Test
+    public void differentImages_differingBlocksNotEqual() throws IOException {
+        BlockHashIndex reference = BlockHashIndex
+                .create(ImageLoader.loadImage(FOLDER, "cursor-off.png"));
+        BlockHashIndex screenshot = BlockHashIndex
+                .create(ImageLoader.loadImage(FOLDER, "cursor-on.png"));
+
+        Assertions.assertFalse(reference.allBlocksEqual(screenshot));
+        boolean[][] equalBlocks = reference.getEqualBlocks(screenshot);
+        int differing = 0;
+        for (boolean[] column : equalBlocks) {
+            for (boolean equal : column) {
+                if (!equal) {
+                    differing++;
+                }
+            }
+        }
+        // The cursor spans one or two blocks
+        Assertions.assertTrue(differing == 1 || differing == 2,
+                "Unexpected number of differing blocks " + differing);
+    }
+
+    @Test
+    public void differentSize_noEqualBlocks() throws IOException {
+        BlockHashIndex reference = BlockHashIndex
+                .create(ImageLoader.loadImage(FOLDER, "16x16-reference.png"));
+        BlockHashIndex screenshot = BlockHashIndex.create(
+                ImageLoader.loadImage(FOLDER, "17x17-similar-26.png"));
+
+        Assertions.assertFalse(reference.allBlocksEqual(screenshot));
+        Assertions.assertNull(reference.getEqualBlocks(screenshot));
+    }
+
+    @Test
+    public void sidecar_writtenOnFirstUse_referenceNotDecodedOnMatch()
+            throws IOException {
+        File reference = copyReference("big-image.png", "test.png");
+        BufferedImage screenshot = ImageLoader.loadImage(FOLDER,
+                "big-image.png");
+
+        Assertions.assertTrue(new ImageComparison()
+                .imageEqualToReference(screenshot, "test", 0, null));
+        Assertions
+                .assertTrue(BlockHashIndex.getSidecarFile(reference).isFile());
+        Assertions.assertNotNull(BlockHashIndex.readSidecar(reference));
+
+        ReferenceImageCache.clear();
+        Assertions.assertTrue(new ImageComparison()
+                .imageEqualToReference(screenshot, "test", 0, null));
+        Assertions.assertEquals(0, ReferenceImageCache.getMissCount());
+    }
+
+    @Test
+    public void sidecar_differingScreenshot_fails() throws IOException {
+        copyReference("big-image.png", "test.png");
+        BlockHashIndex.updateSidecar(
+                ImageFileUtil.getReferenceScreenshotFile("test.png"));
+
+        Assertions.assertFalse(new ImageComparison().imageEqualToReference(
+                ImageLoader.loadImage(FOLDER, "big-image-ss.png"), "test", 0,
+                null));
+    }
+
+    @Test
+    public void sidecar_referenceUpdated_sidecarIgnored() throws IOException {
+        File reference = copyReference("big-image.png", "test.png");
+        BlockHashIndex.updateSidecar(reference);
+
+        copyReference("big-image-ss.png", "test.png");
+        reference.setLastModified(reference.lastModified() + 2000);
+        Assertions.assertNull(BlockHashIndex.readSidecar(reference));
+
+        Assertions.assertTrue(new ImageComparison().imageEqualToReference(
+                ImageLoader.loadImage(FOLDER, "big-image-ss.png"), "test", 0,
+                null));
+        Assertions.assertNotNull(BlockHashIndex.readSidecar(reference));
+    }
+
+    private File copyReference(String source, String target)
+            throws IOException {
+        Path targetPath = tempDir.resolve("reference").resolve(target);
+        Files.copy(ImageLoader.getImageFile(FOLDER, source).toPath(),
+                targetPath, StandardCopyOption.REPLACE_EXISTING);
+        return targetPath.toFile();
+    }
+
+    private static BufferedImage convert(BufferedImage image) {
+        BufferedImage converted = new BufferedImage(image.getWidth(),
+                image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        converted.getGraphics().drawImage(image, 0, 0, null);
+        return converted;
+    }
+}
@@ -28,6 +28,7 @@ public class ImageComparisonTest {
     private String previousScreenshotErrorDirectory;
     private String previousScreenshotReferenceDirectory;
     private boolean previousScreenshotComparisonCursorDetection;
+    private boolean previousScreenshotComparisonParallel;
 
     @BeforeEach
     public void setup() {
@@ -37,6 +38,8 @@ public class ImageComparisonTest {
                 .getScreenshotReferenceDirectory();
         previousScreenshotComparisonCursorDetection = Parameters
                 .isScreenshotComparisonCursorDetection();
+        previousScreenshotComparisonParallel = Parameters
+                .isScreenshotComparisonParallel();
 
         URL screenshotUrl = getClass().getClassLoader().getResource(FOLDER);
         Parameters.setScreenshotErrorDirectory(
@@ -55,6 +58,8 @@ public class ImageComparisonTest {
                 previousScreenshotReferenceDirectory);
         Parameters.setScreenshotComparisonCursorDetection(
                 previousScreenshotComparisonCursorDetection);
+        Parameters.setScreenshotComparisonParallel(
+                previousScreenshotComparisonParallel);
     }
 
     @Test
@@ -63,6 +68,69 @@ public class ImageComparisonTest {
         testFullCompareImages("big-image.png", "big-image-ss.png", false, 0.05);
     }
 
+    @Test
+    public void testBigImageParallel() throws IOException {
+        Parameters.setScreenshotComparisonParallel(true);
+        Parameters.setScreenshotComparisonCursorDetection(true);
+        testFullCompareImages("big-image.png", "big-image-ss.png", false, 0.05);
+        testFullCompareImages("big-image.png", "big-image.png", true, 0.0);
+        testFullCompareImages("screenshot1008x767.png",
+                "screenshot1008x767.png", true, 0.0);
+    }
+
+    @Test
+    public void compareCursorImagesParallelWithCursorDetection()
+            throws IOException {
+        Parameters.setScreenshotComparisonParallel(true);
+        Parameters.setScreenshotComparisonCursorDetection(true);
+
+        testFullCompareImages("cursor-off.png", "cursor-on.png", true, 0.0);
+        testFullCompareImages("cursor2-off-outline-on.png",
+                "cursor2-on-outline-off.png", false, 0.0);
+        testFullCompareImages("cursor-bottom-right-off.png",
+                "cursor-bottom-right-on.png", true, 0.0);
+        testFullCompareImages("cursor3-ref.png", "cursor3-new.png", false,
+                0.025);
+    }
+
+    @Test
+    public void intPackedImagesComparedLikeOtherImageTypes()
+            throws IOException {
+        Parameters.setScreenshotComparisonCursorDetection(true);
+        String[][] pairs = { { "big-image.png", "big-image-ss.png" },
+                { "purple-border.png", "purple-border-top-left.png" },
+                { "cursor-off.png", "cursor-on.png" },
+                { "cursor3-ref.png", "cursor3-new.png" },
+                { "red.png", "black.png" } };
+        double[] tolerances = { 0.0, 0.025, 0.334 };
+        for (String[] pair : pairs) {
+            BufferedImage reference = ImageLoader.loadImage(FOLDER, pair[0]);
+            BufferedImage screenshot = ImageLoader.loadImage(FOLDER, pair[1]);
+            for (double tolerance : tolerances) {
+                boolean expected = new ImageComparison().compareImages(
+                        reference, screenshot, tolerance);
+                Assertions.assertEquals(expected,
+                        new ImageComparison().compareImages(
+                                convert(reference, BufferedImage.TYPE_INT_RGB),
+                                convert(screenshot, BufferedImage.TYPE_INT_RGB),
+                                tolerance));
+                Assertions.assertEquals(expected,
+                        new ImageComparison().compareImages(
+                                convert(reference,
+                                        BufferedImage.TYPE_INT_ARGB),
+                                convert(screenshot, BufferedImage.TYPE_INT_RGB),
+                                tolerance));
+            }
+        }
+    }
+
+    private static BufferedImage convert(BufferedImage image, int type) {
+        BufferedImage converted = new BufferedImage(image.getWidth(),
+                image.getHeight(), type);
+        converted.getGraphics().drawImage(image, 0, 0, null);
+        return converted;
+    }
+
     @Test
     public void testPartialBlockComparisonRC() throws IOException {
         testRCCompareImages("purple-border.png", "purple-border-top-left.png",
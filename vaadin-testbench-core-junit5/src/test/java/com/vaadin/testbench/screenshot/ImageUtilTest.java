@@ -10,6 +10,7 @@ package com.vaadin.testbench.screenshot;
 
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.jupiter.api.Assertions;
@@ -80,4 +81,36 @@ public class ImageUtilTest {
         Assertions.assertEquals(image1, images.get(0));
         Assertions.assertEquals(image2, images.get(1));
     }
+
+    @Test
+    public void getBlockDifference_subImages_readsSamePixelsAsGetBlock()
+            throws IOException {
+        BufferedImage loaded = ImageLoader.loadImage(FOLDER,
+                "screenshot1008x767.png");
+        BufferedImage image = new BufferedImage(loaded.getWidth(),
+                loaded.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        image.getGraphics().drawImage(loaded, 0, 0, null);
+
+        ImageUtil.ImageProperties reference = ImageUtil
+                .getImageProperties(image.getSubimage(20, 30, 100, 50));
+        ImageUtil.ImageProperties screenshot = ImageUtil
+                .getImageProperties(image.getSubimage(21, 30, 100, 50));
+        Assertions.assertTrue(ImageUtil.hasIntPixels(reference));
+
+        int[] sample = ImageUtil.createSampleBuffer();
+        for (int y = 0; y < 50; y += 16) {
+            for (int x = 0; x < 100; x += 16) {
+                int[] refBlock = ImageUtil.getBlock(reference, x, y, null,
+                        sample);
+                int[] ssBlock = ImageUtil.getBlock(screenshot, x, y, null,
+                        sample);
+                boolean blocksEqual = Arrays.equals(refBlock, ssBlock);
+                Assertions.assertEquals(blocksEqual,
+                        ImageUtil.getBlockDifference(reference, screenshot, x,
+                                y) < 0);
+                Assertions.assertEquals(-1, ImageUtil
+                        .getBlockDifference(reference, reference, x, y));
+            }
+        }
+    }
 }
@@ -0,0 +1,156 @@
+/**
+ * Copyright (C) 2000-2026 Vaadin Ltd
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full
+ * license.
+ */
+package com.vaadin.testbench.screenshot;
+
+import javax.imageio.IIOException;
+import javax.imageio.ImageIO;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.vaadin.testbench.testutils.ImageLoader;
+
+public class PngScreenshotDecoderTest {
+
+    private static final String FOLDER = PngScreenshotDecoderTest.class
+            .getPackage().getName().replace('.', '/');
+
+    private final PngScreenshotDecoder decoder = new PngScreenshotDecoder();
+
+    @Test
+    public void screenshots_decodedToIntArgbWithSamePixelsAsImageIO()
+            throws IOException {
+        for (String name : new String[] { "big-image.png", "big-image-ss.png",
+                "cursor-on.png", "cursor-off.png", "16x16-reference.png",
+                "17x17-similar-26.png" }) {
+            byte[] data = ImageLoader.loadImageBytes(FOLDER, name);
+            BufferedImage decoded = decoder.decode(data);
+            assertSamePixels(ImageIO.read(new ByteArrayInputStream(data)),
+                    decoded, name);
+        }
+    }
+
+    @Test
+    public void allFilterTypes_decodedLikeImageIO() throws IOException {
+        // Noise and gradients make the encoder use all five filter types
+        Random random = new Random(42);
+        for (int type : new int[] { BufferedImage.TYPE_INT_RGB,
+                BufferedImage.TYPE_INT_ARGB }) {
+            BufferedImage image = new BufferedImage(97, 61, type);
+            for (int y = 0; y < image.getHeight(); y++) {
+                for (int x = 0; x < image.getWidth(); x++) {
+                    int rgb = random.nextInt(8) == 0 ? random.nextInt()
+                            : (x * 3) << 16 | (y * 4) << 8 | (x + y);
+                    image.setRGB(x, y, rgb | (random.nextInt(4) << 24)
+                            | 0xf0000000);
+                }
+            }
+            byte[] data = encode(image);
+            assertSamePixels(ImageIO.read(new ByteArrayInputStream(data)),
+                    decoder.decode(data), "type " + type);
+        }
+    }
+
+    @Test
+    public void concurrentDecodes_decodedCorrectlyAndPoolBounded()
+            throws Exception {
+        byte[] data = ImageLoader.loadImageBytes(FOLDER, "cursor-on.png");
+        BufferedImage expected = ImageIO.read(new ByteArrayInputStream(data));
+        int threads = Runtime.getRuntime().availableProcessors() * 2 + 2;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<BufferedImage>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return decoder.decode(data);
+                }));
+            }
+            start.countDown();
+            for (Future<BufferedImage> result : results) {
+                assertSamePixels(expected, result.get(), "cursor-on.png");
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Assertions.assertTrue(PngScreenshotDecoder
+                .getPooledBufferCount() <= Runtime.getRuntime()
+                        .availableProcessors());
+    }
+
+    @Test
+    public void grayscaleImage_decodedUsingImageIO() throws IOException {
+        BufferedImage image = new BufferedImage(20, 20,
+                BufferedImage.TYPE_BYTE_GRAY);
+        image.getRaster().setSample(3, 4, 0, 200);
+        byte[] data = encode(image);
+
+        BufferedImage decoded = decoder.decode(data);
+
+        Assertions.assertEquals(BufferedImage.TYPE_BYTE_GRAY,
+                decoded.getType());
+        Assertions.assertEquals(image.getRGB(3, 4), decoded.getRGB(3, 4));
+    }
+
+    @Test
+    public void truncatedImage_throws() throws IOException {
+        byte[] data = ImageLoader.loadImageBytes(FOLDER, "big-image.png");
+
+        Assertions.assertThrows(IIOException.class, () -> decoder
+                .decode(Arrays.copyOf(data, data.length / 2)));
+    }
+
+    @Test
+    public void notAnImage_returnsNull() throws IOException {
+        Assertions.assertNull(decoder.decode(new byte[] { 1, 2, 3 }));
+    }
+
+    @Test
+    public void decodeImage_usesDefaultDecoder() throws IOException {
+        byte[] data = ImageLoader.loadImageBytes(FOLDER, "cursor-on.png");
+
+        Assertions.assertEquals(BufferedImage.TYPE_INT_ARGB,
+                ImageUtil.decodeImage(data).getType());
+    }
+
+    private static byte[] encode(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static void assertSamePixels(BufferedImage expected,
+            BufferedImage actual, String name) {
+        Assertions.assertEquals(BufferedImage.TYPE_INT_ARGB, actual.getType(),
+                name);
+        Assertions.assertEquals(expected.getWidth(), actual.getWidth(), name);
+        Assertions.assertEquals(expected.getHeight(), actual.getHeight(), name);
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                Assertions.assertEquals(expected.getRGB(x, y),
+                        actual.getRGB(x, y), name + " at " + x + "," + y);
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright (C) 2000-2026 Vaadin Ltd
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full
+ * license.
+ */
+package com.vaadin.testbench.screenshot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.openqa.selenium.Capabilities;
+
+import com.vaadin.testbench.Parameters;
+
+public class ReferenceDirectoryIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    private String previousScreenshotReferenceDirectory;
+    private boolean previousIndexed;
+
+    @BeforeEach
+    public void setup() {
+        previousScreenshotReferenceDirectory = Parameters
+                .getScreenshotReferenceDirectory();
+        previousIndexed = Parameters.isScreenshotReferenceDirectoryIndexed();
+        Parameters.setScreenshotReferenceDirectory(tempDir.toString());
+        Parameters.setScreenshotReferenceDirectoryIndexed(true);
+    }
+
+    @AfterEach
+    public void teardown() {
+        Parameters.setScreenshotReferenceDirectory(
+                previousScreenshotReferenceDirectory);
+        Parameters.setScreenshotReferenceDirectoryIndexed(previousIndexed);
+        ReferenceDirectoryIndex.clear();
+    }
+
+    @Test
+    public void existingFiles_found() throws IOException {
+        Files.createFile(tempDir.resolve("foo.png"));
+        Files.createDirectories(tempDir.resolve("sub"));
+        Files.createFile(tempDir.resolve("sub").resolve("bar.png"));
+
+        String dir = tempDir.toString();
+        Assertions.assertTrue(ReferenceDirectoryIndex.exists(dir, "foo.png"));
+        Assertions.assertTrue(
+                ReferenceDirectoryIndex.exists(dir, "sub/bar.png"));
+        Assertions.assertTrue(ReferenceDirectoryIndex.exists(dir, "sub"));
+        Assertions.assertFalse(ReferenceDirectoryIndex.exists(dir, "bar.png"));
+    }
+
+    @Test
+    public void filesAddedAndRemoved_indexUpdated() throws IOException {
+        String dir = tempDir.toString();
+        Assertions.assertFalse(ReferenceDirectoryIndex.exists(dir, "foo.png"));
+
+        Files.createFile(tempDir.resolve("foo.png"));
+        awaitTrue(() -> ReferenceDirectoryIndex.exists(dir, "foo.png"));
+
+        Files.createDirectories(tempDir.resolve("sub"));
+        Files.createFile(tempDir.resolve("sub").resolve("bar.png"));
+        awaitTrue(() -> ReferenceDirectoryIndex.exists(dir, "sub/bar.png"));
+
+        Files.delete(tempDir.resolve("foo.png"));
+        awaitTrue(() -> !ReferenceDirectoryIndex.exists(dir, "foo.png"));
+    }
+
+    @Test
+    public void referenceImageFileNames_alternativesAndOlderVersionsFound()
+            throws IOException {
+        for (String name : new String[] { "test_linux_chrome_118.png",
+                "test_linux_chrome_118_1.png", "test_linux_chrome_118_2.png",
+                "test_linux_chrome_118_4.png" }) {
+            Files.createFile(tempDir.resolve(name));
+        }
+        Capabilities capabilities = Mockito.mock(Capabilities.class);
+        Mockito.when(capabilities.getBrowserName()).thenReturn("chrome");
+        Mockito.when(capabilities.getBrowserVersion()).thenReturn("120.0");
+
+        List<String> names = ImageFileUtil.getReferenceImageFileNames(
+                "test_linux_chrome_120.png", capabilities);
+
+        Assertions.assertEquals(Arrays.asList("test_linux_chrome_118.png",
+                "test_linux_chrome_118_1.png", "test_linux_chrome_118_2.png"),
+                names);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            Assertions.assertTrue(System.currentTimeMillis() < deadline,
+                    "Index was not updated");
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                Assertions.fail(e);
+            }
+        }
+    }
+}
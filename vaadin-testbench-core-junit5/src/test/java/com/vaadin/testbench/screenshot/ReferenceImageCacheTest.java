@@ -0,0 +1,125 @@
+/**
+ * Copyright (C) 2000-2026 Vaadin Ltd
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full
+ * license.
+ */
+package com.vaadin.testbench.screenshot;
+
+import javax.imageio.ImageIO;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.vaadin.testbench.Parameters;
+
+public class ReferenceImageCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private int previousCacheSize;
+
+    @BeforeEach
+    public void setup() {
+        previousCacheSize = Parameters.getScreenshotReferenceCacheSize();
+        ReferenceImageCache.clear();
+    }
+
+    @AfterEach
+    public void teardown() {
+        Parameters.setScreenshotReferenceCacheSize(previousCacheSize);
+        ReferenceImageCache.clear();
+    }
+
+    @Test
+    public void readTwice_decodedOnce() throws IOException {
+        File file = writeImage("ref.png", 32, 32);
+
+        BufferedImage first = ReferenceImageCache.read(file);
+        BufferedImage second = ReferenceImageCache.read(file);
+
+        Assertions.assertSame(first, second);
+        Assertions.assertEquals(1, ReferenceImageCache.getMissCount());
+        Assertions.assertEquals(1, ReferenceImageCache.getHitCount());
+        Assertions.assertEquals(32 * 32 * 4,
+                ReferenceImageCache.getUsedBytes());
+    }
+
+    @Test
+    public void fileModified_decodedAgain() throws IOException {
+        File file = writeImage("ref.png", 32, 32);
+        BufferedImage first = ReferenceImageCache.read(file);
+
+        writeImage("ref.png", 16, 16);
+        file.setLastModified(file.lastModified() + 2000);
+        BufferedImage second = ReferenceImageCache.read(file);
+
+        Assertions.assertNotSame(first, second);
+        Assertions.assertEquals(16, second.getWidth());
+        Assertions.assertEquals(2, ReferenceImageCache.getMissCount());
+        Assertions.assertEquals(16 * 16 * 4,
+                ReferenceImageCache.getUsedBytes());
+    }
+
+    @Test
+    public void cacheFull_leastRecentlyUsedEvicted() throws IOException {
+        Parameters.setScreenshotReferenceCacheSize(1);
+        // 4 bytes per pixel, so each image takes 0.4 MB
+        File a = writeImage("a.png", 320, 320);
+        File b = writeImage("b.png", 320, 320);
+        File c = writeImage("c.png", 320, 320);
+
+        ReferenceImageCache.read(a);
+        ReferenceImageCache.read(b);
+        ReferenceImageCache.read(a);
+        ReferenceImageCache.read(c);
+        Assertions.assertEquals(3, ReferenceImageCache.getMissCount());
+
+        // b was least recently used
+        ReferenceImageCache.read(a);
+        ReferenceImageCache.read(b);
+        Assertions.assertEquals(2, ReferenceImageCache.getHitCount());
+        Assertions.assertEquals(4, ReferenceImageCache.getMissCount());
+    }
+
+    @Test
+    public void cacheDisabled_alwaysDecoded() throws IOException {
+        Parameters.setScreenshotReferenceCacheSize(0);
+        File file = writeImage("ref.png", 32, 32);
+
+        ReferenceImageCache.read(file);
+        ReferenceImageCache.read(file);
+
+        Assertions.assertEquals(0, ReferenceImageCache.getHitCount());
+        Assertions.assertEquals(2, ReferenceImageCache.getMissCount());
+        Assertions.assertEquals(0, ReferenceImageCache.getUsedBytes());
+    }
+
+    @Test
+    public void missingFile_throws() {
+        Assertions.assertThrows(IOException.class, () -> ReferenceImageCache
+                .read(tempDir.resolve("missing.png").toFile()));
+        Assertions.assertEquals(0, ReferenceImageCache.getUsedBytes());
+    }
+
+    private File writeImage(String name, int width, int height)
+            throws IOException {
+        BufferedImage image = new BufferedImage(width, height,
+                BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(0, 0, 0xff123456);
+        File file = tempDir.resolve(name).toFile();
+        ImageIO.write(image, "png", file);
+        return file;
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright (C) 2000-2026 Vaadin Ltd
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full
+ * license.
+ */
+package com.vaadin.testbench.screenshot;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.vaadin.testbench.Parameters;
+import com.vaadin.testbench.testutils.ImageLoader;
+
+public class ScreenShotFailureReporterTest {
+
+    private static final String FOLDER = ScreenShotFailureReporterTest.class
+            .getPackage().getName().replace('.', '/');
+
+    @TempDir
+    Path tempDir;
+
+    private String previousScreenshotErrorDirectory;
+
+    @BeforeEach
+    public void setup() {
+        previousScreenshotErrorDirectory = Parameters
+                .getScreenshotErrorDirectory();
+        Parameters.setScreenshotErrorDirectory(tempDir.toString());
+    }
+
+    @AfterEach
+    public void teardown() {
+        Parameters
+                .setScreenshotErrorDirectory(previousScreenshotErrorDirectory);
+    }
+
+    @Test
+    public void diffHtml_eachImageEmbeddedOnce() throws IOException {
+        BufferedImage reference = ImageLoader.loadImage(FOLDER,
+                "big-image.png");
+        BufferedImage screenshot = ImageLoader.loadImage(FOLDER,
+                "big-image-ss.png");
+
+        Assertions.assertFalse(new ImageComparison()
+                .imageEqualToReference(screenshot, reference, "big.png", 0));
+
+        Assertions.assertTrue(Files.exists(tempDir.resolve("big.png")));
+        String html = Files.readString(tempDir.resolve("big.png.html"),
+                StandardCharsets.UTF_8);
+        Assertions.assertEquals(2, countOccurrences(html, "base64,"));
+        Assertions.assertTrue(countOccurrences(html, "class=\"error\"") > 0);
+        Assertions.assertTrue(html.endsWith("</body></html>\n"));
+    }
+
+    private static int countOccurrences(String text, String part) {
+        int count = 0;
+        for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part,
+                i + part.length())) {
+            count++;
+        }
+        return count;
+    }
+}
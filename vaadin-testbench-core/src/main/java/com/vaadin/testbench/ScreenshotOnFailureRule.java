@@ -8,10 +8,7 @@
  */
 package com.vaadin.testbench;
 
-import javax.imageio.ImageIO;
-
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
 import java.io.File;
 
 import org.junit.rules.TestWatcher;
@@ -24,7 +21,9 @@ import org.openqa.selenium.remote.RemoteWebDriver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.vaadin.testbench.screenshot.ArtifactWriter;
 import com.vaadin.testbench.screenshot.ImageFileUtil;
+import com.vaadin.testbench.screenshot.ImageUtil;
 
 /**
  * This JUnit {@link org.junit.Rule} grabs a screenshot when a test fails.
@@ -118,15 +117,14 @@ public class ScreenshotOnFailureRule extends TestWatcher {
 
         // Grab a screenshot when a test fails
         try {
-            BufferedImage screenshotImage = ImageIO
-                    .read(new ByteArrayInputStream(
-                            ((TakesScreenshot) driverHolder.getDriver())
-                                    .getScreenshotAs(OutputType.BYTES)));
+            BufferedImage screenshotImage = ImageUtil
+                    .decodeImage(((TakesScreenshot) driverHolder.getDriver())
+                            .getScreenshotAs(OutputType.BYTES));
             // Store the screenshot in the errors directory
             ImageFileUtil.createScreenshotDirectoriesIfNeeded();
             final File errorScreenshotFile = getErrorScreenshotFile(
                     description);
-            ImageIO.write(screenshotImage, "png", errorScreenshotFile);
+            ArtifactWriter.writePng(screenshotImage, errorScreenshotFile);
             getLogger().info("Error screenshot written to: "
                     + errorScreenshotFile.getAbsolutePath());
         } catch (Exception e) {
@@ -147,6 +145,10 @@ public class ScreenshotOnFailureRule extends TestWatcher {
                 getLogger().warn("Unable to quit driver: " + e.getMessage(), e);
             }
         }
+        // JUnit 4 has no callback for the end of the test run, so artifacts
+        // written asynchronously are completed before the test is reported
+        // as finished. The driver is quit first to overlap with the writes.
+        ArtifactWriter.flush();
     }
 
     /**
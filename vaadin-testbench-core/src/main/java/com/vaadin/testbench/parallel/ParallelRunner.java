@@ -17,10 +17,13 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.runners.BlockJUnit4ClassRunner;
+import org.junit.runner.notification.RunNotifier;
 import org.junit.runners.Parameterized;
 import org.junit.runners.model.FrameworkMethod;
 import org.junit.runners.model.InitializationError;
@@ -40,6 +43,10 @@ import com.vaadin.testbench.annotations.RunLocally;
  * (http://tedyoung.me/2011/01/23/junit-runtime-tests-custom-runners/). The
  * generated test names give information about the parameters used (unlike
  * {@link Parameterized}).
+ * <p>
+ * If {@link Parameters#getTestDurationHistory()} is set, the duration of each
+ * test is recorded and the tests which took the longest on earlier runs are
+ * started first.
  */
 public class ParallelRunner extends BlockJUnit4ClassRunner {
 
@@ -58,14 +65,27 @@ public class ParallelRunner extends BlockJUnit4ClassRunner {
      */
     private static final ExecutorService service;
 
+    /**
+     * Limits the number of tests running concurrently when using virtual
+     * threads, {@code null} when the size of the thread pool is the limit.
+     */
+    private static final Semaphore permits;
+
     static {
         MAX_CONCURRENT_TESTS = Parameters.getTestsInParallel();
-        service = Executors.newFixedThreadPool(MAX_CONCURRENT_TESTS);
+        if (Parameters.isVirtualThreads()) {
+            service = Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("testbench-test-", 0).factory());
+            permits = new Semaphore(MAX_CONCURRENT_TESTS, true);
+        } else {
+            service = Executors.newFixedThreadPool(MAX_CONCURRENT_TESTS);
+            permits = null;
+        }
     }
 
     public ParallelRunner(Class<?> klass) throws InitializationError {
         super(klass);
-        setScheduler(new ParallelScheduler(service));
+        setScheduler(new ParallelScheduler(service, permits));
     }
 
     @Override
@@ -118,7 +138,34 @@ public class ParallelRunner extends BlockJUnit4ClassRunner {
                     e);
         }
 
-        return tests;
+        // Start the slowest tests first so that they do not delay the end of
+        // the run
+        TestDurationHistory history = TestDurationHistory.getInstance();
+        return TestDurationHistory.sortLongestFirst(tests,
+                method -> history.getDuration(getDurationKey(method)));
+    }
+
+    @Override
+    public void run(RunNotifier notifier) {
+        try {
+            super.run(notifier);
+        } finally {
+            TestDurationHistory.getInstance().save();
+        }
+    }
+
+    @Override
+    protected void runChild(FrameworkMethod method, RunNotifier notifier) {
+        long start = System.nanoTime();
+        super.runChild(method, notifier);
+        if (!isIgnored(method)) {
+            TestDurationHistory.getInstance().record(getDurationKey(method),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    private String getDurationKey(FrameworkMethod method) {
+        return getTestClass().getName() + "#" + method.getName();
     }
 
     private boolean categoryIsExcludedOrNotExcplicitlyIncluded() {
@@ -13,16 +13,20 @@ import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 import org.junit.runners.model.RunnerScheduler;
 
 /**
  * JUnit scheduler capable of running multiple tets in parallel. Each test is
  * run in its own thread. Uses an {@link ExecutorService} to manage the threads.
+ * The number of tests running at the same time can also be limited using a
+ * {@link Semaphore}, for executors which do not limit the number of threads.
  */
 public class ParallelScheduler implements RunnerScheduler {
     private final List<Future<Object>> fResults = new ArrayList<>();
     private ExecutorService fService;
+    private final Semaphore permits;
 
     /**
      * Creates a parallel scheduler which will use the given executor service
@@ -32,18 +36,61 @@ public class ParallelScheduler implements RunnerScheduler {
      *            The service to use for tests
      */
     public ParallelScheduler(ExecutorService service) {
+        this(service, null);
+    }
+
+    /**
+     * Creates a parallel scheduler which will use the given executor service
+     * when submitting test jobs, and runs a test only after acquiring a permit
+     * from the given semaphore.
+     *
+     * @param service
+     *            The service to use for tests
+     * @param permits
+     *            The semaphore limiting the number of tests running at the
+     *            same time, or {@code null} to only limit by the threads of
+     *            the service
+     */
+    public ParallelScheduler(ExecutorService service, Semaphore permits) {
         fService = service;
+        this.permits = permits;
     }
 
+    /**
+     * Submits the given test to the executor service. When a semaphore is in
+     * use, a permit is acquired on the calling thread before submitting, so
+     * that tests start in the order they are scheduled, and released once the
+     * test has finished.
+     */
     @Override
     public void schedule(final Runnable childStatement) {
-        fResults.add(fService.submit(new Callable<Object>() {
-            @Override
-            public Object call() throws Exception {
-                childStatement.run();
-                return null;
-            }
-        }));
+        if (permits == null) {
+            fResults.add(fService.submit(new Callable<Object>() {
+                @Override
+                public Object call() throws Exception {
+                    childStatement.run();
+                    return null;
+                }
+            }));
+            return;
+        }
+        permits.acquireUninterruptibly();
+        try {
+            fResults.add(fService.submit(new Callable<Object>() {
+                @Override
+                public Object call() throws Exception {
+                    try {
+                        childStatement.run();
+                    } finally {
+                        permits.release();
+                    }
+                    return null;
+                }
+            }));
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
     }
 
     @Override
@@ -8,7 +8,9 @@
  */
 package com.vaadin.testbench.parallel;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 
 import org.junit.Before;
@@ -25,6 +27,7 @@ import com.vaadin.testbench.TestBenchTestCase;
 import com.vaadin.testbench.annotations.BrowserConfiguration;
 import com.vaadin.testbench.annotations.RunLocally;
 import com.vaadin.testbench.annotations.RunOnHub;
+import com.vaadin.testbench.parallel.setup.DriverPrewarmer;
 import com.vaadin.testbench.parallel.setup.SetupDriver;
 
 /**
@@ -122,36 +125,59 @@ public class ParallelTest extends TestBenchTestCase {
      * the driver to connect to localhost ({@link RunLocally} annotation
      * overrides {@link RunOnHub} annotation).
      * </p>
+     * <p>
+     * If {@link Parameters#getDriverPrewarmCount()} is set, a driver started
+     * in the background by {@link DriverPrewarmer} is used when available.
+     * </p>
      *
      * @throws Exception
      *             if unable to instantiate {@link WebDriver}
      */
     @Before
     public void setup() throws Exception {
+        if (SauceLabsIntegration.isConfiguredForSauceLabs()) {
+            // The session is named after the test so it cannot be prewarmed
+            setDriver(createDriver(driverConfiguration));
+            return;
+        }
+        // Use a copy so that drivers started in the background are not
+        // affected by changes made to the configuration by later tests
+        SetupDriver driverConfig = new SetupDriver();
+        driverConfig.setDesiredCapabilities(new DesiredCapabilities(
+                driverConfiguration.getDesiredCapabilities()));
+        setDriver(DriverPrewarmer.getInstance().take(getDriverKey(),
+                () -> createDriver(driverConfig)));
+    }
+
+    /**
+     * Gets the key for drivers which can be used interchangeably by this test.
+     */
+    private List<Object> getDriverKey() {
+        boolean hubConfigured = getRunOnHub(getClass()) != null
+                || Parameters.getHubHostname() != null;
+        return Arrays.asList(getRunLocallyBrowser(),
+                getRunLocallyBrowserVersion(),
+                hubConfigured ? getHubURL() : null,
+                new HashMap<>(driverConfiguration.getDesiredCapabilities()
+                        .asMap()));
+    }
+
+    private WebDriver createDriver(SetupDriver driverConfig) throws Exception {
         // Always give priority to @RunLocally annotation
         if ((getRunLocallyBrowser() != null)) {
-            WebDriver driver = driverConfiguration.setupLocalDriver(
-                    getRunLocallyBrowser(), getRunLocallyBrowserVersion());
-            setDriver(driver);
+            return driverConfig.setupLocalDriver(getRunLocallyBrowser(),
+                    getRunLocallyBrowserVersion());
         } else if (Parameters.isLocalWebDriverUsed()) {
-            WebDriver driver = driverConfiguration.setupLocalDriver();
-            setDriver(driver);
+            return driverConfig.setupLocalDriver();
         } else if (SauceLabsIntegration.isConfiguredForSauceLabs()) {
-            WebDriver driver = driverConfiguration
-                    .setupRemoteDriver(getHubURL());
-            setDriver(driver);
-
+            return driverConfig.setupRemoteDriver(getHubURL());
         } else if (getRunOnHub(getClass()) != null
                 || Parameters.getHubHostname() != null) {
-            WebDriver driver = driverConfiguration
-                    .setupRemoteDriver(getHubURL());
-            setDriver(driver);
+            return driverConfig.setupRemoteDriver(getHubURL());
         } else {
             getLogger().info(
                     "Did not find a configuration to run locally, on Sauce Labs or on other test grid. Falling back to running locally on Chrome.");
-            WebDriver driver = driverConfiguration
-                    .setupLocalDriver(Browser.CHROME);
-            setDriver(driver);
+            return driverConfig.setupLocalDriver(Browser.CHROME);
         }
     }
 
@@ -22,8 +22,10 @@ import java.util.Enumeration;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.jar.JarEntry;
 
+import org.junit.runner.Runner;
 import org.junit.runners.Suite;
 import org.junit.runners.model.InitializationError;
 
@@ -31,7 +33,9 @@ import com.vaadin.testbench.Parameters;
 
 /**
  * Test suite which consists of all the TestBench tests passed in the
- * constructor. Runs the tests in parallel using a {@link ParallelScheduler}
+ * constructor. Runs the tests in parallel using a {@link ParallelScheduler}.
+ * If {@link Parameters#getTestDurationHistory()} is set, the test classes
+ * which took the longest on earlier runs are started first.
  */
 public class ParallelTestSuite extends Suite {
 
@@ -47,8 +51,18 @@ public class ParallelTestSuite extends Suite {
      * This is static so it is shared by all test suites running concurrently on
      * the same machine and thus can limit the number of threads in use.
      */
-    private final ExecutorService service = Executors
-            .newFixedThreadPool(MAX_CONCURRENT_TEST_SUITES);
+    private final ExecutorService service = Parameters.isVirtualThreads()
+            ? Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("testbench-suite-", 0).factory())
+            : Executors.newFixedThreadPool(MAX_CONCURRENT_TEST_SUITES);
+
+    /**
+     * Limits the number of test suites running concurrently when using virtual
+     * threads, {@code null} when the size of the thread pool is the limit.
+     */
+    private final Semaphore permits = Parameters.isVirtualThreads()
+            ? new Semaphore(MAX_CONCURRENT_TEST_SUITES, true)
+            : null;
 
     public ParallelTestSuite(Class<?> klass,
             Class<? extends ParallelTest> baseClass, String basePackage,
@@ -59,7 +73,17 @@ public class ParallelTestSuite extends Suite {
     protected ParallelTestSuite(Class<?> klass, Class<?>[] suiteClasses)
             throws InitializationError {
         super(klass, suiteClasses);
-        setScheduler(new ParallelScheduler(service));
+        setScheduler(new ParallelScheduler(service, permits));
+    }
+
+    @Override
+    protected List<Runner> getChildren() {
+        // Start the slowest test classes first so that they do not delay the
+        // end of the run
+        TestDurationHistory history = TestDurationHistory.getInstance();
+        return TestDurationHistory.sortLongestFirst(super.getChildren(),
+                runner -> history.getClassDuration(
+                        runner.getDescription().getClassName()));
     }
 
     /**
@@ -0,0 +1,227 @@
+/**
+ * Copyright (C) 2000-2026 Vaadin Ltd
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full
+ * license.
+ */
+package com.vaadin.testbench.parallel;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vaadin.testbench.Parameters;
+
+/**
+ * Durations of earlier test runs, used for starting the slowest tests first.
+ * <p>
+ * The durations are stored in milliseconds in a properties file, keyed by the
+ * test class, method and browser. A new duration is averaged with the stored
+ * one to even out random variation between runs.
+ *
+ * @see Parameters#setTestDurationHistory(String)
+ */
+class TestDurationHistory {
+
+    private static TestDurationHistory instance;
+
+    private static Logger getLogger() {
+        return LoggerFactory.getLogger(TestDurationHistory.class);
+    }
+
+    private final File file;
+    private final Map<String, Long> durations = new HashMap<>();
+    private final Map<String, Long> recorded = new HashMap<>();
+    private final ReentrantLock fileLock = new ReentrantLock();
+
+    /**
+     * Creates a history stored in the given file.
+     *
+     * @param file
+     *            the file to read and store the durations in, or {@code null}
+     *            to not record any durations
+     */
+    TestDurationHistory(File file) {
+        this.file = file;
+        if (file != null && file.isFile()) {
+            durations.putAll(read(file));
+        }
+    }
+
+    /**
+     * Gets the history shared by all tests, stored in the file given by
+     * {@link Parameters#getTestDurationHistory()}.
+     *
+     * @return the shared history
+     */
+    static synchronized TestDurationHistory getInstance() {
+        if (instance == null) {
+            String path = Parameters.getTestDurationHistory();
+            instance = new TestDurationHistory(
+                    path == null ? null : new File(path));
+        }
+        return instance;
+    }
+
+    /**
+     * Gets the recorded duration of a test.
+     *
+     * @param test
+     *            the key of the test
+     * @return the duration in milliseconds, or {@code null} if there is no
+     *         recorded duration for the test
+     */
+    synchronized Long getDuration(String test) {
+        return durations.get(test);
+    }
+
+    /**
+     * Gets the total recorded duration of the tests in a class.
+     *
+     * @param className
+     *            the name of the test class
+     * @return the duration in milliseconds, or {@code null} if there are no
+     *         recorded durations for the class
+     */
+    synchronized Long getClassDuration(String className) {
+        String prefix = className + "#";
+        Long total = null;
+        for (Map.Entry<String, Long> entry : durations.entrySet()) {
+            if (entry.getKey().startsWith(prefix)) {
+                total = (total == null ? 0 : total) + entry.getValue();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Records the duration of a test. The duration is written to the file by
+     * {@link #save()}.
+     *
+     * @param test
+     *            the key of the test
+     * @param millis
+     *            the duration of the test in milliseconds
+     */
+    synchronized void record(String test, long millis) {
+        if (file == null) {
+            return;
+        }
+        Long previous = durations.get(test);
+        long duration = previous == null ? millis : (previous + millis) / 2;
+        durations.put(test, duration);
+        recorded.put(test, duration);
+    }
+
+    /**
+     * Writes the recorded durations to the file. Durations recorded by other
+     * processes using the same file since it was read are kept.
+     */
+    void save() {
+        if (file == null) {
+            return;
+        }
+        // The file is not accessed while holding the monitor, to not pin the
+        // carrier thread when running on a virtual thread
+        fileLock.lock();
+        try {
+            Map<String, Long> durationsToSave;
+            synchronized (this) {
+                durationsToSave = new HashMap<>(recorded);
+            }
+            if (durationsToSave.isEmpty()) {
+                return;
+            }
+            Properties properties = new Properties();
+            if (file.isFile()) {
+                read(file).forEach((test, millis) -> properties.put(test,
+                        millis.toString()));
+            }
+            durationsToSave.forEach(
+                    (test, millis) -> properties.put(test, millis.toString()));
+            Path target = file.getAbsoluteFile().toPath();
+            Files.createDirectories(target.getParent());
+            // Written to a temporary file first so that other processes never
+            // read a partially written file
+            Path temp = Files.createTempFile(target.getParent(),
+                    target.getFileName().toString(), ".tmp");
+            try {
+                try (OutputStream out = Files.newOutputStream(temp)) {
+                    properties.store(out, "TestBench test durations");
+                }
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, target,
+                            StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            synchronized (this) {
+                // Keep durations recorded again while the file was written
+                durationsToSave.forEach(recorded::remove);
+            }
+        } catch (IOException e) {
+            getLogger().warn("Unable to write test durations to " + file, e);
+        } finally {
+            fileLock.unlock();
+        }
+    }
+
+    /**
+     * Sorts the given tests so that the slowest tests come first. Tests
+     * without a duration come before all others and keep their order.
+     *
+     * @param tests
+     *            the tests to sort
+     * @param duration
+     *            a function giving the duration of a test, or {@code null} if
+     *            it is not known
+     * @return a new sorted list
+     */
+    static <T> List<T> sortLongestFirst(List<T> tests,
+            Function<T, Long> duration) {
+        List<T> sorted = new ArrayList<>(tests);
+        sorted.sort(Comparator.comparing(duration,
+                Comparator.nullsFirst(Comparator.<Long> reverseOrder())));
+        return sorted;
+    }
+
+    private static Map<String, Long> read(File file) {
+        Map<String, Long> result = new HashMap<>();
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            properties.load(in);
+        } catch (IOException e) {
+            getLogger().warn("Unable to read test durations from " + file, e);
+            return result;
+        }
+        for (String test : properties.stringPropertyNames()) {
+            try {
+                result.put(test, Long.valueOf(properties.getProperty(test)));
+            } catch (NumberFormatException e) {
+                getLogger().debug("Ignoring invalid duration for " + test);
+            }
+        }
+        return result;
+    }
+}
@@ -40,7 +40,7 @@ public class ElementQueryTest {
     private static final String DOCUMENT_QUERY_FRAGMENT = "document.querySelectorAll(arguments[1]+arguments[2])";
     private static final String ELEMENT_QUERY_FRAGMENT = "arguments[0].shadowRoot.querySelectorAll(arguments[1]+arguments[2])";
     private static final String SINGLE_RESULT_QUERY_SUFFIX = ";return result";
-    private static final String FIRST_RESULT_QUERY_SUFFIX = ";return result[0]";
+    private static final String FIRST_RESULT_QUERY_SUFFIX = ";return result[arguments[4]]";
 
     private TestBenchDriverProxy mockDriver;
     private TestBenchElement exampleElement;
@@ -79,6 +79,8 @@ public class ElementQueryTest {
         private Object lastContext;
         private String lastTagName;
         private Object lastAttributePairs;
+        private List<String> lastFilterValues;
+        private Integer lastIndex;
         private final List<Predicate<T>> lastConditions;
         private boolean executed;
 
@@ -95,6 +97,7 @@ public class ElementQueryTest {
         @Override
         protected List<T> executeSearchScript(String script, Object context,
                 String tagName, String attributePairs,
+                List<String> filterValues, Integer index,
                 JavascriptExecutor executor) {
             if (executed) {
                 throw new IllegalStateException(
@@ -105,6 +108,8 @@ public class ElementQueryTest {
             lastContext = context;
             lastTagName = tagName;
             lastAttributePairs = attributePairs;
+            lastFilterValues = filterValues;
+            lastIndex = index;
             return List.of();
         }
 
@@ -265,6 +270,38 @@ public class ElementQueryTest {
                 SINGLE_RESULT_QUERY_SUFFIX, null, expectedPredicate);
     }
 
+    private void findFirstFilterInElement(
+            Function<TestElementQuery<ExampleElement>, ?> action,
+            String expectedFilter, String expectedFilterValue) {
+        TestElementQuery<ExampleElement> query = createExampleElementQuery();
+        findInElement(query, action, "", FIRST_RESULT_QUERY_SUFFIX, null,
+                null);
+        assertFilter(query, expectedFilter, expectedFilterValue);
+    }
+
+    private void findFirstFilterInDocument(
+            Function<TestElementQuery<ExampleElement>, ?> action,
+            String expectedFilter, String expectedFilterValue) {
+        TestElementQuery<ExampleElement> query = createExampleDocumentQuery();
+        findInDocument(query, action, "", FIRST_RESULT_QUERY_SUFFIX, null,
+                null);
+        assertFilter(query, expectedFilter, expectedFilterValue);
+    }
+
+    /**
+     * Ensures the query was filtered in the browser using the given filter
+     * expression, without any conditions evaluated in the test.
+     */
+    private static void assertFilter(TestElementQuery<?> query,
+            String expectedFilter, String expectedFilterValue) {
+        assertTrue("query script should filter by " + expectedFilter,
+                query.lastScript.contains("result.filter(function(e) { return "
+                        + expectedFilter + "; })"));
+        assertEquals(List.of(expectedFilterValue), query.lastFilterValues);
+        assertTrue("query should not have conditions",
+                query.lastConditions.isEmpty());
+    }
+
     @Test
     public void findInElement_allElements() {
         findSingleInElement(ElementQuery::all, "", null);
@@ -591,120 +628,229 @@ public class ElementQueryTest {
 
     @Test
     public void findInElement_byLabel() {
-        findFirstConditionInElement(
+        findFirstFilterInElement(
                 query -> query.withLabel("Example element label").first(),
-                element -> element.getLabel().equals("Example element label"));
+                "match(str(e.label), 0, false)", "Example element label");
     }
 
     @Test
     public void findInDocument_byLabel() {
-        findFirstConditionInDocument(
+        findFirstFilterInDocument(
                 query -> query.withLabel("Example element label").first(),
-                element -> element.getLabel().equals("Example element label"));
+                "match(str(e.label), 0, false)", "Example element label");
     }
 
     @Test
     public void findInElement_byContainsLabel() {
-        findFirstConditionInElement(
+        findFirstFilterInElement(
                 query -> query.withLabelContaining("element").first(),
-                element -> element.getLabel().contains("element"));
+                "match(str(e.label), 0, true)", "element");
     }
 
     @Test
     public void findInDocument_byContainsLabel() {
-        findFirstConditionInDocument(
+        findFirstFilterInDocument(
                 query -> query.withLabelContaining("element").first(),
-                element -> element.getLabel().contains("element"));
+                "match(str(e.label), 0, true)", "element");
     }
 
     @Test
     public void findInElement_byPlaceholder() {
-        findFirstConditionInElement(
+        findFirstFilterInElement(
                 query -> query.withPlaceholder("Example element placeholder")
                         .first(),
-                element -> element.getPlaceholder()
-                        .equals("Example element placeholder"));
+                "match(str(e.placeholder), 0, false)",
+                "Example element placeholder");
     }
 
     @Test
     public void findInDocument_byPlaceholder() {
-        findFirstConditionInDocument(
+        findFirstFilterInDocument(
                 query -> query.withPlaceholder("Example element placeholder")
                         .first(),
-                element -> element.getPlaceholder()
-                        .equals("Example element placeholder"));
+                "match(str(e.placeholder), 0, false)",
+                "Example element placeholder");
     }
 
     @Test
     public void findInElement_byContainsPlaceholder() {
-        findFirstConditionInElement(
+        findFirstFilterInElement(
                 query -> query.withPlaceholderContaining("element").first(),
-                element -> element.getPlaceholder().contains("element"));
+                "match(str(e.placeholder), 0, true)", "element");
     }
 
     @Test
     public void findInDocument_byContainsPlaceholder() {
-        findFirstConditionInDocument(
+        findFirstFilterInDocument(
                 query -> query.withPlaceholderContaining("element").first(),
-                element -> element.getPlaceholder().contains("element"));
+                "match(str(e.placeholder), 0, true)", "element");
     }
 
     @Test
     public void findInElement_byCaption() {
-        findFirstConditionInElement(
+        findFirstFilterInElement(
                 query -> query.withCaption("Example element caption").first(),
-                element -> element.getLabel()
-                        .equals("Example element caption"));
+                "caption(e, 0, false, true, true, false)",
+                "Example element caption");
     }
 
     @Test
     public void findInDocument_byCaption() {
-        findFirstConditionInDocument(
+        findFirstFilterInDocument(
                 query -> query.withCaption("Example element caption").first(),
-                element -> element.getLabel()
-                        .equals("Example element caption"));
+                "caption(e, 0, false, true, true, false)",
+                "Example element caption");
     }
 
     @Test
     public void findInElement_byContainsCaption() {
-        findFirstConditionInElement(
+        findFirstFilterInElement(
                 query -> query.withCaptionContaining("element").first(),
-                element -> element.getLabel().contains("element"));
+                "caption(e, 0, true, true, true, false)", "element");
     }
 
     @Test
     public void findInDocument_byContainsCaption() {
-        findFirstConditionInDocument(
+        findFirstFilterInDocument(
                 query -> query.withCaptionContaining("element").first(),
-                element -> element.getLabel().contains("element"));
+                "caption(e, 0, true, true, true, false)", "element");
     }
 
     @Test
     public void findInElement_byText() {
-        findFirstConditionInElement(
+        findFirstFilterInElement(
                 query -> query.withText("Example element text").first(),
-                element -> element.getText().equals("Example element text"));
+                "match(text(e), 0, false)", "Example element text");
     }
 
     @Test
     public void findInDocument_byText() {
-        findFirstConditionInDocument(
+        findFirstFilterInDocument(
                 query -> query.withText("Example element text").first(),
-                element -> element.getText().equals("Example element text"));
+                "match(text(e), 0, false)", "Example element text");
     }
 
     @Test
     public void findInElement_byContainsText() {
-        findFirstConditionInElement(
+        findFirstFilterInElement(
                 query -> query.withTextContaining("element").first(),
-                element -> element.getText().contains("element"));
+                "match(text(e), 0, true)", "element");
     }
 
     @Test
     public void findInDocument_byContainsText() {
-        findFirstConditionInDocument(
+        findFirstFilterInDocument(
                 query -> query.withTextContaining("element").first(),
-                element -> element.getText().contains("element"));
+                "match(text(e), 0, true)", "element");
+    }
+
+    @Test
+    public void get_indexPassedAsArgument() {
+        TestElementQuery<ExampleElement> query = createExampleDocumentQuery();
+        TestElementQuery<ExampleElement> other = createExampleDocumentQuery();
+        try {
+            query.get(3);
+        } catch (NoSuchElementException expected) {
+        }
+        try {
+            other.get(7);
+        } catch (NoSuchElementException expected) {
+        }
+
+        assertEquals(Integer.valueOf(3), query.lastIndex);
+        assertEquals(Integer.valueOf(7), other.lastIndex);
+        assertEquals("the script should not depend on the index",
+                query.lastScript, other.lastScript);
+    }
+
+    @Test
+    public void findInElement_byLabelAndText_combinedFilter() {
+        TestElementQuery<ExampleElement> query = createExampleElementQuery();
+        findInElement(query,
+                q -> q.withLabel("Example element label")
+                        .withTextContaining("text").first(),
+                "", FIRST_RESULT_QUERY_SUFFIX, null, null);
+
+        assertTrue("query script should combine the filters",
+                query.lastScript.contains(
+                        "return match(str(e.label), 0, false) && match(text(e), 1, true);"));
+        assertEquals(List.of("Example element label", "text"),
+                query.lastFilterValues);
+    }
+
+    @Test
+    public void findInElement_byLabelComparison_evaluatedInTest() {
+        findFirstConditionInElement(
+                query -> query.withLabel("EXAMPLE element label",
+                        String::equalsIgnoreCase).first(),
+                element -> element.getLabel()
+                        .equalsIgnoreCase("EXAMPLE element label"));
+    }
+
+    @Test
+    public void findInElement_byTextAndCondition_filteredInBrowserFirst() {
+        TestElementQuery<ExampleElement> query = createExampleElementQuery();
+        findInElement(query,
+                q -> q.withText("Example element text")
+                        .withCondition(ExampleElement::isEnabled).first(),
+                "", SINGLE_RESULT_QUERY_SUFFIX, null, null);
+
+        assertTrue("query script should filter by text",
+                query.lastScript.contains("match(text(e), 0, false)"));
+        assertEquals(1, query.lastConditions.size());
+    }
+
+    @Element(CustomLabelElement.TAG)
+    public static class CustomLabelElement extends TestBenchElement
+            implements HasLabel {
+        public static final String TAG = "custom-label-element";
+
+        @Override
+        public String getLabel() {
+            return getText();
+        }
+    }
+
+    @Test
+    public void findInDocument_byLabelWithOverriddenGetter_evaluatedInTest() {
+        TestElementQuery<CustomLabelElement> query = new TestElementQuery<>(
+                CustomLabelElement.class).context(mockDriver);
+        query.withLabel("Custom label").all();
+
+        assertEquals(1, query.lastConditions.size());
+        assertTrue("query should not filter in the browser",
+                query.lastFilterValues.isEmpty());
+    }
+
+    @Test
+    public void deep_inElement_searchesNestedShadowRoots() {
+        TestElementQuery<ExampleElement> query = createExampleElementQuery();
+        query.deep().all();
+
+        assertTrue("query should start from the element and its shadow root",
+                query.lastScript.contains(
+                        "var roots = arguments[0].shadowRoot ? [arguments[0].shadowRoot, arguments[0]]"));
+        assertTrue("query should search nested shadow roots",
+                query.lastScript.contains("roots.push(e.shadowRoot)"));
+        assertTrue("query should not limit the depth",
+                query.lastScript.contains("depths[i] < 2147483647"));
+        assertSame(exampleElement, query.lastContext);
+    }
+
+    @Test
+    public void deep_inDocumentWithDepth_searchesLimitedDepth() {
+        TestElementQuery<ExampleElement> query = createExampleDocumentQuery();
+        query.deep(2).all();
+
+        assertTrue("query should start from the document",
+                query.lastScript.startsWith("var roots = [document];"));
+        assertTrue("query should limit the depth",
+                query.lastScript.contains("depths[i] < 2"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void deep_negativeDepth_throws() {
+        createExampleElementQuery().deep(-1);
     }
 
     @Attribute(name = "id", value = Attribute.SIMPLE_CLASS_NAME)
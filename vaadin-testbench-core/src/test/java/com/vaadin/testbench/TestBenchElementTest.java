@@ -8,6 +8,7 @@
  */
 package com.vaadin.testbench;
 
+import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -17,7 +18,9 @@ import java.util.Set;
 import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.openqa.selenium.Capabilities;
 import org.openqa.selenium.WebElement;
+import org.openqa.selenium.firefox.FirefoxDriver;
 import org.openqa.selenium.remote.RemoteWebElement;
 
 import com.vaadin.testbench.commands.TestBenchCommandExecutor;
@@ -132,6 +135,127 @@ public class TestBenchElementTest {
         return TestBenchElement.wrapElement(webElement, null);
     }
 
+    @Test
+    public void wrapElement_sameTypes_proxyClassReused() {
+        TestBenchElement element1 = createElementWithClass("foo");
+        Constructor<?> constructor = TestBench.getCachedElementProxyConstructor(
+                TestBenchElement.class,
+                Mockito.mock(WebElement.class).getClass());
+        TestBenchElement element2 = createElementWithClass("bar");
+
+        Assert.assertNotNull(constructor);
+        Assert.assertSame(constructor,
+                TestBench.getCachedElementProxyConstructor(
+                        TestBenchElement.class,
+                        Mockito.mock(WebElement.class).getClass()));
+        Assert.assertSame(constructor.getDeclaringClass(), element1.getClass());
+        Assert.assertSame(element1.getClass(), element2.getClass());
+        // Each proxy delegates to its own web element
+        Assert.assertTrue(element1.hasClassName("foo"));
+        Assert.assertTrue(element2.hasClassName("bar"));
+        Assert.assertFalse(element2.hasClassName("foo"));
+    }
+
+    @Test
+    public void click_focusesAndClicksUsingOneScript() {
+        WebElement webElement = Mockito.mock(WebElement.class);
+        TestBenchCommandExecutor tbCommandExecutor = mockClickExecutor(
+                Boolean.TRUE);
+        TestBenchElement element = TestBenchElement.wrapElement(webElement,
+                tbCommandExecutor);
+
+        element.click();
+
+        Mockito.verify(tbCommandExecutor, Mockito.times(1)).executeScript(
+                Mockito.anyString(), Mockito.any(Object[].class));
+        Mockito.verify(tbCommandExecutor, Mockito.never()).waitForVaadin();
+        Mockito.verify(webElement, Mockito.never()).click();
+    }
+
+    @Test
+    public void click_noClickFunction_clicksUsingWebDriver() {
+        WebElement webElement = Mockito.mock(WebElement.class);
+        TestBenchCommandExecutor tbCommandExecutor = mockClickExecutor(
+                Boolean.FALSE);
+        TestBenchElement element = TestBenchElement.wrapElement(webElement,
+                tbCommandExecutor);
+
+        element.click();
+
+        Mockito.verify(webElement, Mockito.times(1)).click();
+    }
+
+    private static TestBenchCommandExecutor mockClickExecutor(
+            Boolean clicked) {
+        TestBenchCommandExecutor tbCommandExecutor = Mockito
+                .mock(TestBenchCommandExecutor.class);
+        Mockito.when(tbCommandExecutor.executeScript(
+                Mockito.contains("elem.click()"), Mockito.any(Object[].class)))
+                .thenReturn(clicked);
+        return tbCommandExecutor;
+    }
+
+    @Test
+    public void snapshot_readsAllPropertiesUsingOneScript() {
+        TestBenchCommandExecutor tbCommandExecutor = Mockito
+                .mock(TestBenchCommandExecutor.class);
+        Mockito.when(tbCommandExecutor.executeScript(Mockito.anyString(),
+                Mockito.any(Object[].class)))
+                .thenReturn(List.of(Arrays.asList(List.of(false, "foo"),
+                        List.of(false, true), List.of(true, "3"),
+                        List.of(true, "1.5"), Arrays.asList(false, null))));
+        TestBenchElement element = TestBenchElement
+                .wrapElement(Mockito.mock(WebElement.class), tbCommandExecutor);
+
+        ElementSnapshot snapshot = element.snapshot("value", "hidden",
+                "childElementCount", "style.opacity", "label");
+
+        Mockito.verify(tbCommandExecutor, Mockito.times(1)).executeScript(
+                Mockito.anyString(), Mockito.any(Object[].class));
+        Assert.assertEquals("foo", snapshot.getString("value"));
+        Assert.assertEquals(Boolean.TRUE, snapshot.getBoolean("hidden"));
+        Assert.assertEquals(Integer.valueOf(3),
+                snapshot.getInteger("childElementCount"));
+        Assert.assertEquals(Double.valueOf(1.5),
+                snapshot.getDouble("style.opacity"));
+        Assert.assertNull(snapshot.getString("label"));
+        Assert.assertEquals(
+                Arrays.asList("value", "hidden", "childElementCount",
+                        "style.opacity", "label"),
+                new ArrayList<>(snapshot.asMap().keySet()));
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> snapshot.getString("hidden"));
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> snapshot.get("foo"));
+    }
+
+    @Test
+    public void snapshot_emptyList_noScriptExecuted() {
+        Assert.assertTrue(
+                TestBenchElement.snapshot(List.of(), "value").isEmpty());
+    }
+
+    @Test
+    public void getProperty_firefoxNumber_readUsingOneScript() {
+        TestBenchCommandExecutor tbCommandExecutor = Mockito
+                .mock(TestBenchCommandExecutor.class);
+        FirefoxDriver driver = Mockito.mock(FirefoxDriver.class);
+        Capabilities capabilities = Mockito.mock(Capabilities.class);
+        Mockito.when(capabilities.getBrowserName()).thenReturn("firefox");
+        Mockito.when(driver.getCapabilities()).thenReturn(capabilities);
+        TestBenchDriverProxy driverProxy = TestBench.createDriver(driver,
+                tbCommandExecutor);
+        Mockito.when(tbCommandExecutor.getDriver()).thenReturn(driverProxy);
+        Mockito.when(tbCommandExecutor.executeScript(Mockito.anyString(),
+                Mockito.any(Object[].class))).thenReturn(List.of(true, "2"));
+        TestBenchElement element = TestBenchElement
+                .wrapElement(Mockito.mock(WebElement.class), tbCommandExecutor);
+
+        Assert.assertEquals(Double.valueOf(2), element.getProperty("value"));
+        Mockito.verify(tbCommandExecutor, Mockito.times(1)).executeScript(
+                Mockito.anyString(), Mockito.any(Object[].class));
+    }
+
     @Test
     public void wrapNullElement() {
         Assert.assertNull(TestBenchElement.wrapElement(null, null));
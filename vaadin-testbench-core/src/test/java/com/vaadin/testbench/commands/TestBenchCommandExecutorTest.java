@@ -15,9 +15,11 @@ import java.util.Arrays;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.openqa.selenium.Capabilities;
 import org.openqa.selenium.OutputType;
+import org.openqa.selenium.ScriptTimeoutException;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.firefox.FirefoxDriver;
 import org.openqa.selenium.remote.RemoteWebDriver;
@@ -32,6 +34,7 @@ import com.vaadin.testbench.testutils.ImageLoader;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class TestBenchCommandExecutorTest {
@@ -209,6 +212,158 @@ public class TestBenchCommandExecutorTest {
         }
     }
 
+    @Test
+    public void testCompareScreen_waitForStability_comparesOnce()
+            throws IOException {
+        Parameters.setScreenshotStabilityTimeout(5000);
+        try {
+            WebDriver driver = mockScreenshotDriver(2, true);
+            ReferenceNameGenerator rngMock = mockReferenceNameGenerator("foo",
+                    "foo_bar_11");
+            ImageComparison icMock = mockImageComparison(1, "foo_bar_11",
+                    false);
+
+            TestBenchCommandExecutor tbce = new TestBenchCommandExecutor(icMock,
+                    rngMock);
+            tbce.setDriver(TestBench.createDriver(driver, tbce));
+            assertFalse(tbce.compareScreen("foo"));
+
+            // Two identical screenshots, compared to the reference once
+            Mockito.verify((RemoteWebDriver) driver, Mockito.times(2))
+                    .getScreenshotAs(OutputType.BYTES);
+            Mockito.verify(icMock, Mockito.times(1)).imageEqualToReference(
+                    Mockito.any(BufferedImage.class), Mockito.anyString(),
+                    Mockito.anyDouble(), Mockito.any(Capabilities.class));
+        } finally {
+            Parameters.setScreenshotStabilityTimeout(0);
+        }
+    }
+
+    @Test
+    public void testGetStableScreenshot_changingScreen_waitsUntilStable()
+            throws IOException {
+        Parameters.setScreenshotStabilityTimeout(5000);
+        try {
+            BufferedImage[] screens = new BufferedImage[4];
+            for (int i = 0; i < screens.length; i++) {
+                screens[i] = new BufferedImage(32, 32,
+                        BufferedImage.TYPE_INT_RGB);
+                // The screen changes twice and then stays the same
+                screens[i].setRGB(Math.min(i, 2), 0, 0xffffff);
+            }
+            int[] captured = new int[1];
+
+            BufferedImage stable = ScreenshotComparator
+                    .getStableScreenshot(() -> screens[captured[0]++]);
+
+            assertEquals(4, captured[0]);
+            assertSame(screens[3], stable);
+        } finally {
+            Parameters.setScreenshotStabilityTimeout(0);
+        }
+    }
+
+    @Test
+    public void testWaitForVaadin_async_waitsUsingSingleAsyncScript() {
+        Parameters.setWaitForVaadinAsync(true);
+        try {
+            FirefoxDriver driver = Mockito.mock(FirefoxDriver.class);
+            Mockito.when(driver.executeAsyncScript(
+                    Mockito.contains("window.Vaadin.Flow"), Mockito.any()))
+                    .thenReturn(Boolean.TRUE);
+
+            TestBenchCommandExecutor tbce = new TestBenchCommandExecutor(null,
+                    null);
+            tbce.setDriver(TestBench.createDriver(driver, tbce));
+            tbce.waitForVaadin();
+
+            ArgumentCaptor<Object> timeout = ArgumentCaptor
+                    .forClass(Object.class);
+            Mockito.verify(driver, Mockito.times(1)).executeAsyncScript(
+                    Mockito.contains("callback(ready)"), timeout.capture());
+            assertTrue(((Number) timeout.getValue()).longValue() <= 10000);
+            Mockito.verify(driver, Mockito.never())
+                    .executeScript(Mockito.anyString());
+        } finally {
+            Parameters.setWaitForVaadinAsync(false);
+        }
+    }
+
+    @Test
+    public void testWaitForVaadin_asyncScriptTimesOut_waitsAgain() {
+        Parameters.setWaitForVaadinAsync(true);
+        try {
+            FirefoxDriver driver = Mockito.mock(FirefoxDriver.class);
+            Mockito.when(driver.executeAsyncScript(
+                    Mockito.contains("window.Vaadin.Flow"), Mockito.any()))
+                    .thenThrow(new ScriptTimeoutException())
+                    .thenReturn(Boolean.FALSE).thenReturn(Boolean.TRUE);
+
+            TestBenchCommandExecutor tbce = new TestBenchCommandExecutor(null,
+                    null);
+            tbce.setDriver(TestBench.createDriver(driver, tbce));
+            tbce.waitForVaadin();
+
+            Mockito.verify(driver, Mockito.times(3)).executeAsyncScript(
+                    Mockito.anyString(), Mockito.any());
+        } finally {
+            Parameters.setWaitForVaadinAsync(false);
+        }
+    }
+
+    @Test
+    public void testWaitForVaadin_skipRedundant_consecutiveReadsCheckOnce() {
+        Parameters.setWaitForVaadinSkipRedundant(true);
+        try {
+            FirefoxDriver driver = mockWaitForVaadinDriver();
+            TestBenchCommandExecutor tbce = new TestBenchCommandExecutor(null,
+                    null);
+            tbce.setDriver(TestBench.createDriver(driver, tbce));
+
+            tbce.waitForVaadinBeforeRead();
+            tbce.waitForVaadinBeforeRead();
+            tbce.waitForVaadinBeforeRead();
+            verifyWaitForVaadinChecks(driver, 1);
+
+            // A command that may change the page is followed by a new check
+            tbce.waitForVaadin();
+            tbce.waitForVaadinBeforeRead();
+            tbce.waitForVaadinBeforeRead();
+            verifyWaitForVaadinChecks(driver, 2);
+
+            tbce.markPageChanged();
+            tbce.waitForVaadinBeforeRead();
+            verifyWaitForVaadinChecks(driver, 3);
+        } finally {
+            Parameters.setWaitForVaadinSkipRedundant(false);
+        }
+    }
+
+    @Test
+    public void testWaitForVaadin_skipRedundantDisabled_alwaysChecks() {
+        FirefoxDriver driver = mockWaitForVaadinDriver();
+        TestBenchCommandExecutor tbce = new TestBenchCommandExecutor(null,
+                null);
+        tbce.setDriver(TestBench.createDriver(driver, tbce));
+
+        tbce.waitForVaadinBeforeRead();
+        tbce.waitForVaadinBeforeRead();
+        verifyWaitForVaadinChecks(driver, 2);
+    }
+
+    private FirefoxDriver mockWaitForVaadinDriver() {
+        FirefoxDriver driver = Mockito.mock(FirefoxDriver.class);
+        Mockito.when(
+                driver.executeScript(Mockito.contains("window.Vaadin.Flow")))
+                .thenReturn(Boolean.TRUE);
+        return driver;
+    }
+
+    private void verifyWaitForVaadinChecks(FirefoxDriver driver, int times) {
+        Mockito.verify(driver, Mockito.times(times))
+                .executeScript(Mockito.contains("window.Vaadin.Flow"));
+    }
+
     private WebDriver mockScreenshotDriver(int nrScreenshotsGrabbed,
             boolean expectGetCapabilities) throws IOException {
         RemoteWebDriver driver = Mockito.mock(FirefoxDriver.class);
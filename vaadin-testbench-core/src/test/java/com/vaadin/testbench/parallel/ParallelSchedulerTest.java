@@ -0,0 +1,105 @@
+/**
+ * Copyright (C) 2000-2026 Vaadin Ltd
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full
+ * license.
+ */
+package com.vaadin.testbench.parallel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParallelSchedulerTest {
+
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+    private final Set<Boolean> virtualThreads = ConcurrentHashMap.newKeySet();
+
+    @Test
+    public void virtualThreads_concurrentTestsLimitedByPermits()
+            throws Exception {
+        Semaphore permits = new Semaphore(2, true);
+        try (ExecutorService service = Executors
+                .newVirtualThreadPerTaskExecutor()) {
+            ParallelScheduler scheduler = new ParallelScheduler(service,
+                    permits);
+            for (int i = 0; i < 10; i++) {
+                scheduler.schedule(this::runTest);
+            }
+            scheduler.finished();
+        }
+
+        Assert.assertEquals(0, running.get());
+        Assert.assertEquals(2, maxRunning.get());
+        Assert.assertEquals(Set.of(true), virtualThreads);
+        Assert.assertEquals(2, permits.availablePermits());
+    }
+
+    @Test
+    public void virtualThreads_testsStartInScheduledOrder() throws Exception {
+        List<Integer> expected = new ArrayList<>();
+        List<Integer> started = Collections
+                .synchronizedList(new ArrayList<>());
+        Semaphore permits = new Semaphore(1);
+        try (ExecutorService service = Executors
+                .newVirtualThreadPerTaskExecutor()) {
+            ParallelScheduler scheduler = new ParallelScheduler(service,
+                    permits);
+            for (int i = 0; i < 20; i++) {
+                int index = i;
+                expected.add(index);
+                scheduler.schedule(() -> {
+                    started.add(index);
+                    runTest();
+                });
+            }
+            scheduler.finished();
+        }
+
+        Assert.assertEquals(expected, started);
+        Assert.assertEquals(1, maxRunning.get());
+        Assert.assertEquals(1, permits.availablePermits());
+    }
+
+    @Test
+    public void noPermits_concurrentTestsLimitedByThreads() throws Exception {
+        ExecutorService service = Executors.newFixedThreadPool(3);
+        try {
+            ParallelScheduler scheduler = new ParallelScheduler(service);
+            for (int i = 0; i < 10; i++) {
+                scheduler.schedule(this::runTest);
+            }
+            scheduler.finished();
+        } finally {
+            service.shutdown();
+        }
+
+        Assert.assertEquals(0, running.get());
+        Assert.assertTrue(maxRunning.get() <= 3);
+        Assert.assertEquals(Set.of(false), virtualThreads);
+    }
+
+    private void runTest() {
+        int now = running.incrementAndGet();
+        maxRunning.accumulateAndGet(now, Math::max);
+        virtualThreads.add(Thread.currentThread().isVirtual());
+        try {
+            Thread.sleep(20);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        running.decrementAndGet();
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ * Copyright (C) 2000-2026 Vaadin Ltd
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full
+ * license.
+ */
+package com.vaadin.testbench.parallel;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestDurationHistoryTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void sortLongestFirst_unknownFirstThenSlowest() throws Exception {
+        TestDurationHistory history = createHistory("Foo#fast=100",
+                "Foo#slow=5000", "Foo#medium=1000");
+
+        List<String> sorted = TestDurationHistory.sortLongestFirst(
+                Arrays.asList("Foo#fast", "Foo#new1", "Foo#slow",
+                        "Foo#medium", "Foo#new2"),
+                history::getDuration);
+
+        Assert.assertEquals(Arrays.asList("Foo#new1", "Foo#new2", "Foo#slow",
+                "Foo#medium", "Foo#fast"), sorted);
+    }
+
+    @Test
+    public void sortLongestFirst_noHistory_declarationOrder() {
+        TestDurationHistory history = new TestDurationHistory(null);
+        List<String> tests = Arrays.asList("Foo#c", "Foo#a", "Foo#b");
+
+        Assert.assertEquals(tests, TestDurationHistory.sortLongestFirst(tests,
+                history::getDuration));
+    }
+
+    @Test
+    public void record_savedAndAveragedOnNextRun() throws Exception {
+        File file = new File(temporaryFolder.getRoot(), "durations");
+        TestDurationHistory history = new TestDurationHistory(file);
+        history.record("Foo#test", 1000);
+        history.save();
+
+        history = new TestDurationHistory(file);
+        Assert.assertEquals(Long.valueOf(1000),
+                history.getDuration("Foo#test"));
+        history.record("Foo#test", 3000);
+        history.save();
+
+        Assert.assertEquals(Long.valueOf(2000),
+                new TestDurationHistory(file).getDuration("Foo#test"));
+    }
+
+    @Test
+    public void save_replacesFileWithoutLeavingTemporaryFiles()
+            throws Exception {
+        File file = new File(temporaryFolder.newFolder(), "durations");
+        TestDurationHistory history = new TestDurationHistory(file);
+        history.record("Foo#test", 1000);
+        history.save();
+        history.record("Foo#test", 3000);
+        history.save();
+
+        Assert.assertArrayEquals(new String[] { "durations" },
+                file.getParentFile().list());
+        Assert.assertEquals(Long.valueOf(2000),
+                new TestDurationHistory(file).getDuration("Foo#test"));
+    }
+
+    @Test
+    public void save_keepsDurationsSavedByOthers() throws Exception {
+        File file = temporaryFolder.newFile();
+        TestDurationHistory first = new TestDurationHistory(file);
+        TestDurationHistory second = new TestDurationHistory(file);
+
+        first.record("Foo#test", 1000);
+        first.save();
+        second.record("Bar#test", 2000);
+        second.save();
+
+        TestDurationHistory history = new TestDurationHistory(file);
+        Assert.assertEquals(Long.valueOf(1000),
+                history.getDuration("Foo#test"));
+        Assert.assertEquals(Long.valueOf(2000),
+                history.getDuration("Bar#test"));
+    }
+
+    @Test
+    public void save_savedDurationsNotWrittenAgain() throws Exception {
+        File file = temporaryFolder.newFile();
+        TestDurationHistory first = new TestDurationHistory(file);
+        TestDurationHistory second = new TestDurationHistory(file);
+
+        first.record("Foo#test", 1000);
+        first.save();
+        second.record("Foo#test", 3000);
+        second.save();
+        first.save();
+
+        Assert.assertEquals(Long.valueOf(3000),
+                new TestDurationHistory(file).getDuration("Foo#test"));
+    }
+
+    @Test
+    public void getClassDuration_sumOfTests() throws Exception {
+        TestDurationHistory history = createHistory("Foo#a[chrome]=100",
+                "Foo#a[firefox]=200", "FooBar#a=5000");
+
+        Assert.assertEquals(Long.valueOf(300),
+                history.getClassDuration("Foo"));
+        Assert.assertNull(history.getClassDuration("Bar"));
+    }
+
+    @Test
+    public void noFile_nothingRecorded() {
+        TestDurationHistory history = new TestDurationHistory(null);
+        history.record("Foo#test", 1000);
+        history.save();
+
+        Assert.assertNull(history.getDuration("Foo#test"));
+    }
+
+    private TestDurationHistory createHistory(String... lines)
+            throws Exception {
+        File file = temporaryFolder.newFile();
+        Files.write(file.toPath(), Arrays.asList(lines));
+        return new TestDurationHistory(file);
+    }
+}
@@ -0,0 +1,29 @@
+/**
+ * Copyright (C) 2000-2026 Vaadin Ltd
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full
+ * license.
+ */
+package com.vaadin.testUI;
+
+import com.vaadin.flow.component.html.Div;
+import com.vaadin.flow.component.html.NativeButton;
+import com.vaadin.flow.router.Route;
+
+@Route("HiddenTextView")
+public class HiddenTextView extends Div {
+
+    public HiddenTextView() {
+        add(new NativeButton("Visible button"));
+
+        NativeButton hidden = new NativeButton("Hidden button");
+        hidden.getElement().getStyle().set("display", "none");
+        add(hidden);
+
+        Div hiddenParent = new Div(new NativeButton("Button in hidden parent"));
+        hiddenParent.getElement().getStyle().set("display", "none");
+        add(hiddenParent);
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * Copyright (C) 2000-2026 Vaadin Ltd
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full
+ * license.
+ */
+package com.vaadin.tests;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+
+import com.vaadin.flow.component.Component;
+import com.vaadin.testUI.HiddenTextView;
+import com.vaadin.testbench.BrowserTest;
+import com.vaadin.tests.elements.NativeButtonElement;
+
+public class HiddenTextIT extends AbstractBrowserTB9Test {
+
+    @Override
+    protected Class<? extends Component> getTestView() {
+        return HiddenTextView.class;
+    }
+
+    @BrowserTest
+    public void withText_hiddenElementsHaveNoText() {
+        openTestURL();
+
+        Assertions.assertEquals(1, $(NativeButtonElement.class)
+                .withText("Visible button").all().size());
+        Assertions.assertEquals(0, $(NativeButtonElement.class)
+                .withText("Hidden button").all().size());
+        Assertions.assertEquals(0, $(NativeButtonElement.class)
+                .withText("Button in hidden parent").all().size());
+        Assertions.assertEquals(2,
+                $(NativeButtonElement.class).withText("").all().size());
+    }
+
+    @BrowserTest
+    public void withTextContaining_hiddenElementsNotMatched() {
+        openTestURL();
+
+        List<NativeButtonElement> buttons = $(NativeButtonElement.class)
+                .withTextContaining("utton").all();
+
+        Assertions.assertEquals(1, buttons.size());
+        Assertions.assertEquals("Visible button", buttons.get(0).getText());
+    }
+}
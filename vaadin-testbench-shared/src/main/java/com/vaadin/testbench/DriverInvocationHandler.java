@@ -11,14 +11,14 @@ package com.vaadin.testbench;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import javassist.util.proxy.MethodHandler;
 
 public class DriverInvocationHandler implements MethodHandler {
 
-    private Map<Method, Boolean> proxyMethod = new HashMap<>();
+    private final Map<Method, Boolean> proxyMethod = new ConcurrentHashMap<>();
     private final Object actualObject;
 
     public DriverInvocationHandler(Object actualObject) {
@@ -30,19 +30,21 @@ public class DriverInvocationHandler implements MethodHandler {
             Object[] args) throws Throwable {
         try {
             waitForVaadinIfNecessary(proxy, method.getName());
-            if (!proxyMethod.containsKey(method)) {
+            Boolean isProxyMethod = proxyMethod.get(method);
+            if (isProxyMethod == null) {
                 try {
                     TestBenchDriverProxy.class.getMethod(method.getName(),
                             method.getParameterTypes());
-                    proxyMethod.put(method, true);
+                    isProxyMethod = true;
                 } catch (NoSuchMethodException e) {
                     actualObject.getClass().getMethod(method.getName(),
                             method.getParameterTypes());
-                    proxyMethod.put(method, false);
+                    isProxyMethod = false;
                 }
+                proxyMethod.put(method, isProxyMethod);
             }
 
-            if (proxyMethod.get(method)) {
+            if (isProxyMethod) {
                 return proceed.invoke(proxy, args);
             }
             return method.invoke(actualObject, args);
@@ -58,10 +60,21 @@ public class DriverInvocationHandler implements MethodHandler {
      */
     private void waitForVaadinIfNecessary(Object proxyObject,
             String methodName) {
-        if (shouldWaitForVaadin(methodName)
-                && proxyObject instanceof TestBenchDriverProxy) {
-            ((TestBenchDriverProxy) proxyObject).getCommandExecutor()
-                    .waitForVaadin();
+        if (!(proxyObject instanceof TestBenchDriverProxy)
+                || methodsIgnoredForWaitForVaadin.contains(methodName)) {
+            // getCommandExecutor is also invoked through the proxy
+            return;
+        }
+        TestBenchDriverProxy driver = (TestBenchDriverProxy) proxyObject;
+        if (pageLoadingMethods.contains(methodName)) {
+            driver.getCommandExecutor().forgetPinnedScripts();
+        }
+        if (!shouldWaitForVaadin(methodName)) {
+            driver.getCommandExecutor().markPageChanged();
+        } else if (readOnlyMethods.contains(methodName)) {
+            driver.getCommandExecutor().waitForVaadinBeforeRead();
+        } else {
+            driver.getCommandExecutor().waitForVaadin();
         }
     }
 
@@ -71,6 +84,19 @@ public class DriverInvocationHandler implements MethodHandler {
                     "switchTo", "waitForVaadin", "enableWaitForVaadin",
                     "disableWaitForVaadin", "getCommandExecutor");
 
+    private static final List<String> methodsIgnoredForWaitForVaadin = Arrays
+            .asList("getRemoteControlName", "getWrappedDriver", "setTestName",
+                    "waitForVaadin", "enableWaitForVaadin",
+                    "disableWaitForVaadin", "getCommandExecutor");
+
+    private static final List<String> pageLoadingMethods = Arrays
+            .asList("get", "navigate", "switchTo");
+
+    private static final List<String> readOnlyMethods = Arrays.asList(
+            "findElement", "findElements", "getCurrentUrl", "getPageSource",
+            "getTitle", "getWindowHandle", "getWindowHandles",
+            "getScreenshotAs");
+
     private boolean shouldWaitForVaadin(String methodName) {
         return !methodsNotNeedingWaitForVaadin.contains(methodName);
     }
@@ -15,6 +15,7 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.BiPredicate;
@@ -30,6 +31,7 @@ import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.ui.WebDriverWait;
 
 import com.vaadin.testbench.annotations.Attribute;
+import com.vaadin.testbench.commands.TestBenchCommandExecutor;
 import com.vaadin.testbench.elementsbase.Element;
 import com.vaadin.testbench.internal.SharedUtil;
 
@@ -53,7 +55,8 @@ import static com.vaadin.testbench.ElementQuery.AttributeMatch.Comparison.NOT_MA
  * When the search context is a {@link WebElement}, the shadow root is searched
  * first. E.g. when searching by ID and the same ID is used by a light DOM child
  * of the element and also inside its shadow root, the element from the shadow
- * root is returned.
+ * root is returned. Shadow roots nested deeper are only searched when using
+ * {@link #deep()}.
  * <p>
  * The element class specified in the constructor defines the tag name which is
  * searched for and also the type of element returned.
@@ -65,6 +68,73 @@ public class ElementQuery<T extends TestBenchElement> {
     private static final String NULL_GETTER_MSG = "getter function must not be null";
     private static final String NULL_TEXT_MSG = "text must not be null";
 
+    /**
+     * Functions used by the filters that are evaluated in the browser. The
+     * values the filters compare with are passed in {@code arguments[3]}.
+     */
+    private static final String FILTER_FUNCTIONS = "var values = arguments[3];" //
+            + "var str = function(v) { return v == null ? '' : String(v); };" //
+            // Visible text normalized like WebElement.getText(). innerText
+            // gives the full text content of elements which are not rendered,
+            // but getText() gives an empty string for them.
+            + "var text = function(e) {" //
+            + "  if (!e.getClientRects().length) return '';" //
+            + "  return str(e.innerText).replace(/\\u00a0/g, ' ')" //
+            + "    .replace(/[ \\t]*\\n[ \\t]*/g, '\\n').trim();" //
+            + "};" //
+            + "var match = function(actual, i, contains) {" //
+            + "  return contains ? actual.indexOf(values[i]) >= 0 : actual === values[i];" //
+            + "};" //
+            + "var caption = function(e, i, contains, hasLabel, hasPlaceholder, hasText) {" //
+            + "  var label = hasLabel ? str(e.label) : '';" //
+            + "  var placeholder = hasPlaceholder ? str(e.placeholder) : '';" //
+            + "  if (values[i] === '' && hasLabel && hasPlaceholder) {" //
+            + "    return label === '' && placeholder === '';" //
+            + "  }" //
+            + "  if (label !== '') return match(label, i, contains);" //
+            + "  if (placeholder !== '') return match(placeholder, i, contains);" //
+            + "  var t = hasText ? text(e) : '';" //
+            + "  return t !== '' && match(t, i, contains);" //
+            + "};";
+
+    /**
+     * Adds the shadow roots searched using the context element in
+     * {@code arguments[0]} to the roots observed for DOM changes, so that
+     * changes inside them invalidate cached results.
+     */
+    private static final String OBSERVE_SHADOW_ROOTS = "var observeRoot = function(root) {" //
+            + "  var g = window.vaadinTestBenchDomGeneration;" //
+            + "  if (g && root instanceof ShadowRoot && !g.observed.has(root)) {" //
+            + "    g.observed.add(root);" //
+            + "    g.observer.observe(root, g.options);" //
+            + "  }" //
+            + "};" //
+            + "if (arguments[0]) {" //
+            + "  observeRoot(arguments[0].getRootNode());" //
+            + "  observeRoot(arguments[0].shadowRoot);" //
+            + "}";
+
+    /**
+     * Searches the roots in {@code roots} and the shadow roots nested inside
+     * them, level by level, up to the depth given as the format argument.
+     * Shadow roots found are observed for DOM changes when results are cached.
+     */
+    private static final String DEEP_SEARCH = "var result = [];" //
+            + "var depths = roots.map(function() { return 0; });" //
+            + "for (var i = 0; i < roots.length; i++) {" //
+            + "  var found = roots[i].querySelectorAll(arguments[1]+arguments[2]);" //
+            + "  result = result.concat(Array.prototype.slice.call(found));" //
+            + "  if (depths[i] < %d) {" //
+            + "    roots[i].querySelectorAll('*').forEach(function(e) {" //
+            + "      if (e.shadowRoot) {" //
+            + "        roots.push(e.shadowRoot);" //
+            + "        depths.push(depths[i] + 1);" //
+            + "        if (typeof observeRoot == 'function') observeRoot(e.shadowRoot);" //
+            + "      }" //
+            + "    });" //
+            + "  }" //
+            + "}";
+
     /**
      * Class for holding name, comparison, and value for matching attributes.
      */
@@ -322,7 +392,10 @@ public class ElementQuery<T extends TestBenchElement> {
     private final String tagName;
     private final Set<AttributeMatch> attributes;
     private final List<Predicate<T>> conditions;
+    private final List<String> filters;
+    private final List<String> filterValues;
     private SearchContext searchContext;
+    private int shadowDepth;
 
     /**
      * Instantiate a new ElementQuery to look for the given type of element.
@@ -348,6 +421,8 @@ public class ElementQuery<T extends TestBenchElement> {
         // Linked to ensure that elements are always returned in the same order.
         this.attributes = new LinkedHashSet<>(getAttributes(elementClass));
         this.conditions = new ArrayList<>();
+        this.filters = new ArrayList<>();
+        this.filterValues = new ArrayList<>();
     }
 
     /**
@@ -694,7 +769,11 @@ public class ElementQuery<T extends TestBenchElement> {
      * {@code withCondition(element -> element.getSize().getHeight() != 0)}
      * <p>
      * Note that conditions are evaluated in order after the element is selected
-     * by its attributes.
+     * by its attributes. Each condition is evaluated in the test, which usually
+     * needs one or more calls to the browser for every element. Prefer the
+     * built-in selectors such as {@link #withLabel(String)} or
+     * {@link #withText(String)} where possible, as they are evaluated in the
+     * browser as a part of the search.
      *
      * @param condition
      *            the condition for the element to satisfy; not null
@@ -813,7 +892,7 @@ public class ElementQuery<T extends TestBenchElement> {
      * @see #withLabel(String, BiPredicate)
      */
     public ElementQuery<T> withLabel(String label) {
-        return withLabel(label, String::equals);
+        return withLabel(label, false);
     }
 
     /**
@@ -829,7 +908,22 @@ public class ElementQuery<T extends TestBenchElement> {
      * @see #withLabel(String, BiPredicate)
      */
     public ElementQuery<T> withLabelContaining(String text) {
-        return withLabel(text, String::contains);
+        return withLabel(text, true);
+    }
+
+    private ElementQuery<T> withLabel(String text, boolean contains) {
+        Objects.requireNonNull(text, NULL_TEXT_MSG);
+        if (!HasLabel.class.isAssignableFrom(elementClass)) {
+            return withFilter("false", text);
+        }
+        if (!usesDefaultGetter("getLabel", HasLabel.class)) {
+            return withLabel(text,
+                    contains ? String::contains : String::equals);
+        }
+        return withFilter(
+                "match(str(e.label), " + filterValues.size() + ", "
+                        + contains + ")",
+                text);
     }
 
     /**
@@ -884,7 +978,7 @@ public class ElementQuery<T extends TestBenchElement> {
      * @see #withPlaceholder(String, BiPredicate)
      */
     public ElementQuery<T> withPlaceholder(String placeholder) {
-        return withPlaceholder(placeholder, String::equals);
+        return withPlaceholder(placeholder, false);
     }
 
     /**
@@ -902,7 +996,20 @@ public class ElementQuery<T extends TestBenchElement> {
      * @see #withPlaceholder(String, BiPredicate)
      */
     public ElementQuery<T> withPlaceholderContaining(String text) {
-        return withPlaceholder(text, String::contains);
+        return withPlaceholder(text, true);
+    }
+
+    private ElementQuery<T> withPlaceholder(String text, boolean contains) {
+        Objects.requireNonNull(text, NULL_TEXT_MSG);
+        if (!HasPlaceholder.class.isAssignableFrom(elementClass)) {
+            return withFilter("false", text);
+        }
+        if (!usesDefaultGetter("getPlaceholder", HasPlaceholder.class)) {
+            return withPlaceholder(text,
+                    contains ? String::contains : String::equals);
+        }
+        return withFilter("match(str(e.placeholder), " + filterValues.size()
+                + ", " + contains + ")", text);
     }
 
     /**
@@ -1012,7 +1119,7 @@ public class ElementQuery<T extends TestBenchElement> {
      * @see #withCaption(String, BiPredicate)
      */
     public ElementQuery<T> withCaption(String caption) {
-        return withCaption(caption, String::equals);
+        return withCaption(caption, false);
     }
 
     /**
@@ -1029,7 +1136,26 @@ public class ElementQuery<T extends TestBenchElement> {
      * @see #withCaption(String, BiPredicate)
      */
     public ElementQuery<T> withCaptionContaining(String text) {
-        return withCaption(text, String::contains);
+        return withCaption(text, true);
+    }
+
+    private ElementQuery<T> withCaption(String text, boolean contains) {
+        Objects.requireNonNull(text, NULL_TEXT_MSG);
+        boolean hasLabel = HasLabel.class.isAssignableFrom(elementClass);
+        boolean hasPlaceholder = HasPlaceholder.class
+                .isAssignableFrom(elementClass);
+        boolean hasText = HasLabelAsText.class.isAssignableFrom(elementClass);
+        if ((hasLabel && !usesDefaultGetter("getLabel", HasLabel.class))
+                || (hasPlaceholder && !usesDefaultGetter("getPlaceholder",
+                        HasPlaceholder.class))
+                || (hasText && !usesDefaultGetter("getText",
+                        TestBenchElement.class))) {
+            return withCaption(text,
+                    contains ? String::contains : String::equals);
+        }
+        return withFilter("caption(e, " + filterValues.size() + ", "
+                + contains + ", " + hasLabel + ", " + hasPlaceholder + ", "
+                + hasText + ")", text);
     }
 
     /**
@@ -1080,7 +1206,7 @@ public class ElementQuery<T extends TestBenchElement> {
      * @see #withText(String, BiPredicate)
      */
     public ElementQuery<T> withText(String text) {
-        return withText(text, String::equals);
+        return withText(text, false);
     }
 
     /**
@@ -1096,7 +1222,50 @@ public class ElementQuery<T extends TestBenchElement> {
      * @see #withText(String, BiPredicate)
      */
     public ElementQuery<T> withTextContaining(String text) {
-        return withText(text, String::contains);
+        return withText(text, true);
+    }
+
+    private ElementQuery<T> withText(String text, boolean contains) {
+        Objects.requireNonNull(text, NULL_TEXT_MSG);
+        if (!usesDefaultGetter("getText", TestBenchElement.class)) {
+            return withText(text,
+                    contains ? String::contains : String::equals);
+        }
+        return withFilter("match(text(e), " + filterValues.size() + ", "
+                + contains + ")", text);
+    }
+
+    /**
+     * Adds a filter that is evaluated in the browser as a part of the search,
+     * so that no calls are needed for each found element.
+     *
+     * @param expression
+     *            a JavaScript expression evaluating to {@code true} for the
+     *            element {@code e} to select, using the functions in
+     *            {@link #FILTER_FUNCTIONS}
+     * @param value
+     *            the value the expression compares with
+     * @return this element query instance for chaining
+     */
+    private ElementQuery<T> withFilter(String expression, String value) {
+        filters.add(expression);
+        filterValues.add(value);
+        return this;
+    }
+
+    /**
+     * Checks if the element class uses the given getter as implemented in the
+     * given type. If the getter has been overridden, the filter must be
+     * evaluated in the test using the getter.
+     */
+    private boolean usesDefaultGetter(String getterName,
+            Class<?> implementingType) {
+        try {
+            return elementClass.getMethod(getterName)
+                    .getDeclaringClass() == implementingType;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
     }
 
     /**
@@ -1122,6 +1291,45 @@ public class ElementQuery<T extends TestBenchElement> {
         return context(getDriver());
     }
 
+    /**
+     * Defines that the query should also search inside all shadow roots nested
+     * inside the context, at any depth.
+     * <p>
+     * Elements nested inside several components can be found using one query
+     * instead of a chain of queries, one for each component. The matches in
+     * the context are returned first, followed by the matches in the nested
+     * shadow roots, one level of nesting at a time.
+     *
+     * @return this element query instance for chaining
+     * @see #deep(int)
+     */
+    public ElementQuery<T> deep() {
+        return deep(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Defines that the query should also search inside the shadow roots nested
+     * inside the context, down to the given depth.
+     * <p>
+     * A depth of 1 searches the shadow roots of the elements found when
+     * searching the context normally, a depth of 2 also the shadow roots
+     * inside those, and so on. A depth of 0 is the same as a normal search.
+     *
+     * @param maxDepth
+     *            the number of nested shadow root levels to search, not
+     *            negative
+     * @return this element query instance for chaining
+     * @see #deep()
+     */
+    public ElementQuery<T> deep(int maxDepth) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException(
+                    "maxDepth must not be negative: " + maxDepth);
+        }
+        shadowDepth = maxDepth;
+        return this;
+    }
+
     /**
      * Returns the context (element or driver) to search inside.
      *
@@ -1376,23 +1584,33 @@ public class ElementQuery<T extends TestBenchElement> {
 
         var context = getContext();
         if (context instanceof TestBenchElement testBenchElement) {
-            script.append("var result = [];" //
-                    + "if (arguments[0].shadowRoot) {" //
-                    + "  var shadow = arguments[0].shadowRoot.querySelectorAll(arguments[1]+arguments[2]);" //
-                    + "  result = result.concat(Array.prototype.slice.call(shadow));" //
-                    + "}" //
-                    + "var light = arguments[0].querySelectorAll(arguments[1]+arguments[2]);" //
-                    + "result = result.concat(Array.prototype.slice.call(light));" //
-                    + "return result" //
-            );
+            if (shadowDepth > 0) {
+                script.append("var roots = arguments[0].shadowRoot" //
+                        + " ? [arguments[0].shadowRoot, arguments[0]]" //
+                        + " : [arguments[0]];")
+                        .append(DEEP_SEARCH.formatted(shadowDepth));
+            } else {
+                script.append("var result = [];" //
+                        + "if (arguments[0].shadowRoot) {" //
+                        + "  var shadow = arguments[0].shadowRoot.querySelectorAll(arguments[1]+arguments[2]);" //
+                        + "  result = result.concat(Array.prototype.slice.call(shadow));" //
+                        + "}" //
+                        + "var light = arguments[0].querySelectorAll(arguments[1]+arguments[2]);" //
+                        + "result = result.concat(Array.prototype.slice.call(light));" //
+                );
+            }
             elementContext = testBenchElement;
             executor = elementContext.getCommandExecutor().getDriver();
         } else if (context instanceof WebDriver webDriver) {
             // Search the whole document
-            script.append("var result = [];" //
-                    + "const queryResult = document.querySelectorAll(arguments[1]+arguments[2]);"
-                    + "result = result.concat(Array.prototype.slice.call(queryResult));"
-                    + "return result");
+            if (shadowDepth > 0) {
+                script.append("var roots = [document];")
+                        .append(DEEP_SEARCH.formatted(shadowDepth));
+            } else {
+                script.append("var result = [];" //
+                        + "const queryResult = document.querySelectorAll(arguments[1]+arguments[2]);"
+                        + "result = result.concat(Array.prototype.slice.call(queryResult));");
+            }
             elementContext = null;
             executor = (JavascriptExecutor) webDriver;
         } else {
@@ -1404,13 +1622,72 @@ public class ElementQuery<T extends TestBenchElement> {
             }
         }
 
+        if (!filters.isEmpty()) {
+            script.append(FILTER_FUNCTIONS)
+                    .append("result = result.filter(function(e) { return ")
+                    .append(String.join(" && ", filters)).append("; });");
+        }
+        script.append("return result");
         if (index != null) {
-            script.append("[").append(index).append("]");
+            // The index is an argument so that the script stays the same for
+            // all indexes and can be pinned once
+            script.append("[arguments[4]]");
         }
 
-        return executeSearchScript(script.toString(), elementContext, tagName,
-                getAttributePairs(), executor).stream()
-                .filter(this::satisfiesAllConditions).toList();
+        List<T> elements;
+        TestBenchCommandExecutor commandExecutor = getCommandExecutor(context);
+        if (Parameters.isElementQueryCache() && commandExecutor != null) {
+            elements = executeCachedSearch(script.toString(), elementContext,
+                    index, commandExecutor);
+        } else {
+            elements = executeSearchScript(script.toString(), elementContext,
+                    tagName, getAttributePairs(), filterValues, index,
+                    executor);
+        }
+        return elements.stream().filter(this::satisfiesAllConditions)
+                .toList();
+    }
+
+    /**
+     * Executes the search script unless the same search has been made since
+     * the DOM of the page last changed. The conditions are not applied to the
+     * cached results, as they may depend on state not tracked by the DOM
+     * generation.
+     */
+    @SuppressWarnings("unchecked")
+    private List<T> executeCachedSearch(String script,
+            TestBenchElement elementContext, Integer index,
+            TestBenchCommandExecutor commandExecutor) {
+        // Waiting for Vaadin also reads the DOM generation of the page
+        commandExecutor.waitForVaadinBeforeRead();
+        // Already waited, so run the search without waiting again
+        JavascriptExecutor executor = new TestBenchDriverProxy(
+                commandExecutor.getDriver().getWrappedDriver(),
+                commandExecutor);
+        Map<Object, Object> cache = commandExecutor.getDomGenerationCache();
+        if (cache == null) {
+            return executeSearchScript(script, elementContext, tagName,
+                    getAttributePairs(), filterValues, index, executor);
+        }
+        List<Object> key = Arrays.asList(elementClass, script, elementContext,
+                tagName, getAttributePairs(), List.copyOf(filterValues),
+                index);
+        List<T> elements = (List<T>) cache.get(key);
+        if (elements == null) {
+            elements = executeSearchScript(OBSERVE_SHADOW_ROOTS + script,
+                    elementContext, tagName, getAttributePairs(),
+                    filterValues, index, executor);
+            cache.put(key, elements);
+        }
+        return elements;
+    }
+
+    private static TestBenchCommandExecutor getCommandExecutor(
+            SearchContext context) {
+        if (context instanceof HasTestBenchCommandExecutor hasExecutor) {
+            return hasExecutor.getCommandExecutor();
+        }
+        return null;
     }
 
     private boolean satisfiesAllConditions(T element) {
@@ -1492,14 +1769,30 @@ public class ElementQuery<T extends TestBenchElement> {
      *            the tag name to look for
      * @param attributePairs
      *            the attribute pairs to match
+     * @param filterValues
+     *            the values used by the filters evaluated in the browser
+     * @param index
+     *            the index of the element to return or <code>null</code> to
+     *            return all matching elements
+     * @param executor
+     *            the executor to run the script with
      * @return a list of matching elements of the type defined in the
      *         constructor
      */
     @SuppressWarnings("unchecked")
     List<T> executeSearchScript(String script, Object context, String tagName,
-            String attributePairs, JavascriptExecutor executor) {
-        Object result = executor.executeScript(script, context, tagName,
-                attributePairs);
+            String attributePairs, List<String> filterValues, Integer index,
+            JavascriptExecutor executor) {
+        Object result;
+        if (executor instanceof HasTestBenchCommandExecutor hasExecutor) {
+            // The variable parts of the query are passed as arguments
+            result = hasExecutor.getCommandExecutor().executePinnedScript(
+                    executor, script, context, tagName, attributePairs,
+                    filterValues, index);
+        } else {
+            result = executor.executeScript(script, context, tagName,
+                    attributePairs, filterValues, index);
+        }
         if (result == null) {
             return Collections.emptyList();
         } else if (result instanceof TestBenchElement testBenchElement) {
@@ -0,0 +1,163 @@
+/**
+ * Copyright (C) 2000-2026 Vaadin Ltd
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full
+ * license.
+ */
+package com.vaadin.testbench;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The values of a set of JavaScript properties of an element, read at the same
+ * time using {@link TestBenchElement#snapshot(String...)}.
+ * <p>
+ * Numbers are always returned as {@link Double}, regardless of the browser.
+ * The snapshot is immutable and does not change when the element changes.
+ */
+public class ElementSnapshot {
+
+    private final Map<String, Object> values;
+
+    ElementSnapshot(Map<String, Object> values) {
+        this.values = Collections.unmodifiableMap(new LinkedHashMap<>(values));
+    }
+
+    /**
+     * Gets the value of the given property.
+     *
+     * @param name
+     *            the name of the property, as given when taking the snapshot
+     * @return the value of the property, or {@code null} if the property is
+     *         not set
+     * @throws IllegalArgumentException
+     *             if the property is not part of the snapshot
+     */
+    public Object get(String name) {
+        if (!values.containsKey(name)) {
+            throw new IllegalArgumentException("The property '" + name
+                    + "' is not part of the snapshot " + values.keySet());
+        }
+        return values.get(name);
+    }
+
+    /**
+     * Gets the value of the given property as a string.
+     *
+     * @param name
+     *            the name of the property, as given when taking the snapshot
+     * @return the value of the property, or {@code null} if the property is
+     *         not set
+     * @throws IllegalArgumentException
+     *             if the property is not part of the snapshot or is not a
+     *             string
+     */
+    public String getString(String name) {
+        return get(name, String.class, "String");
+    }
+
+    /**
+     * Gets the value of the given property as a boolean.
+     *
+     * @param name
+     *            the name of the property, as given when taking the snapshot
+     * @return the value of the property, or {@code null} if the property is
+     *         not set
+     * @throws IllegalArgumentException
+     *             if the property is not part of the snapshot or is not a
+     *             boolean
+     */
+    public Boolean getBoolean(String name) {
+        return get(name, Boolean.class, "Boolean");
+    }
+
+    /**
+     * Gets the value of the given property as a double.
+     *
+     * @param name
+     *            the name of the property, as given when taking the snapshot
+     * @return the value of the property, or {@code null} if the property is
+     *         not set
+     * @throws IllegalArgumentException
+     *             if the property is not part of the snapshot or is not a
+     *             number
+     */
+    public Double getDouble(String name) {
+        return get(name, Double.class, "Number");
+    }
+
+    /**
+     * Gets the value of the given property as an integer.
+     *
+     * @param name
+     *            the name of the property, as given when taking the snapshot
+     * @return the value of the property, or {@code null} if the property is
+     *         not set
+     * @throws IllegalArgumentException
+     *             if the property is not part of the snapshot or is not a
+     *             number
+     */
+    public Integer getInteger(String name) {
+        Double number = getDouble(name);
+        return (number == null) ? null : number.intValue();
+    }
+
+    /**
+     * Gets the value of the given property as a DOM element.
+     *
+     * @param name
+     *            the name of the property, as given when taking the snapshot
+     * @return the value of the property, or {@code null} if the property is
+     *         not set
+     * @throws IllegalArgumentException
+     *             if the property is not part of the snapshot or is not an
+     *             element
+     */
+    public TestBenchElement getElement(String name) {
+        return get(name, TestBenchElement.class, "Element");
+    }
+
+    /**
+     * Gets the value of the given property as a list of DOM elements.
+     *
+     * @param name
+     *            the name of the property, as given when taking the snapshot
+     * @return the value of the property, or {@code null} if the property is
+     *         not set
+     * @throws IllegalArgumentException
+     *             if the property is not part of the snapshot or is not a list
+     */
+    @SuppressWarnings("unchecked")
+    public List<TestBenchElement> getElements(String name) {
+        return get(name, List.class, "List");
+    }
+
+    /**
+     * Gets all values of the snapshot.
+     *
+     * @return an unmodifiable map from property name to value, in the order
+     *         the properties were given
+     */
+    public Map<String, Object> asMap() {
+        return values;
+    }
+
+    private <T> T get(String name, Class<T> type, String typeName) {
+        Object value = get(name);
+        if (value == null || type.isInstance(value)) {
+            return type.cast(value);
+        }
+        throw new IllegalArgumentException("The property is of type "
+                + value.getClass().getName() + ", not " + typeName);
+    }
+
+    @Override
+    public String toString() {
+        return "ElementSnapshot" + values;
+    }
+}
@@ -24,14 +24,31 @@ import com.vaadin.testbench.parallel.Browser;
 public class Parameters {
     private static boolean isDebug;
     private static boolean isScreenshotComparisonCursorDetection;
+    private static boolean isScreenshotComparisonParallel;
+    private static boolean isScreenshotReferenceBlockHashes;
+    private static boolean isScreenshotReferenceDirectoryIndexed;
     private static String screenshotReferenceDirectory;
     private static String screenshotErrorDirectory;
     private static double screenshotComparisonTolerance;
     private static int maxScreenshotRetries;
     private static int screenshotRetryDelay = 500;
+    private static int screenshotStabilityTimeout;
+    private static int screenshotReferenceCacheSize;
+    private static boolean isScreenshotWritesAsync;
+    private static int screenshotPngCompressionLevel;
+    private static boolean isWaitForVaadinAsync;
+    private static boolean isWaitForVaadinSkipRedundant;
+    private static boolean isElementQueryCache;
+    private static boolean isScriptPinning;
     private static int testsInParallel;
     private static int testSuitesInParallel;
+    private static boolean isVirtualThreads;
+    private static String testDurationHistory;
     private static int maxAttempts;
+    private static boolean isBrowserSessionPool;
+    private static int browserSessionMaxReuse;
+    private static int driverPrewarmCount;
+    private static boolean isGridAdmissionControl;
     private static String testbenchGridBrowsers;
     private static boolean headless;
     private static int readTimeout;
@@ -42,6 +59,12 @@ public class Parameters {
 
         isScreenshotComparisonCursorDetection = getSystemPropertyBoolean(
                 "screenshotComparisonCursorDetection", false);
+        isScreenshotComparisonParallel = getSystemPropertyBoolean(
+                "screenshotComparisonParallel", false);
+        isScreenshotReferenceBlockHashes = getSystemPropertyBoolean(
+                "screenshotReferenceBlockHashes", false);
+        isScreenshotReferenceDirectoryIndexed = getSystemPropertyBoolean(
+                "screenshotReferenceDirectoryIndexed", false);
         screenshotReferenceDirectory = getSystemPropertyString(
                 "screenshotReferenceDirectory", "reference-screenshots");
         screenshotErrorDirectory = getSystemPropertyString(
@@ -51,9 +74,34 @@ public class Parameters {
         maxScreenshotRetries = getSystemPropertyInt("maxScreenshotRetries", 2);
         screenshotRetryDelay = getSystemPropertyInt("screenshotRetryDelay",
                 500);
+        screenshotStabilityTimeout = getSystemPropertyInt(
+                "screenshotStabilityTimeout", 0);
+        screenshotReferenceCacheSize = getSystemPropertyInt(
+                "screenshotReferenceCacheSize", 128);
+        isScreenshotWritesAsync = getSystemPropertyBoolean(
+                "screenshotWritesAsync", false);
+        screenshotPngCompressionLevel = getSystemPropertyInt(
+                "screenshotPngCompressionLevel", -1);
+        isWaitForVaadinAsync = getSystemPropertyBoolean("waitForVaadinAsync",
+                false);
+        isWaitForVaadinSkipRedundant = getSystemPropertyBoolean(
+                "waitForVaadinSkipRedundant", false);
+        isElementQueryCache = getSystemPropertyBoolean("elementQueryCache",
+                false);
+        isScriptPinning = getSystemPropertyBoolean("scriptPinning", false);
 
         testSuitesInParallel = getSystemPropertyInt("testSuitesInParallel", 20);
+        isVirtualThreads = getSystemPropertyBoolean("virtualThreads", false);
+        testDurationHistory = getSystemPropertyString("testDurationHistory",
+                null);
         maxAttempts = getSystemPropertyInt("maxAttempts", 1);
+        isBrowserSessionPool = getSystemPropertyBoolean("browserSessionPool",
+                false);
+        browserSessionMaxReuse = getSystemPropertyInt("browserSessionMaxReuse",
+                50);
+        driverPrewarmCount = getSystemPropertyInt("driverPrewarmCount", 0);
+        isGridAdmissionControl = getSystemPropertyBoolean(
+                "gridAdmissionControl", false);
         if (hasSystemProperty("testsInParallel")) {
             testsInParallel = getSystemPropertyInt("testsInParallel", 1);
         } else if (isLocalWebDriverUsed()) {
@@ -181,6 +229,87 @@ public class Parameters {
         return isScreenshotComparisonCursorDetection;
     }
 
+    /**
+     * Turns parallel screen shot comparison on/off. If on, the 16x16 blocks of
+     * large images are compared in rows on the common fork-join pool instead
+     * of on the calling thread. The comparison result is the same in both
+     * modes.
+     *
+     * @param isScreenshotComparisonParallel
+     *            {@code true} to compare screen shots in parallel
+     */
+    public static void setScreenshotComparisonParallel(
+            boolean isScreenshotComparisonParallel) {
+        Parameters.isScreenshotComparisonParallel = isScreenshotComparisonParallel;
+    }
+
+    /**
+     * Tells whether the blocks of a screen shot are compared to the reference
+     * in parallel or not.
+     *
+     * @return {@code true} if screen shots are compared in parallel,
+     *         {@code false} otherwise
+     */
+    public static boolean isScreenshotComparisonParallel() {
+        return isScreenshotComparisonParallel;
+    }
+
+    /**
+     * Turns block hash sidecar files for reference images on/off. If on, a
+     * hash of each 16x16 block of a reference image is stored in a
+     * {@code .blockhash} file next to the reference when the reference is
+     * first used or has been updated. Screen shots whose block hashes match
+     * the sidecar are accepted without decoding the reference, and otherwise
+     * only the blocks with differing hashes are compared.
+     *
+     * @param isScreenshotReferenceBlockHashes
+     *            {@code true} to use block hash sidecar files
+     */
+    public static void setScreenshotReferenceBlockHashes(
+            boolean isScreenshotReferenceBlockHashes) {
+        Parameters.isScreenshotReferenceBlockHashes = isScreenshotReferenceBlockHashes;
+    }
+
+    /**
+     * Tells whether block hash sidecar files are used for reference images.
+     *
+     * @return {@code true} if block hash sidecar files are used, {@code false}
+     *         otherwise
+     */
+    public static boolean isScreenshotReferenceBlockHashes() {
+        return isScreenshotReferenceBlockHashes;
+    }
+
+    /**
+     * Turns indexing of the reference image directory on/off. If on, the
+     * reference directory is listed once and the alternative references and
+     * references for older browser versions are looked up from the listing
+     * instead of checking each possible file name from the file system. Files
+     * added to the directory during the test run are found only once the file
+     * system reports the change, which may take several seconds, e.g. on macOS,
+     * or never happen, e.g. on network file systems. File names are matched
+     * case-sensitively also on file systems which are not case-sensitive. Only
+     * enable this for reference directories on a local file system which are
+     * not changed during the test run. The default is off.
+     *
+     * @param isScreenshotReferenceDirectoryIndexed
+     *            {@code true} to index the reference directory
+     */
+    public static void setScreenshotReferenceDirectoryIndexed(
+            boolean isScreenshotReferenceDirectoryIndexed) {
+        Parameters.isScreenshotReferenceDirectoryIndexed = isScreenshotReferenceDirectoryIndexed;
+    }
+
+    /**
+     * Tells whether the reference image directory is indexed.
+     *
+     * @return {@code true} if the reference directory is indexed,
+     *         {@code false} if each file is checked from the file system
+     */
+    public static boolean isScreenshotReferenceDirectoryIndexed() {
+        return isScreenshotReferenceDirectoryIndexed;
+    }
+
     /**
      * Sets the directory to search for reference images.
      *
@@ -274,6 +403,199 @@ public class Parameters {
         return screenshotRetryDelay;
     }
 
+    /**
+     * Sets the time to wait for the page to stop changing before comparing a
+     * screen shot. If set, screen shots are taken one after another until two
+     * consecutive ones are identical or the time runs out, and only the last
+     * screen shot is compared to the reference. This replaces the retries
+     * configured using {@link #setMaxScreenshotRetries(int)} and
+     * {@link #setScreenshotRetryDelay(int)}. The default is 0, which disables
+     * waiting.
+     *
+     * @param timeout
+     *            the maximum time to wait in milliseconds, or 0 to compare
+     *            using retries
+     */
+    public static void setScreenshotStabilityTimeout(int timeout) {
+        screenshotStabilityTimeout = timeout;
+    }
+
+    /**
+     * @return the maximum time in milliseconds to wait for the page to stop
+     *         changing before comparing a screen shot, 0 if disabled.
+     */
+    public static int getScreenshotStabilityTimeout() {
+        return screenshotStabilityTimeout;
+    }
+
+    /**
+     * Sets the amount of memory used for caching decoded reference screen
+     * shots. Reference images are kept in the cache until it is full, after
+     * which the least recently used ones are discarded. The default is 128
+     * megabytes.
+     *
+     * @param cacheSize
+     *            the cache size in megabytes, or 0 to disable caching
+     */
+    public static void setScreenshotReferenceCacheSize(int cacheSize) {
+        screenshotReferenceCacheSize = cacheSize;
+    }
+
+    /**
+     * @return the amount of memory in megabytes used for caching decoded
+     *         reference screen shots, 0 if caching is disabled.
+     */
+    public static int getScreenshotReferenceCacheSize() {
+        return screenshotReferenceCacheSize;
+    }
+
+    /**
+     * Turns asynchronous writing of error screen shots and diff reports on/off.
+     * If on, the images are PNG encoded and written on a background thread
+     * instead of the test thread. Pending writes are completed at the end of
+     * the test run and when the JVM shuts down.
+     *
+     * @param isScreenshotWritesAsync
+     *            {@code true} to write error screen shots asynchronously
+     */
+    public static void setScreenshotWritesAsync(
+            boolean isScreenshotWritesAsync) {
+        Parameters.isScreenshotWritesAsync = isScreenshotWritesAsync;
+    }
+
+    /**
+     * Tells whether error screen shots and diff reports are written
+     * asynchronously or not.
+     *
+     * @return {@code true} if error screen shots are written asynchronously,
+     *         {@code false} otherwise
+     */
+    public static boolean isScreenshotWritesAsync() {
+        return isScreenshotWritesAsync;
+    }
+
+    /**
+     * Sets the compression level used when writing PNG files, from 0 (no
+     * compression, fastest) to 9 (best compression, slowest). The default is
+     * -1, which uses the default level of the PNG encoder.
+     *
+     * @param compressionLevel
+     *            the compression level, or -1 for the default level
+     */
+    public static void setScreenshotPngCompressionLevel(int compressionLevel) {
+        screenshotPngCompressionLevel = compressionLevel;
+    }
+
+    /**
+     * @return the compression level used when writing PNG files, or -1 if the
+     *         default level of the PNG encoder is used.
+     */
+    public static int getScreenshotPngCompressionLevel() {
+        return screenshotPngCompressionLevel;
+    }
+
+    /**
+     * Sets whether waiting for Vaadin uses a single asynchronous script that
+     * completes in the browser once Vaadin is idle, instead of repeatedly
+     * executing a script that checks if Vaadin is idle. The asynchronous mode
+     * needs one WebDriver call per wait, which reduces the load on remote
+     * grids when the server is slow to respond. The default is {@code false}.
+     *
+     * @param isWaitForVaadinAsync
+     *            {@code true} to wait for Vaadin using an asynchronous script
+     */
+    public static void setWaitForVaadinAsync(boolean isWaitForVaadinAsync) {
+        Parameters.isWaitForVaadinAsync = isWaitForVaadinAsync;
+    }
+
+    /**
+     * @return {@code true} if waiting for Vaadin uses an asynchronous script,
+     *         {@code false} if the browser is polled.
+     */
+    public static boolean isWaitForVaadinAsync() {
+        return isWaitForVaadinAsync;
+    }
+
+    /**
+     * Sets whether reading the state of the page skips waiting for Vaadin when
+     * Vaadin was idle before the previous read and no command that may change
+     * the page has been run since. This saves one browser round trip for each
+     * consecutive read, e.g. when checking several properties of an element.
+     * Changes started by the page itself between the reads, e.g. by polling,
+     * are not waited for. The default is {@code false}.
+     *
+     * @param isWaitForVaadinSkipRedundant
+     *            {@code true} to skip redundant waits between reads
+     */
+    public static void setWaitForVaadinSkipRedundant(
+            boolean isWaitForVaadinSkipRedundant) {
+        Parameters.isWaitForVaadinSkipRedundant = isWaitForVaadinSkipRedundant;
+    }
+
+    /**
+     * @return {@code true} if redundant waits for Vaadin between reads are
+     *         skipped, {@code false} otherwise.
+     */
+    public static boolean isWaitForVaadinSkipRedundant() {
+        return isWaitForVaadinSkipRedundant;
+    }
+
+    /**
+     * Sets whether the results of element queries are cached until the DOM of
+     * the page changes.
+     * <p>
+     * When enabled, TestBench tracks changes to the DOM using a
+     * {@code MutationObserver} and reports the DOM generation together with
+     * the idle state of Vaadin. A query which is run again while the DOM
+     * generation is unchanged returns the cached elements without searching
+     * the page. Conditions given using
+     * {@link ElementQuery#withCondition(java.util.function.Predicate)} are
+     * always evaluated again.
+     * <p>
+     * Changes to JavaScript properties which are not reflected to the DOM are
+     * not detected, so queries filtering by e.g. label or placeholder can
+     * return stale results if only the property changes. The default is
+     * {@code false}.
+     *
+     * @param isElementQueryCache
+     *            {@code true} to cache element query results
+     */
+    public static void setElementQueryCache(boolean isElementQueryCache) {
+        Parameters.isElementQueryCache = isElementQueryCache;
+    }
+
+    /**
+     * @return {@code true} if element query results are cached until the DOM
+     *         changes, {@code false} otherwise.
+     */
+    public static boolean isElementQueryCache() {
+        return isElementQueryCache;
+    }
+
+    /**
+     * Sets whether scripts used internally by TestBench, e.g. for element
+     * queries and waiting for Vaadin, are pinned in the browser.
+     * <p>
+     * A pinned script is sent to the browser the first time it is used in a
+     * page and stored there as a function. Later executions only send a
+     * reference to the function and the arguments. The default is
+     * {@code false}.
+     *
+     * @param isScriptPinning
+     *            {@code true} to pin internal scripts in the browser
+     */
+    public static void setScriptPinning(boolean isScriptPinning) {
+        Parameters.isScriptPinning = isScriptPinning;
+    }
+
+    /**
+     * @return {@code true} if internal scripts are pinned in the browser,
+     *         {@code false} otherwise.
+     */
+    public static boolean isScriptPinning() {
+        return isScriptPinning;
+    }
+
     /**
      * Sets the maximum number of tests to run in parallel.
      *
@@ -310,6 +632,58 @@ public class Parameters {
         return testSuitesInParallel;
     }
 
+    /**
+     * Sets whether tests run in parallel use virtual threads.
+     * <p>
+     * By default, a fixed number of platform threads is used for running
+     * tests in parallel, even though the threads spend most of the time
+     * waiting for the browser. When enabled, each test runs on its own
+     * virtual thread instead, and the number of tests and test suites running
+     * at the same time is limited by {@link #getTestsInParallel()} and
+     * {@link #getTestSuitesInParallel()} without reserving a thread for each.
+     * Must be set before the first test is run.
+     *
+     * @param isVirtualThreads
+     *            {@code true} to run tests on virtual threads, {@code false}
+     *            to use a fixed pool of platform threads
+     */
+    public static void setVirtualThreads(boolean isVirtualThreads) {
+        Parameters.isVirtualThreads = isVirtualThreads;
+    }
+
+    /**
+     * @return {@code true} if tests run in parallel use virtual threads,
+     *         {@code false} if a fixed pool of platform threads is used.
+     */
+    public static boolean isVirtualThreads() {
+        return isVirtualThreads;
+    }
+
+    /**
+     * Sets the file where the durations of tests run in parallel are stored.
+     * <p>
+     * When set, the durations of the tests are recorded and the tests are
+     * started longest first on the next run, which shortens the time spent
+     * waiting for a few slow tests at the end of the run. Tests without a
+     * recorded duration are started first, in declaration order. The default
+     * is {@code null}, which keeps the declaration order.
+     *
+     * @param testDurationHistory
+     *            the path of the file to store test durations in, or
+     *            {@code null} to disable ordering by duration
+     */
+    public static void setTestDurationHistory(String testDurationHistory) {
+        Parameters.testDurationHistory = testDurationHistory;
+    }
+
+    /**
+     * @return the path of the file where test durations are stored, or
+     *         {@code null} if tests are not ordered by duration.
+     */
+    public static String getTestDurationHistory() {
+        return testDurationHistory;
+    }
+
     /**
      * Gets host name of the hub to run tests on.
      * <p>
@@ -443,6 +817,109 @@ public class Parameters {
         Parameters.maxAttempts = maxAttempts;
     }
 
+    /**
+     * Sets whether browser sessions are reused between tests.
+     * <p>
+     * When enabled, a browser session is returned to a pool instead of being
+     * closed when a test quits the driver. The session is reset and used for
+     * a later test with the same capabilities. Cookies, local and session
+     * storage and service workers of the current page are cleared, but not
+     * those of other origins visited during the test, extra
+     * windows are closed, the browser navigates to {@code about:blank} and the
+     * window is resized back to its original size. Sessions which cannot be
+     * reset or which have been used {@link #getBrowserSessionMaxReuse()}
+     * times are closed. The default is {@code false}.
+     *
+     * @param isBrowserSessionPool
+     *            {@code true} to reuse browser sessions between tests
+     */
+    public static void setBrowserSessionPool(boolean isBrowserSessionPool) {
+        Parameters.isBrowserSessionPool = isBrowserSessionPool;
+    }
+
+    /**
+     * @return {@code true} if browser sessions are reused between tests,
+     *         {@code false} otherwise.
+     */
+    public static boolean isBrowserSessionPool() {
+        return isBrowserSessionPool;
+    }
+
+    /**
+     * Sets the maximum number of tests a pooled browser session is used for,
+     * before it is closed and replaced with a new session. Only used when
+     * {@link #isBrowserSessionPool()} is enabled. The default is 50.
+     *
+     * @param browserSessionMaxReuse
+     *            the maximum number of tests to use a browser session for
+     */
+    public static void setBrowserSessionMaxReuse(int browserSessionMaxReuse) {
+        Parameters.browserSessionMaxReuse = browserSessionMaxReuse;
+    }
+
+    /**
+     * @return the maximum number of tests a pooled browser session is used
+     *         for.
+     */
+    public static int getBrowserSessionMaxReuse() {
+        return browserSessionMaxReuse;
+    }
+
+    /**
+     * Sets the number of drivers to start in the background for upcoming
+     * tests.
+     * <p>
+     * When a test gets a driver, new drivers with the same configuration are
+     * started in the background until the given number of drivers are
+     * waiting, so that the following tests do not need to wait for the
+     * browser to start. Drivers which are not used are closed when the tests
+     * have finished. Not used when running tests on Sauce Labs, as the
+     * session is named after the test. The default is 0, which disables
+     * starting drivers in the background.
+     *
+     * @param driverPrewarmCount
+     *            the number of drivers to start ahead of time for each
+     *            browser configuration
+     */
+    public static void setDriverPrewarmCount(int driverPrewarmCount) {
+        Parameters.driverPrewarmCount = driverPrewarmCount;
+    }
+
+    /**
+     * @return the number of drivers started ahead of time for each browser
+     *         configuration, 0 if disabled.
+     */
+    public static int getDriverPrewarmCount() {
+        return driverPrewarmCount;
+    }
+
+    /**
+     * Sets whether remote sessions are only requested when the hub has a free
+     * slot for the browser.
+     * <p>
+     * When enabled, the status of the hub is polled before creating a remote
+     * driver, and the test waits until a slot matching the requested browser
+     * is free instead of queuing the session request on the hub, where it may
+     * time out when more tests are run in parallel than there are slots. Not
+     * used when running tests on Sauce Labs. The default is {@code false}.
+     *
+     * @param isGridAdmissionControl
+     *            {@code true} to wait for a free slot before requesting a
+     *            session, {@code false} to request sessions immediately
+     */
+    public static void setGridAdmissionControl(
+            boolean isGridAdmissionControl) {
+        Parameters.isGridAdmissionControl = isGridAdmissionControl;
+    }
+
+    /**
+     * @return {@code true} if remote sessions are only requested when the hub
+     *         has a free slot for the browser, {@code false} otherwise.
+     */
+    public static boolean isGridAdmissionControl() {
+        return isGridAdmissionControl;
+    }
+
     /**
      *
      * @return The configuration string of browsers (and their versions) as a
@@ -8,6 +8,7 @@
  */
 package com.vaadin.testbench;
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.HashSet;
@@ -16,6 +17,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import javassist.util.proxy.MethodFilter;
 import javassist.util.proxy.MethodHandler;
+import javassist.util.proxy.Proxy;
 import javassist.util.proxy.ProxyFactory;
 
 import org.openqa.selenium.WebDriver;
@@ -41,6 +43,15 @@ public class TestBench {
     }
 
     private static final Map<Class<?>, MethodFilter> methodFilters = new ConcurrentHashMap<>();
+    private static final Map<ElementProxyKey, Constructor<?>> elementProxyConstructors = new ConcurrentHashMap<>();
+
+    /**
+     * Identifies a generated element proxy class, which depends on the
+     * element class and the interfaces of the wrapped web element.
+     */
+    private record ElementProxyKey(Class<?> elementClass,
+            Class<?> webElementClass) {
+    }
 
     private static final class ElementMethodFilter implements MethodFilter {
 
@@ -165,26 +176,18 @@ public class TestBench {
         if (webElement == null) {
             return null;
         }
-        Set<Class<?>> allInterfaces = extractInterfaces(webElement);
-
-        final Class<?>[] allInterfacesArray = allInterfaces
-                .toArray(new Class<?>[allInterfaces.size()]);
-
-        ProxyFactory pFactory = new ProxyFactory();
-        pFactory.setSuperclass(clazz);
-        pFactory.setInterfaces(allInterfacesArray);
-        pFactory.setFilter(getMethodFilter(clazz));
-
         Object proxyObject;
         try {
-            proxyObject = pFactory.create(new Class[0], new Object[0],
-                    new ElementInvocationHandler(webElement));
+            proxyObject = getElementProxyConstructor(clazz,
+                    webElement.getClass()).newInstance();
         } catch (Exception e) {
             throw new IllegalStateException(
                     "Unable to create an element of type " + clazz.getName()
                             + " wrapping " + webElement,
                     e);
         }
+        ((Proxy) proxyObject)
+                .setHandler(new ElementInvocationHandler(webElement));
 
         @SuppressWarnings("unchecked")
         T proxy = (T) proxyObject;
@@ -192,6 +195,50 @@ public class TestBench {
         return proxy;
     }
 
+    /**
+     * Gets the cached constructor of the proxy class for wrapping web elements
+     * of the given class in elements of the given type.
+     *
+     * @return the cached constructor, or {@code null} if no element of the
+     *         given type has been created for such web elements
+     */
+    static Constructor<?> getCachedElementProxyConstructor(
+            Class<? extends TestBenchElement> elementClass,
+            Class<?> webElementClass) {
+        return elementProxyConstructors
+                .get(new ElementProxyKey(elementClass, webElementClass));
+    }
+
+    /**
+     * Gets the constructor of the proxy class for wrapping web elements of the
+     * given class in elements of the given type. The proxy class is generated
+     * once for each combination, after which wrapping an element only
+     * allocates the proxy instance.
+     */
+    private static Constructor<?> getElementProxyConstructor(
+            Class<? extends TestBenchElement> elementClass,
+            Class<?> webElementClass) {
+        return elementProxyConstructors.computeIfAbsent(
+                new ElementProxyKey(elementClass, webElementClass), key -> {
+                    Set<Class<?>> allInterfaces = extractInterfaces(
+                            webElementClass);
+
+                    ProxyFactory pFactory = new ProxyFactory();
+                    pFactory.setSuperclass(elementClass);
+                    pFactory.setInterfaces(allInterfaces
+                            .toArray(new Class<?>[allInterfaces.size()]));
+                    pFactory.setFilter(getMethodFilter(elementClass));
+                    try {
+                        return pFactory.createClass().getConstructor();
+                    } catch (NoSuchMethodException e) {
+                        throw new IllegalStateException(
+                                "Unable to create an element of type "
+                                        + elementClass.getName(),
+                                e);
+                    }
+                });
+    }
+
     private static MethodFilter getMethodFilter(
             Class<? extends TestBenchElement> clazz) {
         if (!methodFilters.containsKey(clazz)) {
@@ -15,6 +15,7 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -65,6 +66,75 @@ public class TestBenchElement implements WrapsElement, WebElement, HasDriver,
     private WebElement wrappedElement = null;
     private TestBenchCommandExecutor commandExecutor = null;
 
+    /**
+     * Returns {@code value} as a pair of a flag telling if the value is a
+     * number and the value itself. Numbers are converted to strings, so that
+     * integral values are not returned as longs.
+     */
+    private static final String TAG_NUMBER = "(typeof value == 'number'"
+            + " ? [true, value.toString()] : [false, value])";
+
+    private static final String SNAPSHOT_SCRIPT = """
+            var names = arguments[1];
+            return arguments[0].map(function(elem) {
+              return names.map(function(name) {
+                var value = elem;
+                var chain = name.split('.');
+                for (var i = 0; i < chain.length && value != null; i++) {
+                  value = value[chain[i]];
+                }
+                return %s;
+              });
+            });
+            """.formatted(TAG_NUMBER);
+
+    /**
+     * Focuses and clicks the element using one script. Returns {@code false}
+     * without doing anything else if the element has no click method, e.g. for
+     * SVG elements.
+     */
+    private static final String CLICK_SCRIPT = """
+            var elem = arguments[0];
+            try { elem.focus(); } catch(e) {}
+            if (typeof elem.click !== 'function') return false;
+            elem.click();
+            return true;
+            """;
+
+    /**
+     * Scrolls the element into the viewport unless it is already visible
+     * within the browser viewport and not clipped by any scrollable ancestor
+     * container. Returns {@code true} if the element was scrolled. Errors in
+     * the visibility check are ignored, treating the element as visible.
+     */
+    private static final String SCROLL_INTO_VIEWPORT_SCRIPT = """
+            var elem = arguments[0];
+            var isVisible = function() {
+              try {
+                var rect = elem.getBoundingClientRect();
+                if (rect.width === 0 && rect.height === 0) return false;
+                var vw = window.innerWidth || document.documentElement.clientWidth;
+                var vh = window.innerHeight || document.documentElement.clientHeight;
+                if (rect.bottom < 0 || rect.top > vh || rect.right < 0 || rect.left > vw) return false;
+                var parent = elem.parentElement;
+                while (parent) {
+                  var style = getComputedStyle(parent);
+                  var overflow = style.overflow + style.overflowX + style.overflowY;
+                  if (/auto|scroll|hidden/.test(overflow)) {
+                    var parentRect = parent.getBoundingClientRect();
+                    if (rect.bottom <= parentRect.top || rect.top >= parentRect.bottom
+                        || rect.right <= parentRect.left || rect.left >= parentRect.right) return false;
+                  }
+                  parent = parent.parentElement;
+                }
+                return true;
+              } catch(e) { return true; }
+            };
+            if (isVisible()) return false;
+            elem.scrollIntoView({ block: 'nearest', inline: 'nearest' });
+            return true;
+            """;
+
     protected TestBenchElement() {
 
     }
@@ -147,6 +217,18 @@ public class TestBenchElement implements WrapsElement, WebElement, HasDriver,
         }
     }
 
+    /**
+     * Waits for Vaadin before a command that only reads the state of the
+     * page.
+     *
+     * @see TestBenchCommandExecutor#waitForVaadinBeforeRead()
+     */
+    protected void waitForVaadinBeforeRead() {
+        if (getCommandExecutor() != null) {
+            getCommandExecutor().waitForVaadinBeforeRead();
+        }
+    }
+
     /**
      * Gets the id set for this element.
      *
@@ -191,23 +273,26 @@ public class TestBenchElement implements WrapsElement, WebElement, HasDriver,
 
     @Override
     public void click() {
-        // JS call to click does not focus element, hence ensure focus
-        focus();
         try {
-            // Avoid strange "element not clickable at point" problems
-            callFunction("click");
+            // JS call to click does not focus element, hence focus first.
+            // Using a JS click avoids strange "element not clickable at
+            // point" problems
+            Object clicked = executePinnedScript(CLICK_SCRIPT, this);
+            if (Boolean.TRUE.equals(clicked)) {
+                return;
+            }
         } catch (Exception e) {
-            if (e.getMessage()
+            if (e.getMessage() != null && e.getMessage()
                     .contains("Inspected target navigated or closed")) {
                 // This happens with chromedriver although e.g. navigation
                 // succeeds
                 return;
             }
-            // SVG elements and maybe others do not have a 'click' method
-            ensureVisible();
-            waitForVaadin();
-            wrappedElement.click();
         }
+        // SVG elements and maybe others do not have a 'click' method
+        ensureVisible();
+        waitForVaadin();
+        wrappedElement.click();
     }
 
     @Override
@@ -233,7 +318,7 @@ public class TestBenchElement implements WrapsElement, WebElement, HasDriver,
 
     @Override
     public String getTagName() {
-        waitForVaadin();
+        waitForVaadinBeforeRead();
         return wrappedElement.getTagName();
     }
 
@@ -245,19 +330,19 @@ public class TestBenchElement implements WrapsElement, WebElement, HasDriver,
      */
     @Override
     public String getAttribute(String name) {
-        waitForVaadin();
+        waitForVaadinBeforeRead();
         return wrappedElement.getAttribute(name);
     }
 
     @Override
     public @Nullable String getDomAttribute(String name) {
-        waitForVaadin();
+        waitForVaadinBeforeRead();
         return wrappedElement.getDomAttribute(name);
     }
 
     @Override
     public @Nullable String getDomProperty(String name) {
-        waitForVaadin();
+        waitForVaadinBeforeRead();
         return wrappedElement.getDomProperty(name);
     }
 
@@ -276,7 +361,7 @@ public class TestBenchElement implements WrapsElement, WebElement, HasDriver,
     @Override
     public boolean isSelected() {
         ensureVisible();
-        waitForVaadin();
+        waitForVaadinBeforeRead();
         return wrappedElement.isSelected();
     }
 
@@ -288,7 +373,7 @@ public class TestBenchElement implements WrapsElement, WebElement, HasDriver,
      */
     @Override
     public boolean isEnabled() {
-        waitForVaadin();
+        waitForVaadinBeforeRead();
         return !hasClassName("v-disabled") && !hasAttribute("disabled")
                 && wrappedElement.isEnabled();
     }
@@ -300,14 +385,14 @@ public class TestBenchElement implements WrapsElement, WebElement, HasDriver,
      * @return true if the component has readonly attribute set.
      */
     public boolean isReadOnly() {
-        waitForVaadin();
+        waitForVaadinBeforeRead();
         return hasAttribute("readonly");
     }
 
     @Override
     public String getText() {
         ensureVisible();
-        waitForVaadin();
+        waitForVaadinBeforeRead();
         return wrappedElement.getText();
     }
 
@@ -319,32 +404,32 @@ public class TestBenchElement implements WrapsElement, WebElement, HasDriver,
 
     @Override
     public TestBenchElement findElement(By by) {
-        waitForVaadin();
+        waitForVaadinBeforeRead();
         return wrapElement(wrappedElement.findElement(by),
                 getCommandExecutor());
     }
 
     @Override
     public boolean isDisplayed() {
-        waitForVaadin();
+        waitForVaadinBeforeRead();
         return wrappedElement.isDisplayed();
     }
 
     @Override
     public Point getLocation() {
-        waitForVaadin();
+        waitForVaadinBeforeRead();
         return wrappedElement.getLocation();
     }
 
     @Override
     public Dimension getSize() {
-        waitForVaadin();
+        waitForVaadinBeforeRead();
         return wrappedElement.getSize();
     }
 
     @Override
     public String getCssValue(String propertyName) {
-        waitForVaadin();
+        waitForVaadinBeforeRead();
         return wrappedElement.getCssValue(propertyName);
     }
 
@@ -404,7 +489,7 @@ public class TestBenchElement implements WrapsElement, WebElement, HasDriver,
      * Move browser focus to this Element
      */
     public void focus() {
-        waitForVaadin();
+        // The script waits for Vaadin before running
         getCommandExecutor().focusElement(this);
     }
 
@@ -526,7 +611,8 @@ public class TestBenchElement implements WrapsElement, WebElement, HasDriver,
      * Scrolls the element into the visible area of the browser window
      */
     public void scrollIntoView() {
-        callFunction("scrollIntoView");
+        getCommandExecutor().executeOrBatchScript(
+                "arguments[0].scrollIntoView()", this);
     }
 
     /**
@@ -540,7 +626,8 @@ public class TestBenchElement implements WrapsElement, WebElement, HasDriver,
      *      "https://developer.mozilla.org/en-US/docs/Web/API/Element/scrollIntoView">Element.scrollIntoView()</a>
      */
     public void scrollIntoView(Map<String, Object> options) {
-        callFunction("scrollIntoView", options);
+        getCommandExecutor().executeOrBatchScript(
+                "arguments[0].scrollIntoView(arguments[1])", this, options);
     }
 
     /**
@@ -556,10 +643,7 @@ public class TestBenchElement implements WrapsElement, WebElement, HasDriver,
     private void ensureInteractable() {
         try {
             if (getCommandExecutor().isAutoScrollIntoView()) {
-                if (!isElementVisibleInViewport()) {
-                    scrollIntoView(
-                            Map.of("block", "nearest", "inline", "nearest"));
-                }
+                executePinnedScript(SCROLL_INTO_VIEWPORT_SCRIPT, this);
             }
         } catch (Exception e) {
         }
@@ -578,51 +662,13 @@ public class TestBenchElement implements WrapsElement, WebElement, HasDriver,
         try {
             if (getCommandExecutor().isAutoScrollIntoView()) {
                 if (!wrappedElement.isDisplayed()) {
-                    scrollIntoView();
+                    callFunction("scrollIntoView");
                 }
             }
         } catch (Exception e) {
         }
     }
 
-    /**
-     * Checks whether the element is visible within the browser viewport and not
-     * clipped by any scrollable ancestor container.
-     *
-     * @return {@code true} if the element is in the viewport, {@code true} on
-     *         error as a safe fallback
-     */
-    private boolean isElementVisibleInViewport() {
-        try {
-            return (boolean) executeScript(
-                    """
-                            try {
-                              var elem = arguments[0];
-                              var rect = elem.getBoundingClientRect();
-                              if (rect.width === 0 && rect.height === 0) return false;
-                              var vw = window.innerWidth || document.documentElement.clientWidth;
-                              var vh = window.innerHeight || document.documentElement.clientHeight;
-                              if (rect.bottom < 0 || rect.top > vh || rect.right < 0 || rect.left > vw) return false;
-                              var parent = elem.parentElement;
-                              while (parent) {
-                                var style = getComputedStyle(parent);
-                                var overflow = style.overflow + style.overflowX + style.overflowY;
-                                if (/auto|scroll|hidden/.test(overflow)) {
-                                  var parentRect = parent.getBoundingClientRect();
-                                  if (rect.bottom <= parentRect.top || rect.top >= parentRect.bottom
-                                      || rect.right <= parentRect.left || rect.left >= parentRect.right) return false;
-                                }
-                                parent = parent.parentElement;
-                              }
-                              return true;
-                            } catch(e) { return true; }
-                            """,
-                    this);
-        } catch (Exception e) {
-            return true;
-        }
-    }
-
     /**
      * Waits the given number of seconds for the given condition to become
      * neither null nor false. {@link NotFoundException}s are ignored by
@@ -761,10 +807,12 @@ public class TestBenchElement implements WrapsElement, WebElement, HasDriver,
 
     private void internalSetProperty(String name, Object value) {
         if (isFirefox() && value instanceof Double) {
-            executeScript("arguments[0][arguments[1]]=Number(arguments[2])",
-                    this, name, String.valueOf((value)));
+            getCommandExecutor().executeOrBatchScript(
+                    "arguments[0][arguments[1]]=Number(arguments[2])", this,
+                    name, String.valueOf((value)));
         } else {
-            executeScript("arguments[0][arguments[1]]=arguments[2]", this, name,
+            getCommandExecutor().executeOrBatchScript(
+                    "arguments[0][arguments[1]]=arguments[2]", this, name,
                     value);
         }
     }
@@ -777,19 +825,75 @@ public class TestBenchElement implements WrapsElement, WebElement, HasDriver,
                 .concat(Stream.of(this), Stream.of(propertyNames)).toArray();
 
         if (isFirefox()) {
-            String isNumberScript = script + "return typeof value == 'number';";
-            boolean number = (boolean) executeScript(isNumberScript,
-                    jsParameters);
-
-            if (number) {
-                String str = (String) executeScript(
-                        script + "return value.toString();", jsParameters);
-                return Double.parseDouble(str);
-            }
+            // Numbers are returned as strings to get them as doubles, in the
+            // same call
+            return fromTaggedValue((List<?>) executeScript(
+                    script + "return " + TAG_NUMBER + ";", jsParameters));
         }
         return executeScript(script + "return value;", jsParameters);
     }
 
+    /**
+     * Reads the given JavaScript properties of this element using a single
+     * script execution.
+     * <p>
+     * A property name can refer to a property of a property using dots, e.g.
+     * {@code style.display}. Numbers are returned as {@link Double} on all
+     * browsers.
+     *
+     * @param propertyNames
+     *            the names of the properties to read
+     * @return a snapshot with the values of the properties
+     */
+    public ElementSnapshot snapshot(String... propertyNames) {
+        return snapshot(List.of(this), propertyNames).get(0);
+    }
+
+    /**
+     * Reads the given JavaScript properties of all the given elements using a
+     * single script execution.
+     *
+     * @see #snapshot(String...)
+     * @param elements
+     *            the elements to read the properties of
+     * @param propertyNames
+     *            the names of the properties to read
+     * @return the snapshots of the elements, in the same order as the
+     *         elements
+     */
+    public static List<ElementSnapshot> snapshot(
+            List<? extends TestBenchElement> elements,
+            String... propertyNames) {
+        if (elements.isEmpty()) {
+            return List.of();
+        }
+        TestBenchElement first = elements.get(0);
+        List<?> result = (List<?>) first.executePinnedScript(SNAPSHOT_SCRIPT,
+                elements, List.of(propertyNames));
+
+        List<ElementSnapshot> snapshots = new ArrayList<>();
+        for (Object elementValues : result) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            List<?> taggedValues = (List<?>) elementValues;
+            for (int i = 0; i < propertyNames.length; i++) {
+                values.put(propertyNames[i],
+                        fromTaggedValue((List<?>) taggedValues.get(i)));
+            }
+            snapshots.add(new ElementSnapshot(values));
+        }
+        return snapshots;
+    }
+
+    /**
+     * Converts a value returned using {@link #TAG_NUMBER}.
+     */
+    private static Object fromTaggedValue(List<?> taggedValue) {
+        if (Boolean.TRUE.equals(taggedValue.get(0))) {
+            return Double.parseDouble((String) taggedValue.get(1));
+        }
+        return taggedValue.get(1);
+    }
+
     private static String createPropertyChain(String[] propertyNames) {
         String result = "";
         for (int i = 0; i < propertyNames.length; i++) {
@@ -825,6 +929,20 @@ public class TestBenchElement implements WrapsElement, WebElement, HasDriver,
         return getCommandExecutor().executeScript(script, args);
     }
 
+    /**
+     * Executes a script which is run often, pinning it in the browser if
+     * {@link Parameters#isScriptPinning()} is enabled.
+     *
+     * @see TestBenchCommandExecutor#executePinnedScript(String, Object...)
+     */
+    private Object executePinnedScript(String script, Object... args) {
+        if (!Parameters.isScriptPinning()) {
+            // Runs through executeScript, which can be overridden
+            return executeScript(script, args);
+        }
+        return getCommandExecutor().executePinnedScript(script, args);
+    }
+
     @Override
     public Object callFunction(String methodName, Object... args) {
         // arguments[0].method(arguments[1],arguments[2],arguments[3])
@@ -847,7 +965,7 @@ public class TestBenchElement implements WrapsElement, WebElement, HasDriver,
      *            the type of custom event to dispatch
      */
     public void dispatchEvent(String eventType) {
-        executeScript(
+        getCommandExecutor().executeOrBatchScript(
                 "arguments[0].dispatchEvent(new CustomEvent(arguments[1]));",
                 this, eventType);
     }
@@ -864,7 +982,7 @@ public class TestBenchElement implements WrapsElement, WebElement, HasDriver,
      */
     public void dispatchEvent(String eventType,
             Map<String, Object> customEventInit) {
-        executeScript(
+        getCommandExecutor().executeOrBatchScript(
                 "arguments[0].dispatchEvent(new CustomEvent(arguments[1], arguments[2]));",
                 this, eventType, customEventInit);
     }
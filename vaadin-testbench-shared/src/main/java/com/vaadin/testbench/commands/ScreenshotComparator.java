@@ -9,15 +9,12 @@
 package com.vaadin.testbench.commands;
 
 import javax.imageio.IIOException;
-import javax.imageio.ImageIO;
 
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
-import java.util.Collections;
-import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.openqa.selenium.Capabilities;
 import org.openqa.selenium.Dimension;
@@ -32,14 +29,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.vaadin.testbench.Parameters;
+import com.vaadin.testbench.screenshot.ArtifactWriter;
+import com.vaadin.testbench.screenshot.BlockHashIndex;
 import com.vaadin.testbench.screenshot.ImageComparison;
 import com.vaadin.testbench.screenshot.ImageFileUtil;
+import com.vaadin.testbench.screenshot.ImageUtil;
+import com.vaadin.testbench.screenshot.ReferenceImageCache;
 import com.vaadin.testbench.screenshot.ReferenceNameGenerator;
 
 public class ScreenshotComparator {
 
-    private static Set<String> browsersWithoutElementScreenshot = Collections
-            .synchronizedSet(new HashSet<>());
+    private static final Set<String> browsersWithoutElementScreenshot = ConcurrentHashMap
+            .newKeySet();
 
     public static boolean compareScreen(String referenceId,
             ReferenceNameGenerator referenceNameGenerator,
@@ -49,8 +50,18 @@ public class ScreenshotComparator {
         String referenceName = referenceNameGenerator.generateName(referenceId,
                 capabilities);
 
-        for (int times = 0; times < Parameters
-                .getMaxScreenshotRetries(); times++) {
+        if (Parameters.getScreenshotStabilityTimeout() > 0) {
+            BufferedImage screenshotImage = getStableScreenshot(
+                    () -> getScreenshot((TakesScreenshot) driver,
+                            takesScreenshot, capabilities));
+            return imageComparison.imageEqualToReference(screenshotImage,
+                    referenceName,
+                    Parameters.getScreenshotComparisonTolerance(),
+                    capabilities);
+        }
+
+        int retries = Parameters.getMaxScreenshotRetries();
+        for (int times = 0; times < retries; times++) {
             boolean equal = imageComparison.imageEqualToReference(
                     getScreenshot((TakesScreenshot) driver, takesScreenshot,
                             capabilities),
@@ -60,7 +71,9 @@ public class ScreenshotComparator {
             if (equal) {
                 return true;
             }
-            pause(Parameters.getScreenshotRetryDelay());
+            if (times + 1 < retries) {
+                pause(Parameters.getScreenshotRetryDelay());
+            }
         }
         return false;
     }
@@ -91,7 +104,7 @@ public class ScreenshotComparator {
             try {
                 byte[] screenshotBytes = screenshotContext
                         .getScreenshotAs(OutputType.BYTES);
-                return ImageIO.read(new ByteArrayInputStream(screenshotBytes));
+                return ImageUtil.decodeImage(screenshotBytes);
             } catch (UnsupportedCommandException e) {
                 browsersWithoutElementScreenshot.add(browserName);
             } catch (WebDriverException e) {
@@ -107,13 +120,13 @@ public class ScreenshotComparator {
                 && browsersWithoutElementScreenshot.contains(browserName)) {
             // Driver does not support element screenshots, get whole screen
             // and crop
-            BufferedImage image = ImageIO.read(new ByteArrayInputStream(
-                    driver.getScreenshotAs(OutputType.BYTES)));
+            BufferedImage image = ImageUtil
+                    .decodeImage(driver.getScreenshotAs(OutputType.BYTES));
             return cropToElement((WebElement) screenshotContext, image);
         } else {
             // Element or full screen image
-            return ImageIO.read(new ByteArrayInputStream(
-                    screenshotContext.getScreenshotAs(OutputType.BYTES)));
+            return ImageUtil.decodeImage(
+                    screenshotContext.getScreenshotAs(OutputType.BYTES));
         }
     }
 
@@ -163,7 +176,7 @@ public class ScreenshotComparator {
             HasCapabilities driver) throws IOException {
         BufferedImage image = null;
         try {
-            image = ImageIO.read(reference);
+            image = ReferenceImageCache.read(reference);
         } catch (IIOException e) {
             // Don't worry, an error screen shot will be generated that later
             // can be used as the reference
@@ -176,16 +189,25 @@ public class ScreenshotComparator {
             String referenceName, ImageComparison imageComparison,
             TakesScreenshot takesScreenshot, HasCapabilities driver)
             throws IOException {
-        for (int times = 0; times < Parameters
-                .getMaxScreenshotRetries(); times++) {
-            BufferedImage screenshotImage = ImageIO
-                    .read(new ByteArrayInputStream(
-                            takesScreenshot.getScreenshotAs(OutputType.BYTES)));
+        boolean waitForStability = Parameters
+                .getScreenshotStabilityTimeout() > 0;
+        int retries = waitForStability ? 1
+                : Parameters.getMaxScreenshotRetries();
+        for (int times = 0; times < retries; times++) {
+            BufferedImage screenshotImage;
+            if (waitForStability && reference != null) {
+                screenshotImage = getStableScreenshot(
+                        () -> ImageUtil.decodeImage(takesScreenshot
+                                .getScreenshotAs(OutputType.BYTES)));
+            } else {
+                screenshotImage = ImageUtil.decodeImage(
+                        takesScreenshot.getScreenshotAs(OutputType.BYTES));
+            }
             if (reference == null) {
                 // Store the screenshot in the errors directory and fail the
                 // test
                 ImageFileUtil.createScreenshotDirectoriesIfNeeded();
-                ImageIO.write(screenshotImage, "png",
+                ArtifactWriter.writePng(screenshotImage,
                         ImageFileUtil.getErrorScreenshotFile(referenceName));
                 getLogger().error("No reference found for " + referenceName
                         + " in "
@@ -197,11 +219,55 @@ public class ScreenshotComparator {
                     Parameters.getScreenshotComparisonTolerance())) {
                 return true;
             }
-            pause(Parameters.getScreenshotRetryDelay());
+            // No delay after the last attempt, or when waiting for stability
+            // as then there is only one attempt
+            if (times + 1 < retries) {
+                pause(Parameters.getScreenshotRetryDelay());
+            }
         }
         return false;
     }
 
+    /**
+     * Takes screen shots until two consecutive screen shots are identical or
+     * {@link Parameters#getScreenshotStabilityTimeout()} has passed. The
+     * screen shots are compared using block hashes, which is considerably
+     * cheaper than comparing them to the reference.
+     *
+     * @param capture
+     *            takes a single screen shot
+     * @return the last screen shot taken
+     * @throws IOException
+     *             if a screen shot cannot be taken
+     */
+    static BufferedImage getStableScreenshot(ScreenshotCapture capture)
+            throws IOException {
+        long deadline = System.currentTimeMillis()
+                + Parameters.getScreenshotStabilityTimeout();
+        BufferedImage screenshotImage = capture.capture();
+        BlockHashIndex hashes = BlockHashIndex.create(screenshotImage);
+        while (System.currentTimeMillis() < deadline) {
+            BufferedImage nextImage = capture.capture();
+            BlockHashIndex nextHashes = BlockHashIndex.create(nextImage);
+            screenshotImage = nextImage;
+            if (nextHashes.allBlocksEqual(hashes)) {
+                return screenshotImage;
+            }
+            hashes = nextHashes;
+        }
+        getLogger().debug("Screen did not stabilize within "
+                + Parameters.getScreenshotStabilityTimeout() + "ms");
+        return screenshotImage;
+    }
+
+    /**
+     * Takes a single screen shot.
+     */
+    @FunctionalInterface
+    interface ScreenshotCapture {
+        BufferedImage capture() throws IOException;
+    }
+
     private static Logger getLogger() {
         return LoggerFactory.getLogger(ScreenshotComparator.class);
     }
@@ -0,0 +1,153 @@
+/**
+ * Copyright (C) 2000-2026 Vaadin Ltd
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full
+ * license.
+ */
+package com.vaadin.testbench.commands;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Collects scripts to be executed in the browser using a single
+ * {@code executeScript} call.
+ * <p>
+ * The scripts are executed in the order they were added, when the batch is
+ * completed. Each script is run as the body of its own function, with its
+ * arguments available as {@code arguments[0]...arguments[N]}, just like with
+ * {@link org.openqa.selenium.JavascriptExecutor#executeScript(String, Object...)}.
+ * The result of each script is available through the returned future once
+ * the batch has been executed. If a script throws an exception, the scripts
+ * after it are not run and all futures of the batch complete exceptionally.
+ *
+ * @see TestBenchCommandExecutor#batch(java.util.function.Consumer)
+ */
+public class ScriptBatch {
+
+    private record Script(String script, List<Object> args,
+            CompletableFuture<Object> result) {
+    }
+
+    private final List<Script> scripts = new ArrayList<>();
+
+    ScriptBatch() {
+    }
+
+    /**
+     * Adds the given script to the batch.
+     *
+     * @param script
+     *            the script to execute
+     * @param args
+     *            the arguments, available in the script as
+     *            {@code arguments[0]...arguments[N]}
+     * @return a future for the value returned by the script, completed when
+     *         the batch has been executed
+     */
+    public CompletableFuture<Object> executeScript(String script,
+            Object... args) {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        scripts.add(new Script(script, Arrays.asList(args), result));
+        return result;
+    }
+
+    /**
+     * Adds the given script to the batch and converts its result to the given
+     * type. Numbers are converted to the requested number type.
+     *
+     * @param <T>
+     *            the type of the result
+     * @param resultType
+     *            the type of the value returned by the script
+     * @param script
+     *            the script to execute
+     * @param args
+     *            the arguments, available in the script as
+     *            {@code arguments[0]...arguments[N]}
+     * @return a future for the value returned by the script, completed when
+     *         the batch has been executed
+     */
+    public <T> CompletableFuture<T> executeScript(Class<T> resultType,
+            String script, Object... args) {
+        return executeScript(script, args)
+                .thenApply(value -> convert(value, resultType));
+    }
+
+    /**
+     * Gets the number of scripts in the batch.
+     *
+     * @return the number of scripts
+     */
+    public int size() {
+        return scripts.size();
+    }
+
+    /**
+     * Executes the scripts in the batch using the given executor and completes
+     * the futures of the scripts.
+     *
+     * @param executor
+     *            the executor to run the combined script with
+     */
+    void execute(TestBenchCommandExecutor executor) {
+        if (scripts.isEmpty()) {
+            return;
+        }
+        List<Script> batch = new ArrayList<>(scripts);
+        scripts.clear();
+
+        StringBuilder combined = new StringBuilder(
+                "var args = arguments; var results = [];");
+        for (int i = 0; i < batch.size(); i++) {
+            // The line break ends a possible trailing line comment
+            combined.append("results.push((function() {")
+                    .append(batch.get(i).script())
+                    .append("\n}).apply(null, args[").append(i).append("]));");
+        }
+        combined.append("return results;");
+
+        List<?> results;
+        try {
+            results = (List<?>) executor.executeScript(combined.toString(),
+                    batch.stream().map(Script::args).toArray());
+        } catch (RuntimeException e) {
+            batch.forEach(script -> script.result().completeExceptionally(e));
+            throw e;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result().complete(results.get(i));
+        }
+    }
+
+    /**
+     * Discards the scripts in the batch without executing them and completes
+     * their futures exceptionally.
+     *
+     * @param cause
+     *            the reason for discarding the batch
+     */
+    void discard(Throwable cause) {
+        List<Script> batch = new ArrayList<>(scripts);
+        scripts.clear();
+        batch.forEach(script -> script.result().completeExceptionally(cause));
+    }
+
+    private static <T> T convert(Object value, Class<T> type) {
+        if (value instanceof Number && !type.isInstance(value)) {
+            Number number = (Number) value;
+            if (type == Integer.class) {
+                return type.cast(number.intValue());
+            } else if (type == Long.class) {
+                return type.cast(number.longValue());
+            } else if (type == Double.class) {
+                return type.cast(number.doubleValue());
+            }
+        }
+        return type.cast(value);
+    }
+}
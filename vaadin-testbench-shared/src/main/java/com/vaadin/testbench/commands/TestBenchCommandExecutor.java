@@ -13,20 +13,30 @@ import java.io.File;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import org.openqa.selenium.Dimension;
 import org.openqa.selenium.HasCapabilities;
 import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.Point;
+import org.openqa.selenium.ScriptTimeoutException;
 import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WrapsDriver;
 import org.openqa.selenium.remote.HttpCommandExecutor;
 import org.openqa.selenium.remote.RemoteWebDriver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.vaadin.testbench.HasDriver;
+import com.vaadin.testbench.Parameters;
 import com.vaadin.testbench.TestBenchDriverProxy;
 import com.vaadin.testbench.TestBenchElement;
 import com.vaadin.testbench.screenshot.ImageComparison;
@@ -45,8 +55,41 @@ public class TestBenchCommandExecutor implements TestBenchCommands, HasDriver {
     private final ImageComparison imageComparison;
     private final ReferenceNameGenerator referenceNameGenerator;
 
+    /**
+     * The maximum time one asynchronous wait script runs in the browser. Kept
+     * below the default script timeout of WebDriver.
+     */
+    private static final long WAIT_FOR_VAADIN_ASYNC_TIMEOUT = 10000;
+    private static final long WAIT_FOR_VAADIN_ASYNC_INTERVAL = 10;
+
+    /**
+     * Returned by a pinned script reference when the page does not contain
+     * the script, e.g. after the page has been reloaded.
+     */
+    private static final String PINNED_SCRIPT_MISSING = "vaadin-testbench-pinned-script-missing";
+    /**
+     * The maximum number of distinct scripts to keep ids for. When exceeded,
+     * the ids are forgotten and new ids are given to the scripts, so that
+     * scripts generated with varying content do not fill the memory.
+     */
+    static final int MAX_PINNED_SCRIPTS = 256;
+    // The ids of pinned scripts, shared by all sessions
+    private static final Map<String, String> pinnedScriptIds = new ConcurrentHashMap<>();
+    private static final AtomicInteger pinnedScriptCount = new AtomicInteger();
+
     private boolean enableWaitForVaadin = true;
+    // Incremented for each command that may change the page
+    private long interactionEpoch = 0;
+    // The interaction epoch when Vaadin was last seen idle, or -1
+    private long idleEpoch = -1;
+    // The DOM generation reported when Vaadin was last seen idle, or null
+    private String domGeneration;
+    // Values which are valid while the DOM generation does not change
+    private final Map<Object, Object> domGenerationCache = new HashMap<>();
+    // The ids of the pinned scripts defined in the current page
+    private final Set<String> definedPinnedScripts = new HashSet<>();
     private boolean autoScrollIntoView = true;
+    private ScriptBatch batch;
     // @formatter:off
     String WAIT_FOR_VAADIN_SCRIPT =
             "if (document.readyState != 'complete') {"
@@ -65,6 +108,57 @@ public class TestBenchCommandExecutor implements TestBenchCommands, HasDriver {
             + "} else {"
             + "  return true;"
             + "}";
+
+    // Returns a token which changes whenever the DOM of the page changes,
+    // observing the document on the first run. The token includes a random
+    // page id as the counter starts from zero on each page load
+    String DOM_GENERATION_SCRIPT =
+            "var g = window.vaadinTestBenchDomGeneration;"
+            + "if (!g) {"
+            + "  g = { id: Math.random().toString(36).substring(2), count: 0,"
+            + "    observed: new WeakSet(),"
+            + "    options: { subtree: true, childList: true, attributes: true, characterData: true } };"
+            + "  g.observer = new MutationObserver(function() { g.count++; });"
+            + "  g.observer.observe(document, g.options);"
+            + "  window.vaadinTestBenchDomGeneration = g;"
+            + "}"
+            + "if (g.observer.takeRecords().length > 0) {"
+            + "  g.count++;"
+            + "}"
+            + "return g.id + ':' + g.count;";
+
+    // Returns false if Vaadin is busy and the DOM generation otherwise
+    String WAIT_FOR_VAADIN_DOM_GENERATION_SCRIPT =
+            "if (!(function() {" + WAIT_FOR_VAADIN_SCRIPT + "})()) {"
+            + "  return false;"
+            + "}"
+            + DOM_GENERATION_SCRIPT;
+
+    String WAIT_FOR_VAADIN_ASYNC_SCRIPT = getAsyncWaitScript(
+            WAIT_FOR_VAADIN_SCRIPT);
+
+    String WAIT_FOR_VAADIN_DOM_GENERATION_ASYNC_SCRIPT = getAsyncWaitScript(
+            WAIT_FOR_VAADIN_DOM_GENERATION_SCRIPT);
+
+    // Resolves with the result of the given script once it is truthy or when
+    // the time given as the first argument has passed, checking the state
+    // inside the browser
+    private static String getAsyncWaitScript(String isReadyScript) {
+        return "var callback = arguments[arguments.length - 1];"
+                + "var deadline = Date.now() + arguments[0];"
+                + "var isReady = function() {" + isReadyScript + "};"
+                + "var check = function() {"
+                + "  var ready = isReady();"
+                + "  if (ready) {"
+                + "    callback(ready);"
+                + "  } else if (Date.now() >= deadline) {"
+                + "    callback(false);"
+                + "  } else {"
+                + "    setTimeout(check, " + WAIT_FOR_VAADIN_ASYNC_INTERVAL + ");"
+                + "  }"
+                + "};"
+                + "check();";
+    }
     // @formatter:on
 
     // A hook for testing purposes
@@ -85,6 +179,10 @@ public class TestBenchCommandExecutor implements TestBenchCommands, HasDriver {
         InetAddress ia = null;
         try {
             WebDriver realDriver = driver.getWrappedDriver();
+            // A pooled session is wrapped in another driver
+            while (realDriver instanceof WrapsDriver) {
+                realDriver = ((WrapsDriver) realDriver).getWrappedDriver();
+            }
             if (realDriver instanceof RemoteWebDriver) {
                 RemoteWebDriver rwd = (RemoteWebDriver) realDriver;
                 if (rwd.getCommandExecutor() instanceof HttpCommandExecutor) {
@@ -109,31 +207,152 @@ public class TestBenchCommandExecutor implements TestBenchCommands, HasDriver {
 
     /**
      * Block until Vaadin reports it has finished processing server messages.
+     * <p>
+     * The command run after this method may change the page, so the next wait
+     * always checks if Vaadin is idle.
      */
     public void waitForVaadin() {
+        waitForVaadin(false);
+    }
+
+    /**
+     * Block until Vaadin reports it has finished processing server messages,
+     * before running a command that only reads the state of the page.
+     * <p>
+     * If {@link Parameters#isWaitForVaadinSkipRedundant()} is enabled and
+     * Vaadin was idle before the previous read, with no other command run
+     * since, this returns without checking the browser.
+     */
+    public void waitForVaadinBeforeRead() {
+        waitForVaadin(true);
+    }
+
+    /**
+     * Notifies that a command which may change the page, e.g. navigation, was
+     * run without waiting for Vaadin first. The next wait always checks if
+     * Vaadin is idle.
+     */
+    public void markPageChanged() {
+        interactionEpoch++;
+    }
+
+    /**
+     * Gets a token identifying the current state of the DOM of the page. The
+     * token changes whenever the DOM is modified.
+     * <p>
+     * The token is read as part of waiting for Vaadin, when
+     * {@link Parameters#isElementQueryCache()} is enabled. It is only
+     * available if Vaadin was idle during the latest wait and no other
+     * command has been run since.
+     *
+     * @return the DOM generation, or {@code null} if not known
+     */
+    public String getDomGeneration() {
+        if (idleEpoch != interactionEpoch) {
+            return null;
+        }
+        return domGeneration;
+    }
+
+    /**
+     * Gets a cache for values which stay valid as long as the DOM of the page
+     * does not change, e.g. the results of element queries. The cache is
+     * cleared whenever a new DOM generation is seen.
+     * <p>
+     * Call {@link #waitForVaadinBeforeRead()} before using the cache to make
+     * sure the DOM generation is up to date.
+     *
+     * @return the cache, or {@code null} if the DOM generation is not known
+     * @see #getDomGeneration()
+     */
+    public Map<Object, Object> getDomGenerationCache() {
+        if (getDomGeneration() == null) {
+            return null;
+        }
+        return domGenerationCache;
+    }
+
+    private void waitForVaadin(boolean readOnly) {
         if (!enableWaitForVaadin) {
             // wait for vaadin is disabled, just return.
             return;
         }
 
+        boolean idle = Parameters.isWaitForVaadinSkipRedundant()
+                && idleEpoch == interactionEpoch;
+        if (!idle) {
+            idle = waitUntilVaadinIdle();
+        }
+        idleEpoch = idle ? interactionEpoch : -1;
+        if (!readOnly) {
+            interactionEpoch++;
+        }
+    }
+
+    private boolean waitUntilVaadinIdle() {
         long timeoutTime = System.currentTimeMillis() + 40000;
-        Boolean finished = false;
+        boolean async = Parameters.isWaitForVaadinAsync();
+        boolean trackDom = Parameters.isElementQueryCache();
+        String previousDomGeneration = domGeneration;
+        domGeneration = null;
+        boolean finished = false;
         while (System.currentTimeMillis() < timeoutTime && !finished) {
             if (waitForVaadinLoopHook != null) {
                 waitForVaadinLoopHook.run();
             }
             // Must use the wrapped driver here to avoid calling waitForVaadin
             // again
-            finished = (Boolean) ((JavascriptExecutor) getDriver()
-                    .getWrappedDriver()).executeScript(WAIT_FOR_VAADIN_SCRIPT);
-            if (finished == null) {
+            JavascriptExecutor executor = (JavascriptExecutor) getDriver()
+                    .getWrappedDriver();
+            Object result;
+            if (async) {
+                result = waitForVaadinAsync(executor,
+                        trackDom ? WAIT_FOR_VAADIN_DOM_GENERATION_ASYNC_SCRIPT
+                                : WAIT_FOR_VAADIN_ASYNC_SCRIPT,
+                        Math.min(timeoutTime - System.currentTimeMillis(),
+                                WAIT_FOR_VAADIN_ASYNC_TIMEOUT));
+            } else {
+                result = executePinnedScript(executor,
+                        trackDom ? WAIT_FOR_VAADIN_DOM_GENERATION_SCRIPT
+                                : WAIT_FOR_VAADIN_SCRIPT);
+            }
+            if (result == null) {
                 // This should never happen but according to
                 // https://dev.vaadin.com/ticket/19703, it happens
                 getLogger().debug(
                         "waitForVaadin returned null, this should never happen");
-                finished = false;
+            } else if (result instanceof String generation) {
+                domGeneration = generation;
+                finished = true;
+            } else {
+                finished = (Boolean) result;
             }
         }
+        if (domGeneration == null
+                || !domGeneration.equals(previousDomGeneration)) {
+            domGenerationCache.clear();
+        }
+        return finished;
+    }
+
+    /**
+     * Waits for Vaadin using one asynchronous script which checks the state
+     * in the browser until Vaadin is idle or the given time has passed.
+     *
+     * @return {@code true} or the DOM generation if Vaadin is idle,
+     *         {@code false} or {@code null} if the script completed before
+     *         that
+     */
+    private Object waitForVaadinAsync(JavascriptExecutor executor,
+            String script, long timeout) {
+        try {
+            return executor.executeAsyncScript(script, Math.max(timeout, 0));
+        } catch (ScriptTimeoutException e) {
+            // The script timeout of the driver is shorter than the time the
+            // script was allowed to run
+            getLogger().debug("Asynchronous waitForVaadin timed out", e);
+            return false;
+        }
     }
 
     @Override
@@ -233,6 +452,7 @@ public class TestBenchCommandExecutor implements TestBenchCommands, HasDriver {
     @Override
     public void disableWaitForVaadin() {
         enableWaitForVaadin = false;
+        idleEpoch = -1;
     }
 
     @Override
@@ -260,6 +480,158 @@ public class TestBenchCommandExecutor implements TestBenchCommands, HasDriver {
         return getDriver().executeScript(script, args);
     }
 
+    /**
+     * Executes the given script like {@link #executeScript(String, Object...)}
+     * but pins it in the browser if {@link Parameters#isScriptPinning()} is
+     * enabled.
+     *
+     * @param script
+     *            the script to execute
+     * @param args
+     *            the arguments, available in the script as
+     *            {@code arguments[0]...arguments[N]}
+     * @return the value returned by the script
+     * @see #executePinnedScript(JavascriptExecutor, String, Object...)
+     */
+    public Object executePinnedScript(String script, Object... args) {
+        return executePinnedScript(getDriver(), script, args);
+    }
+
+    /**
+     * Executes the given script using the given executor, pinning the script
+     * in the browser if {@link Parameters#isScriptPinning()} is enabled.
+     * <p>
+     * The source of a pinned script is only sent the first time it is used in
+     * a page, when it is stored as a function in the page. Later executions
+     * only send a reference to the function and the arguments. If the page no
+     * longer contains the function, e.g. because it was reloaded, the script
+     * is sent again.
+     * <p>
+     * Pinning is useful for scripts which are run often, with the variable
+     * parts passed as arguments.
+     *
+     * @param executor
+     *            the executor to run the script with
+     * @param script
+     *            the script to execute
+     * @param args
+     *            the arguments, available in the script as
+     *            {@code arguments[0]...arguments[N]}
+     * @return the value returned by the script
+     */
+    public Object executePinnedScript(JavascriptExecutor executor,
+            String script, Object... args) {
+        if (!Parameters.isScriptPinning()) {
+            return executor.executeScript(script, args);
+        }
+        if (pinnedScriptIds.size() >= MAX_PINNED_SCRIPTS
+                && !pinnedScriptIds.containsKey(script)) {
+            // The ids keep increasing, so scripts already defined in a page
+            // are never confused with the scripts given new ids
+            pinnedScriptIds.clear();
+        }
+        String id = pinnedScriptIds.computeIfAbsent(script,
+                source -> "s" + pinnedScriptCount.incrementAndGet());
+        if (definedPinnedScripts.contains(id)) {
+            Object result = executor
+                    .executeScript("var s = window.vaadinTestBenchScripts;"
+                            + "return s && s['" + id + "'] ? s['" + id
+                            + "'].apply(this, arguments) : '"
+                            + PINNED_SCRIPT_MISSING + "';", args);
+            if (!PINNED_SCRIPT_MISSING.equals(result)) {
+                return result;
+            }
+        }
+        // The line break ends a possible trailing line comment
+        Object result = executor.executeScript(
+                "var s = window.vaadinTestBenchScripts = window.vaadinTestBenchScripts || {};"
+                        + "s['" + id + "'] = function() {" + script + "\n};"
+                        + "return s['" + id + "'].apply(this, arguments);",
+                args);
+        definedPinnedScripts.add(id);
+        return result;
+    }
+
+    /**
+     * Gets the number of scripts which currently have a pinned script id.
+     *
+     * @return the number of pinned script ids
+     */
+    static int getPinnedScriptIdCount() {
+        return pinnedScriptIds.size();
+    }
+
+    /**
+     * Notifies that the browser may have loaded a new page, e.g. by
+     * navigating or switching to another window or frame. Pinned scripts are
+     * sent again with their next execution.
+     */
+    public void forgetPinnedScripts() {
+        definedPinnedScripts.clear();
+    }
+
+    /**
+     * Executes the given script, which does not return a value, or adds it to
+     * the current batch if {@link #batch(Consumer)} is being run.
+     *
+     * @param script
+     *            the script to execute
+     * @param args
+     *            the arguments, available in the script as
+     *            {@code arguments[0]...arguments[N]}
+     */
+    public void executeOrBatchScript(String script, Object... args) {
+        if (batch != null) {
+            batch.executeScript(script, args);
+        } else {
+            executeScript(script, args);
+        }
+    }
+
+    /**
+     * Executes the scripts added in the given callback using a single
+     * {@code executeScript} call, and thus waits for Vaadin only once.
+     * <p>
+     * Besides the scripts added to the batch, the {@code setProperty},
+     * {@code dispatchEvent} and {@code scrollIntoView} methods of elements
+     * called in the callback are added to the batch instead of being executed
+     * right away. Other commands, e.g. reading properties, are executed
+     * immediately as usual, before the batch. Calling this method in the
+     * callback adds to the current batch.
+     * <p>
+     * For example:
+     *
+     * <pre>
+     * getCommandExecutor().batch(batch -&gt; {
+     *     field.setProperty("value", "foo");
+     *     field.dispatchEvent("change");
+     *     invalid = batch.executeScript(Boolean.class,
+     *             "return arguments[0].invalid", field);
+     * });
+     * </pre>
+     *
+     * @param commands
+     *            a callback adding scripts to the batch
+     */
+    public void batch(Consumer<ScriptBatch> commands) {
+        if (batch != null) {
+            commands.accept(batch);
+            return;
+        }
+        ScriptBatch scriptBatch = new ScriptBatch();
+        batch = scriptBatch;
+        try {
+            commands.accept(scriptBatch);
+        } catch (RuntimeException | Error e) {
+            // Futures already handed out would otherwise never complete
+            scriptBatch.discard(e);
+            throw e;
+        } finally {
+            batch = null;
+        }
+        scriptBatch.execute(this);
+    }
+
     protected Object executeAsyncScript(String script, Object... args) {
         return getDriver().executeAsyncScript(script, args);
     }
@@ -329,7 +701,7 @@ public class TestBenchCommandExecutor implements TestBenchCommands, HasDriver {
         // also check in IE combat mode etc + detect IE9 for extra borders in
         // combat mode (although vaadin always in std mode, function may be
         // needed earlier)
-        int height = ((Number) executeScript(
+        int height = ((Number) executePinnedScript(
                 "function f() { if(typeof window.innerHeight != 'undefined') { return window.innerHeight; } if(document.documentElement && document.documentElement.offsetHeight) { return document.documentElement.offsetHeight; } w = document.body.clientHeight; if(navigator.userAgent.indexOf('Trident/5') != -1 && document.documentMode < 9) { w += 4; } return w;} return f();"))
                 .intValue();
         return height;
@@ -339,7 +711,7 @@ public class TestBenchCommandExecutor implements TestBenchCommands, HasDriver {
         // also check in IE combat mode etc + detect IE9 for extra borders in
         // combat mode (although vaadin always in std mode, function may be
         // needed earlier)
-        int width = ((Number) executeScript(
+        int width = ((Number) executePinnedScript(
                 "function f() { if(typeof window.innerWidth != 'undefined') { return window.innerWidth; } if(document.documentElement && document.documentElement.offsetWidth) { return document.documentElement.offsetWidth; } w = document.body.clientWidth; if(navigator.userAgent.indexOf('Trident/5') != -1 && document.documentMode < 9) { w += 4; } return w;} return f();"))
                 .intValue();
         return width;
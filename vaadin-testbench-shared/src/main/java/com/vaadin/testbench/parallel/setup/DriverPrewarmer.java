@@ -0,0 +1,184 @@
+/**
+ * Copyright (C) 2000-2026 Vaadin Ltd
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full
+ * license.
+ */
+package com.vaadin.testbench.parallel.setup;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vaadin.testbench.Parameters;
+
+/**
+ * Starts drivers in the background, ahead of the tests which use them.
+ * <p>
+ * Each time a test takes a driver, new drivers with the same key are started
+ * in the background until {@link Parameters#getDriverPrewarmCount()} drivers
+ * are starting or waiting for that key. The next test taking a driver with
+ * the same key gets a driver started in the background, waiting for it to
+ * start if needed.
+ * <p>
+ * Drivers which have not been taken are quit when {@link #close()} is called,
+ * at the latest when the JVM shuts down.
+ */
+public class DriverPrewarmer implements AutoCloseable {
+
+    private static final DriverPrewarmer INSTANCE = new DriverPrewarmer();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(INSTANCE::close,
+                "testbench-driver-prewarmer-cleanup"));
+    }
+
+    private static Logger getLogger() {
+        return LoggerFactory.getLogger(DriverPrewarmer.class);
+    }
+
+    private final Map<Object, Deque<Future<WebDriver>>> prewarmed = new HashMap<>();
+
+    private final ExecutorService executor = Executors
+            .newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable,
+                        "testbench-driver-prewarmer");
+                thread.setDaemon(true);
+                return thread;
+            });
+    private boolean closed;
+
+    DriverPrewarmer() {
+    }
+
+    /**
+     * Gets the prewarmer shared by all tests.
+     *
+     * @return the shared prewarmer
+     */
+    public static DriverPrewarmer getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Gets a driver started in the background for the given key, or starts a
+     * new driver using the given factory if there is none. Also starts new
+     * drivers for the following tests using the same key in the background.
+     *
+     * @param key
+     *            the key identifying drivers which can be used
+     *            interchangeably, e.g. based on the capabilities and the
+     *            address of the hub
+     * @param factory
+     *            the factory starting a new driver
+     * @return a started driver
+     * @throws Exception
+     *             if the factory fails to start a driver
+     */
+    public WebDriver take(Object key, Callable<WebDriver> factory)
+            throws Exception {
+        Future<WebDriver> future;
+        synchronized (prewarmed) {
+            Deque<Future<WebDriver>> futures = prewarmed.computeIfAbsent(key,
+                    k -> new ArrayDeque<>());
+            future = futures.poll();
+            while (!closed && futures.size() < Parameters
+                    .getDriverPrewarmCount()) {
+                futures.add(executor.submit(factory));
+            }
+        }
+
+        if (future != null) {
+            WebDriver driver = getStartedDriver(future);
+            if (driver != null) {
+                return driver;
+            }
+        }
+        return factory.call();
+    }
+
+    /**
+     * Quits all drivers started in the background which have not been taken.
+     * Drivers which are still starting are waited for.
+     */
+    @Override
+    public void close() {
+        List<Future<WebDriver>> futures = new ArrayList<>();
+        synchronized (prewarmed) {
+            closed = true;
+            prewarmed.values().forEach(futures::addAll);
+            prewarmed.clear();
+        }
+        for (Future<WebDriver> future : futures) {
+            WebDriver driver = getStartedDriver(future);
+            if (driver != null) {
+                quit(driver);
+            }
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Gets the number of drivers started in the background which have not
+     * been taken.
+     *
+     * @return the number of drivers starting or waiting
+     */
+    public int getPrewarmedCount() {
+        synchronized (prewarmed) {
+            return prewarmed.values().stream().mapToInt(Deque::size).sum();
+        }
+    }
+
+    /**
+     * Waits for the driver to start and checks that the session is still
+     * available.
+     *
+     * @return the driver, or {@code null} if it failed to start or is no
+     *         longer available
+     */
+    private static WebDriver getStartedDriver(Future<WebDriver> future) {
+        WebDriver driver;
+        try {
+            driver = future.get();
+        } catch (ExecutionException e) {
+            getLogger().debug("Unable to start driver in the background",
+                    e.getCause());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        try {
+            driver.getWindowHandle();
+            return driver;
+        } catch (Exception e) {
+            getLogger().debug("Driver started in the background has expired",
+                    e);
+            quit(driver);
+            return null;
+        }
+    }
+
+    private static void quit(WebDriver driver) {
+        try {
+            driver.quit();
+        } catch (Exception e) {
+            getLogger().debug("Unable to quit driver", e);
+        }
+    }
+}
@@ -0,0 +1,344 @@
+/**
+ * Copyright (C) 2000-2026 Vaadin Ltd
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full
+ * license.
+ */
+package com.vaadin.testbench.parallel.setup;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.Platform;
+import org.openqa.selenium.json.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vaadin.testbench.Parameters;
+
+/**
+ * Lets tests request a remote session only when the hub has a free slot for
+ * the requested browser.
+ * <p>
+ * The free slots are read from the {@code /status} endpoint of the hub and
+ * cached for a short while. A slot is reserved when a test is admitted, until
+ * the session has been created and shows up in the status of the hub, so that
+ * tests running in parallel do not all request the same free slot. If the
+ * status is not available, or no node of the hub supports the requested
+ * browser, tests are admitted without waiting.
+ *
+ * @see Parameters#setGridAdmissionControl(boolean)
+ */
+public class GridAdmissionController {
+
+    private static final GridAdmissionController INSTANCE = new GridAdmissionController(
+            Duration.ofSeconds(1), Duration.ofMinutes(5));
+
+    private static Logger getLogger() {
+        return LoggerFactory.getLogger(GridAdmissionController.class);
+    }
+
+    /**
+     * The free slots of a hub at the time the status was read, minus the
+     * slots reserved after that.
+     */
+    private static class HubStatus {
+        private final long readAt = System.nanoTime();
+        private final List<Node> nodes = new ArrayList<>();
+        private final boolean available;
+
+        private HubStatus(boolean available) {
+            this.available = available;
+        }
+    }
+
+    private static class Node {
+        private final List<Map<String, Object>> stereotypes = new ArrayList<>();
+        private final List<Map<String, Object>> freeStereotypes = new ArrayList<>();
+        private int freeSessions;
+    }
+
+    private final Duration pollInterval;
+    private final Duration maxWait;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10)).build();
+    private final Map<String, HubStatus> statuses = new HashMap<>();
+    private final Map<String, List<Capabilities>> reservations = new HashMap<>();
+    private final Map<String, CompletableFuture<Void>> pendingReads = new HashMap<>();
+    // Not a monitor, as tests may run on virtual threads
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Creates a controller.
+     *
+     * @param pollInterval
+     *            how long the status of a hub is cached
+     * @param maxWait
+     *            how long to wait for a free slot before requesting a session
+     *            anyway
+     */
+    GridAdmissionController(Duration pollInterval, Duration maxWait) {
+        this.pollInterval = pollInterval;
+        this.maxWait = maxWait;
+    }
+
+    /**
+     * Gets the controller shared by all tests.
+     *
+     * @return the shared controller
+     */
+    public static GridAdmissionController getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Waits until the hub has a free slot matching the given capabilities and
+     * reserves it. A reserved slot must be released using
+     * {@link #releaseSlot(String, Capabilities)} once the session has been
+     * requested.
+     *
+     * @param hubURL
+     *            the URL of the hub
+     * @param capabilities
+     *            the capabilities of the session to request
+     * @return {@code true} if a free slot was reserved, {@code false} if the
+     *         status of the hub is not available, the hub has no slots for
+     *         the browser, or no slot became free in time
+     * @throws InterruptedException
+     *             if interrupted while waiting for a free slot
+     */
+    public boolean awaitFreeSlot(String hubURL, Capabilities capabilities)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + maxWait.toNanos();
+        while (true) {
+            refreshStatus(hubURL);
+            lock.lock();
+            try {
+                HubStatus status = statuses.get(hubURL);
+                if (!status.available || !hasSlot(status, capabilities)) {
+                    return false;
+                }
+                if (reserveSlot(status, capabilities)) {
+                    reservations.computeIfAbsent(hubURL, k -> new ArrayList<>())
+                            .add(capabilities);
+                    return true;
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                getLogger().warn(
+                        "No free slot for {} on {} within {}, requesting a session anyway",
+                        capabilities.getBrowserName(), hubURL, maxWait);
+                return false;
+            }
+            Thread.sleep(pollInterval.toMillis());
+        }
+    }
+
+    /**
+     * Releases a slot reserved by {@link #awaitFreeSlot(String, Capabilities)}
+     * after the session has been created, or has failed to be created.
+     *
+     * @param hubURL
+     *            the URL of the hub
+     * @param capabilities
+     *            the capabilities the slot was reserved with
+     */
+    public void releaseSlot(String hubURL, Capabilities capabilities) {
+        lock.lock();
+        try {
+            List<Capabilities> reserved = reservations.get(hubURL);
+            if (reserved != null) {
+                reserved.remove(capabilities);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads the status of the hub again if the cached status is older than the
+     * poll interval. The status is read without holding the lock, so that
+     * other tests can reserve and release slots meanwhile. Only one status
+     * request per hub is made at a time, other tests wait for its result.
+     */
+    private void refreshStatus(String hubURL) {
+        CompletableFuture<Void> pending;
+        boolean read = false;
+        lock.lock();
+        try {
+            HubStatus status = statuses.get(hubURL);
+            if (status != null && System.nanoTime()
+                    - status.readAt < pollInterval.toNanos()) {
+                return;
+            }
+            pending = pendingReads.get(hubURL);
+            if (pending == null) {
+                pending = new CompletableFuture<>();
+                pendingReads.put(hubURL, pending);
+                read = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (!read) {
+            pending.join();
+            return;
+        }
+        HubStatus status = readStatus(hubURL);
+        lock.lock();
+        try {
+            // Slots reserved for sessions which are still being created are
+            // not yet shown as used by the hub
+            for (Capabilities reserved : reservations.getOrDefault(hubURL,
+                    List.of())) {
+                reserveSlot(status, reserved);
+            }
+            statuses.put(hubURL, status);
+            pendingReads.remove(hubURL);
+        } finally {
+            lock.unlock();
+        }
+        pending.complete(null);
+    }
+
+    private HubStatus readStatus(String hubURL) {
+        String statusURL = hubURL.replaceAll("/+$", "") + "/status";
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(statusURL))
+                    .timeout(Duration.ofSeconds(10)).GET().build();
+            HttpResponse<String> response = httpClient.send(request,
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                getLogger().debug("Unable to read hub status from {}: HTTP {}",
+                        statusURL, response.statusCode());
+                return new HubStatus(false);
+            }
+            return parseStatus(response.body());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new HubStatus(false);
+        } catch (Exception e) {
+            getLogger().debug("Unable to read hub status from {}", statusURL,
+                    e);
+            return new HubStatus(false);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static HubStatus parseStatus(String json) {
+        Map<String, Object> value = (Map<String, Object>) new Json()
+                .<Map<String, Object>> toType(json, Json.MAP_TYPE)
+                .get("value");
+        Object nodes = value == null ? null : value.get("nodes");
+        if (!(nodes instanceof List)) {
+            // Not a Selenium Grid 4 status
+            return new HubStatus(false);
+        }
+        HubStatus status = new HubStatus(true);
+        List<Map<String, Object>> nodeStatuses = (List<Map<String, Object>>) nodes;
+        for (Map<String, Object> nodeStatus : nodeStatuses) {
+            if (!"UP".equals(nodeStatus.get("availability"))) {
+                continue;
+            }
+            Node node = new Node();
+            int busySessions = 0;
+            List<Map<String, Object>> slots = (List<Map<String, Object>>) nodeStatus
+                    .getOrDefault("slots", List.of());
+            for (Map<String, Object> slot : slots) {
+                Map<String, Object> stereotype = (Map<String, Object>) slot
+                        .getOrDefault("stereotype", Map.of());
+                node.stereotypes.add(stereotype);
+                if (slot.get("session") == null) {
+                    node.freeStereotypes.add(stereotype);
+                } else {
+                    busySessions++;
+                }
+            }
+            Object maxSessions = nodeStatus.get("maxSessions");
+            node.freeSessions = maxSessions instanceof Number number
+                    ? number.intValue() - busySessions
+                    : node.freeStereotypes.size();
+            status.nodes.add(node);
+        }
+        return status;
+    }
+
+    private static boolean hasSlot(HubStatus status,
+            Capabilities capabilities) {
+        return status.nodes.stream().flatMap(node -> node.stereotypes.stream())
+                .anyMatch(stereotype -> matches(stereotype, capabilities));
+    }
+
+    private static boolean reserveSlot(HubStatus status,
+            Capabilities capabilities) {
+        for (Node node : status.nodes) {
+            if (node.freeSessions <= 0) {
+                continue;
+            }
+            Iterator<Map<String, Object>> free = node.freeStereotypes
+                    .iterator();
+            while (free.hasNext()) {
+                if (matches(free.next(), capabilities)) {
+                    free.remove();
+                    node.freeSessions--;
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean matches(Map<String, Object> stereotype,
+            Capabilities capabilities) {
+        String browserName = capabilities.getBrowserName();
+        if (browserName != null && !browserName.isEmpty()
+                && !browserName.equalsIgnoreCase(
+                        String.valueOf(stereotype.get("browserName")))) {
+            return false;
+        }
+        String version = capabilities.getBrowserVersion();
+        Object slotVersion = stereotype.get("browserVersion");
+        if (version != null && !version.isEmpty() && slotVersion != null
+                && !matchesVersion(String.valueOf(slotVersion), version)) {
+            return false;
+        }
+        Platform platform = capabilities.getPlatformName();
+        Object slotPlatform = stereotype.get("platformName");
+        if (platform != null && platform != Platform.ANY
+                && slotPlatform != null) {
+            try {
+                return Platform.fromString(String.valueOf(slotPlatform))
+                        .is(platform);
+            } catch (RuntimeException e) {
+                // Unknown platform name, let the hub decide
+                return true;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the version of a slot is the requested version, or a more
+     * specific version of it, e.g. {@code 120.0.1} for {@code 120}, but not
+     * {@code 120} for {@code 12}.
+     */
+    private static boolean matchesVersion(String slotVersion, String version) {
+        return slotVersion.equals(version)
+                || slotVersion.startsWith(version + ".");
+    }
+}
@@ -30,6 +30,8 @@ public class RemoteDriver {
 
     /**
      * Creates a {@link WebDriver} instance used for running the test remotely.
+     * If {@link Parameters#isGridAdmissionControl()} is enabled, waits until
+     * the hub has a free slot for the browser before requesting the session.
      *
      * @param hubURL
      *            the URL of the hub
@@ -42,6 +44,9 @@ public class RemoteDriver {
     public WebDriver createDriver(String hubURL,
             DesiredCapabilities capabilities) throws Exception {
         for (int i = 1; i <= BROWSER_INIT_ATTEMPTS; i++) {
+            boolean slotReserved = isAdmissionControlled()
+                    && GridAdmissionController.getInstance()
+                            .awaitFreeSlot(hubURL, capabilities);
             try {
                 ClientConfig config = ClientConfig.defaultConfig()
                         .readTimeout(
@@ -71,6 +76,11 @@ public class RemoteDriver {
                                 i, BROWSER_INIT_ATTEMPTS, testInfo);
                     }
                 }
+            } finally {
+                if (slotReserved) {
+                    GridAdmissionController.getInstance().releaseSlot(hubURL,
+                            capabilities);
+                }
             }
         }
 
@@ -78,6 +88,12 @@ public class RemoteDriver {
         return null;
     }
 
+    private boolean isAdmissionControlled() {
+        // The capacity of Sauce Labs is not reported by a status endpoint
+        return Parameters.isGridAdmissionControl()
+                && !SauceLabsIntegration.isConfiguredForSauceLabs();
+    }
+
     private Logger getLogger() {
         return LoggerFactory.getLogger(getClass());
     }
@@ -0,0 +1,247 @@
+/**
+ * Copyright (C) 2000-2026 Vaadin Ltd
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full
+ * license.
+ */
+package com.vaadin.testbench.screenshot;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vaadin.testbench.Parameters;
+
+/**
+ * Writes error screenshots and diff reports. If
+ * {@link Parameters#isScreenshotWritesAsync()} is enabled the artifacts are
+ * written on background threads, otherwise they are written immediately on the
+ * calling thread.
+ * <p>
+ * The number of pending writes is bounded. When the queue is full, the calling
+ * thread writes the artifact itself, which slows down tests that produce
+ * artifacts faster than they can be encoded. Pending writes are completed by
+ * {@link #flush()} and when the JVM shuts down.
+ */
+public class ArtifactWriter {
+
+    private static final int QUEUE_SIZE = 16;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 60_000;
+
+    // Not a monitor, so that tests running on virtual threads do not pin
+    // their carrier thread while waiting in flush()
+    private static final ReentrantLock lock = new ReentrantLock();
+    private static final Condition writesCompleted = lock.newCondition();
+    private static int pending = 0;
+    private static ThreadPoolExecutor executor;
+
+    /**
+     * Writes an artifact to disk.
+     */
+    @FunctionalInterface
+    public interface Artifact {
+        /**
+         * Writes the artifact.
+         *
+         * @throws IOException
+         *             if the artifact cannot be written
+         */
+        void write() throws IOException;
+    }
+
+    private static Logger getLogger() {
+        return LoggerFactory.getLogger(ArtifactWriter.class);
+    }
+
+    /**
+     * Writes the given artifact, either immediately or on a background thread
+     * depending on {@link Parameters#isScreenshotWritesAsync()}. Any data used
+     * by the artifact must not be modified after calling this method.
+     *
+     * @param description
+     *            a description of the artifact, used when logging errors
+     * @param artifact
+     *            the artifact to write
+     * @throws IOException
+     *             if the artifact is written immediately and writing fails.
+     *             Errors in asynchronous writes are logged.
+     */
+    public static void write(String description, Artifact artifact)
+            throws IOException {
+        if (!Parameters.isScreenshotWritesAsync()) {
+            artifact.write();
+            return;
+        }
+
+        lock.lock();
+        try {
+            pending++;
+        } finally {
+            lock.unlock();
+        }
+        Runnable task = () -> {
+            try {
+                artifact.write();
+            } catch (IOException | RuntimeException e) {
+                getLogger().error("Error writing " + description, e);
+            } finally {
+                lock.lock();
+                try {
+                    pending--;
+                    writesCompleted.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        };
+        // When the queue is full, the task runs on this thread
+        getExecutor().execute(task);
+    }
+
+    /**
+     * Writes the image as a PNG file, either immediately or on a background
+     * thread depending on {@link Parameters#isScreenshotWritesAsync()}. The
+     * image must not be modified after calling this method.
+     *
+     * @param image
+     *            the image to write
+     * @param file
+     *            the target file
+     * @throws IOException
+     *             if the image is written immediately and writing fails
+     */
+    public static void writePng(BufferedImage image, File file)
+            throws IOException {
+        write(file.getPath(), () -> {
+            try (OutputStream out = new BufferedOutputStream(
+                    new FileOutputStream(file))) {
+                writePng(image, out);
+            }
+        });
+    }
+
+    /**
+     * Encodes the image as a PNG to the given stream using the compression
+     * level of {@link Parameters#getScreenshotPngCompressionLevel()}. The
+     * stream is not closed.
+     *
+     * @param image
+     *            the image to encode
+     * @param out
+     *            the stream to write to
+     * @throws IOException
+     *             if writing fails
+     */
+    public static void writePng(BufferedImage image, OutputStream out)
+            throws IOException {
+        int compressionLevel = Parameters.getScreenshotPngCompressionLevel();
+        Iterator<ImageWriter> writers = ImageIO
+                .getImageWritersByFormatName("png");
+        if (compressionLevel < 0 || !writers.hasNext()) {
+            ImageIO.write(image, "png", out);
+            return;
+        }
+
+        ImageWriter writer = writers.next();
+        try (ImageOutputStream imageOut = ImageIO
+                .createImageOutputStream(out)) {
+            writer.setOutput(imageOut);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                // The PNG writer uses deflate level 9 - round(9 * quality)
+                param.setCompressionQuality(
+                        (9 - Math.min(compressionLevel, 9)) / 9f);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Waits until all pending asynchronous writes have completed.
+     */
+    public static void flush() {
+        flush(0);
+    }
+
+    private static boolean flush(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        lock.lock();
+        try {
+            while (pending > 0) {
+                if (timeoutMillis == 0) {
+                    writesCompleted.await();
+                    continue;
+                }
+                long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) {
+                    return false;
+                }
+                writesCompleted.await(wait, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+        return true;
+    }
+
+    private static ThreadPoolExecutor getExecutor() {
+        lock.lock();
+        try {
+            if (executor == null) {
+                int threads = Math.max(1, Math.min(4,
+                        Runtime.getRuntime().availableProcessors() / 2));
+                AtomicInteger threadNumber = new AtomicInteger();
+                executor = new ThreadPoolExecutor(threads, threads, 30,
+                        TimeUnit.SECONDS, new ArrayBlockingQueue<>(QUEUE_SIZE),
+                        runnable -> {
+                            Thread thread = new Thread(runnable,
+                                    "testbench-artifact-writer-"
+                                            + threadNumber.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }, new ThreadPoolExecutor.CallerRunsPolicy());
+                executor.allowCoreThreadTimeOut(true);
+                Runtime.getRuntime().addShutdownHook(
+                        new Thread(ArtifactWriter::shutdown,
+                                "testbench-artifact-writer-shutdown"));
+            }
+            return executor;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void shutdown() {
+        if (!flush(SHUTDOWN_TIMEOUT_MILLIS)) {
+            getLogger().warn("Not all error screenshots were written within "
+                    + SHUTDOWN_TIMEOUT_MILLIS + "ms");
+        }
+    }
+}
@@ -0,0 +1,274 @@
+/**
+ * Copyright (C) 2000-2026 Vaadin Ltd
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full
+ * license.
+ */
+package com.vaadin.testbench.screenshot;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vaadin.testbench.screenshot.ImageUtil.ImageProperties;
+
+/**
+ * The dimensions of an image and a 64-bit hash of each of its 16x16 blocks.
+ * <p>
+ * The index of a reference image is stored in a sidecar file next to the
+ * reference (e.g. {@code foo.png.blockhash}), so that a screenshot which is
+ * equal to the reference can be detected without decoding the reference, and
+ * only the blocks with differing hashes need to be compared otherwise.
+ * <p>
+ * Blocks are hashed from the same ARGB values that
+ * {@link ImageUtil#getBlock(ImageProperties, int, int, int[], int[])} returns,
+ * so blocks with equal hashes are considered equal by {@link ImageComparison}.
+ */
+public class BlockHashIndex {
+
+    /**
+     * The suffix added to the reference image file name for the sidecar file.
+     */
+    public static final String SIDECAR_SUFFIX = ".blockhash";
+
+    private static final int MAGIC = 0x54424248; // TBBH
+    private static final int VERSION = 1;
+
+    private final int width;
+    private final int height;
+    private final int xBlocks;
+    private final int yBlocks;
+    private final long[] hashes;
+
+    private BlockHashIndex(int width, int height, long[] hashes) {
+        this.width = width;
+        this.height = height;
+        this.xBlocks = ImageComparisonUtil.getNrBlocks(width);
+        this.yBlocks = ImageComparisonUtil.getNrBlocks(height);
+        this.hashes = hashes;
+    }
+
+    private static Logger getLogger() {
+        return LoggerFactory.getLogger(BlockHashIndex.class);
+    }
+
+    /**
+     * Hashes all 16x16 blocks of the given image.
+     *
+     * @param image
+     *            the image to hash
+     * @return the block hash index of the image
+     */
+    public static BlockHashIndex create(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int xBlocks = ImageComparisonUtil.getNrBlocks(width);
+        int yBlocks = ImageComparisonUtil.getNrBlocks(height);
+
+        ImageProperties properties = ImageUtil.getImageProperties(image);
+        int[] block = new int[16 * 16];
+        int[] sample = ImageUtil.createSampleBuffer();
+        long[] hashes = new long[xBlocks * yBlocks];
+        for (int y = 0; y < yBlocks; y++) {
+            for (int x = 0; x < xBlocks; x++) {
+                ImageUtil.getBlock(properties, x * 16, y * 16, block, sample);
+                hashes[y * xBlocks + x] = hash(block);
+            }
+        }
+        return new BlockHashIndex(width, height, hashes);
+    }
+
+    private static long hash(int[] block) {
+        // 64-bit FNV-1a over the ARGB values
+        long hash = 0xcbf29ce484222325L;
+        for (int pixel : block) {
+            hash ^= pixel;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * @return the width of the image in pixels
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return the height of the image in pixels
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Checks if all blocks of the given image have the same hash as the blocks
+     * of this image.
+     *
+     * @param other
+     *            the block hash index of another image
+     * @return {@code true} if the images have the same size and all block
+     *         hashes are equal
+     */
+    public boolean allBlocksEqual(BlockHashIndex other) {
+        return width == other.width && height == other.height
+                && Arrays.equals(hashes, other.hashes);
+    }
+
+    /**
+     * Finds the blocks that have the same hash in this image and the given
+     * image. The result is indexed in the same way as the {@code falseBlocks}
+     * of {@link ImageComparison}, i.e. {@code [x][y]}.
+     *
+     * @param other
+     *            the block hash index of another image
+     * @return the blocks with equal hashes, or {@code null} if the images are
+     *         not of the same size
+     */
+    public boolean[][] getEqualBlocks(BlockHashIndex other) {
+        if (width != other.width || height != other.height) {
+            return null;
+        }
+        boolean[][] equalBlocks = new boolean[xBlocks][yBlocks];
+        for (int y = 0; y < yBlocks; y++) {
+            for (int x = 0; x < xBlocks; x++) {
+                int i = y * xBlocks + x;
+                equalBlocks[x][y] = hashes[i] == other.hashes[i];
+            }
+        }
+        return equalBlocks;
+    }
+
+    /**
+     * Returns the sidecar file used for the given reference image file.
+     *
+     * @param referenceFile
+     *            the reference image file
+     * @return the sidecar file
+     */
+    public static File getSidecarFile(File referenceFile) {
+        return new File(referenceFile.getPath() + SIDECAR_SUFFIX);
+    }
+
+    /**
+     * Reads the sidecar file of the given reference image. The sidecar is only
+     * used if it was written for the current contents of the reference, as
+     * determined by the size and last modified time of the reference file.
+     *
+     * @param referenceFile
+     *            the reference image file
+     * @return the block hash index of the reference image, or {@code null} if
+     *         there is no up to date sidecar file
+     */
+    public static BlockHashIndex readSidecar(File referenceFile) {
+        File sidecar = getSidecarFile(referenceFile);
+        if (!sidecar.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(sidecar.toPath())))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            if (in.readLong() != referenceFile.length()
+                    || in.readLong() != referenceFile.lastModified()) {
+                return null;
+            }
+            int width = in.readInt();
+            int height = in.readInt();
+            int blocks = ImageComparisonUtil.getNrBlocks(width)
+                    * ImageComparisonUtil.getNrBlocks(height);
+            long[] hashes = new long[blocks];
+            for (int i = 0; i < blocks; i++) {
+                hashes[i] = in.readLong();
+            }
+            return new BlockHashIndex(width, height, hashes);
+        } catch (IOException e) {
+            getLogger().debug("Unable to read " + sidecar, e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes this index to the sidecar file of the given reference image. The
+     * sidecar is written to a temporary file first and then moved in place,
+     * so concurrent readers never see a partially written file.
+     *
+     * @param referenceFile
+     *            the reference image file this index was created from
+     * @throws IOException
+     *             if the sidecar file cannot be written
+     */
+    public void writeSidecar(File referenceFile) throws IOException {
+        Path sidecar = getSidecarFile(referenceFile).toPath();
+        Path temp = Files.createTempFile(sidecar.toAbsolutePath().getParent(),
+                sidecar.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(referenceFile.length());
+                out.writeLong(referenceFile.lastModified());
+                out.writeInt(width);
+                out.writeInt(height);
+                for (long hash : hashes) {
+                    out.writeLong(hash);
+                }
+            }
+            try {
+                Files.move(temp, sidecar, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, sidecar, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Creates or updates the sidecar file of the given reference image unless
+     * it is already up to date. Failing to write the sidecar, e.g. because the
+     * reference directory is read-only, is logged and otherwise ignored.
+     *
+     * @param referenceFile
+     *            the reference image file
+     * @return the block hash index of the reference image
+     * @throws IOException
+     *             if the reference image cannot be read
+     */
+    public static BlockHashIndex updateSidecar(File referenceFile)
+            throws IOException {
+        BlockHashIndex index = readSidecar(referenceFile);
+        if (index == null) {
+            BufferedImage image = ReferenceImageCache.read(referenceFile);
+            if (image == null) {
+                throw new IOException(
+                        "Unable to decode reference image " + referenceFile);
+            }
+            index = create(image);
+            try {
+                index.writeSidecar(referenceFile);
+            } catch (IOException e) {
+                getLogger().debug("Unable to write block hashes for "
+                        + referenceFile, e);
+            }
+        }
+        return index;
+    }
+}
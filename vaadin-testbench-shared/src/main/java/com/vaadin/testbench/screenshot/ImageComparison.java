@@ -8,12 +8,12 @@
  */
 package com.vaadin.testbench.screenshot;
 
-import javax.imageio.ImageIO;
-
 import java.awt.Point;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 import org.openqa.selenium.Capabilities;
 import org.slf4j.Logger;
@@ -39,6 +39,11 @@ public class ImageComparison {
     private static final int BLOCK_SIZE = 16;
     private static final int MAX_CURSOR_Y_BLOCKS = 3; // 3 to cover cursor up to
                                                       // 33px high
+    /**
+     * Number of block rows compared by a single task when comparing in
+     * parallel. Images with fewer rows are always compared serially.
+     */
+    private static final int PARALLEL_ROWS_PER_TASK = 4;
     //
     // NOTE: All functions in the screenshot comparison package process images
     // in 16x16 blocks. This behavior is hard-coded in several places in this
@@ -65,6 +70,8 @@ public class ImageComparison {
         private int[] ssBlock = null;
         private int[] sampleBuffer = null;
         private boolean[][] falseBlocks = null;
+        // Blocks known to be equal, e.g. from block hashes, or null
+        private boolean[][] equalBlocks = null;
 
         private int width = 0;
         private int height = 0;
@@ -73,6 +80,7 @@ public class ImageComparison {
 
         private double errorTolerance = 0.0;
         private boolean sizesDiffer = false;
+        private boolean intPixels = false;
 
     }
 
@@ -106,7 +114,7 @@ public class ImageComparison {
         if (referenceFileNames.isEmpty()) {
             // We require a reference image to continue
             // Save the screenshot in the error directory.
-            ImageIO.write(screenshotImage, "png", ImageFileUtil
+            ArtifactWriter.writePng(screenshotImage, ImageFileUtil
                     .getErrorScreenshotFile(referenceFileId + ".png"));
             getLogger().error("No reference found for " + referenceFileId
                     + " in " + ImageFileUtil.getScreenshotReferenceDirectory());
@@ -117,13 +125,36 @@ public class ImageComparison {
         // reference file only
         ScreenShotFailureReporter failureReporter = null;
 
+        BlockHashIndex screenshotHashes = null;
+
         for (String referenceFileName : referenceFileNames) {
+            boolean[][] equalBlocks = null;
+            if (Parameters.isScreenshotReferenceBlockHashes()) {
+                if (screenshotHashes == null) {
+                    screenshotHashes = BlockHashIndex.create(screenshotImage);
+                }
+                BlockHashIndex referenceHashes = BlockHashIndex
+                        .updateSidecar(ImageFileUtil
+                                .getReferenceScreenshotFile(referenceFileName));
+                if (referenceHashes.allBlocksEqual(screenshotHashes)) {
+                    if (Parameters.isDebug()) {
+                        System.out.println(
+                                "Screenshot matched reference block hashes");
+                    }
+                    return true;
+                }
+                // Only the blocks with differing hashes need to be compared
+                equalBlocks = referenceHashes.getEqualBlocks(screenshotHashes);
+            }
+
             BufferedImage referenceImage;
             referenceImage = ImageFileUtil
                     .readReferenceImage(referenceFileName);
 
-            failureReporter = compareImages(createParameters(referenceImage,
-                    screenshotImage, errorTolerance));
+            ComparisonParameters params = createParameters(referenceImage,
+                    screenshotImage, errorTolerance);
+            params.equalBlocks = equalBlocks;
+            failureReporter = compareImages(params);
 
             if (failureReporter == null) {
                 return true;
@@ -248,14 +279,46 @@ public class ImageComparison {
     }
 
     private boolean compareImage(final ComparisonParameters params) {
+        if (Parameters.isScreenshotComparisonParallel()
+                && params.yBlocks > PARALLEL_ROWS_PER_TASK) {
+            return ForkJoinPool.commonPool()
+                    .invoke(new BlockRowsTask(params, 0, params.yBlocks));
+        }
+        return compareBlockRows(params, 0, params.yBlocks, params.refBlock,
+                params.ssBlock, params.sampleBuffer);
+    }
+
+    /**
+     * Compares the 16x16 blocks in the given range of block rows and marks the
+     * differing blocks in {@code params.falseBlocks}. The block buffers are
+     * passed in separately so that several ranges can be compared at the same
+     * time.
+     *
+     * @param params
+     *            a ComparisonParameters object.
+     * @param fromRow
+     *            the first block row to compare, inclusive
+     * @param toRow
+     *            the last block row to compare, exclusive
+     * @return {@code true} if all blocks in the range are equal
+     */
+    private static boolean compareBlockRows(final ComparisonParameters params,
+            int fromRow, int toRow, int[] refBlock, int[] ssBlock,
+            int[] sampleBuffer) {
         boolean result = true;
         final int imageWidth = params.width;
-        final int imageHeight = params.height;
+        final int fromY = fromRow * BLOCK_SIZE;
+        final int toY = Math.min(toRow * BLOCK_SIZE, params.height);
 
         // Iterate through image in 16x16 blocks
-        for (int y = 0; y < imageHeight; y += BLOCK_SIZE) {
+        for (int y = fromY; y < toY; y += BLOCK_SIZE) {
             for (int x = 0; x < imageWidth; x += BLOCK_SIZE) {
-                if (blocksDiffer(x, y, params)) {
+                if (params.equalBlocks != null
+                        && params.equalBlocks[x >>> 4][y >>> 4]) {
+                    continue;
+                }
+                if (blocksDiffer(x, y, params, refBlock, ssBlock,
+                        sampleBuffer)) {
                     params.falseBlocks[x >>> 4][y >>> 4] = true;
                     result = false;
                 }
@@ -264,12 +327,25 @@ public class ImageComparison {
         return result;
     }
 
-    private boolean blocksDiffer(int x, int y,
-            final ComparisonParameters params) {
+    private static boolean blocksDiffer(int x, int y,
+            final ComparisonParameters params, int[] refBlockBuffer,
+            int[] ssBlockBuffer, int[] sampleBuffer) {
+        if (params.intPixels) {
+            int sum = ImageUtil.getBlockDifference(params.refProperties,
+                    params.ssProperties, x, y);
+            if (sum < 0) {
+                return false;
+            }
+            // Same as rgbCompare for a full 16x16 block
+            double difference = sum
+                    / ((double) BLOCK_SIZE * BLOCK_SIZE * 255 * 3);
+            return difference > params.errorTolerance;
+        }
+
         final int[] refBlock = getBlock(params.refProperties, x, y,
-                params.refBlock, params.sampleBuffer);
+                refBlockBuffer, sampleBuffer);
         final int[] ssBlock = getBlock(params.ssProperties, x, y,
-                params.ssBlock, params.sampleBuffer);
+                ssBlockBuffer, sampleBuffer);
 
         for (int i = 0; i < (BLOCK_SIZE * BLOCK_SIZE); ++i) {
             if (refBlock[i] != ssBlock[i]) {
@@ -280,6 +356,45 @@ public class ImageComparison {
         return false;
     }
 
+    /**
+     * Compares a range of block rows, splitting it in halves until the range
+     * is small enough to be compared directly. Every leaf task uses its own
+     * block buffers, and writes only to its own rows of
+     * {@code params.falseBlocks}, so the result is the same as for a serial
+     * comparison.
+     */
+    private static class BlockRowsTask extends RecursiveTask<Boolean> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ComparisonParameters params;
+        private final int fromRow;
+        private final int toRow;
+
+        private BlockRowsTask(ComparisonParameters params, int fromRow,
+                int toRow) {
+            this.params = params;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+        }
+
+        @Override
+        protected Boolean compute() {
+            if (toRow - fromRow <= PARALLEL_ROWS_PER_TASK) {
+                return compareBlockRows(params, fromRow, toRow,
+                        new int[BLOCK_SIZE * BLOCK_SIZE],
+                        new int[BLOCK_SIZE * BLOCK_SIZE],
+                        ImageUtil.createSampleBuffer());
+            }
+            int middle = (fromRow + toRow) >>> 1;
+            BlockRowsTask lower = new BlockRowsTask(params, middle, toRow);
+            lower.fork();
+            boolean upperEqual = new BlockRowsTask(params, fromRow, middle)
+                    .compute();
+            return lower.join() && upperEqual;
+        }
+    }
+
     /**
      * Calculates the difference between pixels in the block.
      *
@@ -287,7 +402,7 @@ public class ImageComparison {
      * @param screenshotBlock
      * @return Difference %
      */
-    private double rgbCompare(final int[] referenceBlock,
+    private static double rgbCompare(final int[] referenceBlock,
             final int[] screenshotBlock) {
         int sum = 0;
         assert (referenceBlock.length == screenshotBlock.length);
@@ -604,6 +719,8 @@ public class ImageComparison {
 
         p.refProperties = getImageProperties(p.refImage);
         p.ssProperties = getImageProperties(p.ssImage);
+        p.intPixels = ImageUtil.hasIntPixels(p.refProperties)
+                && ImageUtil.hasIntPixels(p.ssProperties);
 
         return p;
     }
@@ -8,8 +8,6 @@
  */
 package com.vaadin.testbench.screenshot;
 
-import javax.imageio.ImageIO;
-
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
@@ -143,7 +141,9 @@ public class ImageFileUtil {
         }
 
         /**
-         * Reads the given reference image into a BufferedImage
+         * Reads the given reference image into a BufferedImage. The decoded
+         * image is cached in {@link ReferenceImageCache} and must not be
+         * modified.
          *
          * @param referenceImageFileName
          *            The name of the reference image file.
@@ -153,7 +153,7 @@ public class ImageFileUtil {
          */
         public BufferedImage readReferenceImage(String referenceImageFileName)
                 throws IOException {
-            return ImageIO
+            return ReferenceImageCache
                     .read(getReferenceScreenshotFile(referenceImageFileName));
         }
 
@@ -183,7 +183,7 @@ public class ImageFileUtil {
             ArrayList<String> referenceImages = new ArrayList<>();
             String actualName = findActualFileName(referenceImageFileName,
                     capabilities);
-            if (getReferenceScreenshotFile(actualName).exists()) {
+            if (referenceExists(actualName)) {
                 referenceImages.add(actualName);
             }
 
@@ -193,10 +193,10 @@ public class ImageFileUtil {
                 String actualNameAlternative = actualName.replace(".png",
                         String.format("_%d.png", alternativeId));
 
-                boolean origAlternativeFound = getReferenceScreenshotFile(
-                        originalNameAlternative).exists();
-                boolean actualAlternativeFound = getReferenceScreenshotFile(
-                        actualNameAlternative).exists();
+                boolean origAlternativeFound = referenceExists(
+                        originalNameAlternative);
+                boolean actualAlternativeFound = referenceExists(
+                        actualNameAlternative);
                 if (origAlternativeFound) {
                     referenceImages.add(originalNameAlternative);
                 }
@@ -211,6 +211,24 @@ public class ImageFileUtil {
             return referenceImages;
         }
 
+        /**
+         * Checks if the given reference image exists. The reference directory
+         * is indexed if enabled using
+         * {@link Parameters#setScreenshotReferenceDirectoryIndexed(boolean)}.
+         *
+         * @param referenceImageFileName
+         *            the name of the reference image file
+         * @return {@code true} if the reference image exists
+         */
+        protected boolean referenceExists(String referenceImageFileName) {
+            if (Parameters.isScreenshotReferenceDirectoryIndexed()) {
+                return ReferenceDirectoryIndex.exists(
+                        getScreenshotReferenceDirectory(),
+                        referenceImageFileName);
+            }
+            return getReferenceScreenshotFile(referenceImageFileName).exists();
+        }
+
         private String findActualFileName(String referenceFileName,
                 Capabilities cap) {
             if (cap == null) {
@@ -239,7 +257,7 @@ public class ImageFileUtil {
         String findOldReferenceScreenshot(String browserName,
                 int browserVersion, String fileName) {
             String newFileName = new String(fileName);
-            if (!ImageFileUtil.getReferenceScreenshotFile(fileName).exists()) {
+            if (!referenceExists(fileName)) {
                 String navigatorId = browserName + "_" + browserVersion;
                 int nextVersion = browserVersion;
                 String fileNameTemplate = fileName.replace(navigatorId, "####");
@@ -247,8 +265,7 @@ public class ImageFileUtil {
                     nextVersion--;
                     newFileName = fileNameTemplate.replace("####",
                             String.format("%s_%d", browserName, nextVersion));
-                } while (!ImageFileUtil.getReferenceScreenshotFile(newFileName)
-                        .exists() && nextVersion > 0);
+                } while (!referenceExists(newFileName) && nextVersion > 0);
                 // We didn't find any existing screenshot for any older
                 // versions of the browser.
                 if (nextVersion == 0) {
@@ -12,12 +12,16 @@ import javax.imageio.ImageIO;
 
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
 import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.List;
+import java.util.ServiceLoader;
 
 import static java.awt.image.BufferedImage.TYPE_INT_ARGB;
 import static java.awt.image.BufferedImage.TYPE_INT_RGB;
@@ -38,6 +42,33 @@ public class ImageUtil {
         private boolean fallback = false;
         private int width = 0;
         private int height = 0;
+
+        // Backing pixel array of TYPE_INT_RGB and TYPE_INT_ARGB images, null
+        // for other image types
+        private int[] pixels = null;
+        private int pixelOffset = 0;
+        private int scanlineStride = 0;
+    }
+
+    private static class DecoderHolder {
+        private static final ScreenshotDecoder DECODER = ServiceLoader
+                .load(ScreenshotDecoder.class).findFirst()
+                .orElseGet(PngScreenshotDecoder::new);
+    }
+
+    /**
+     * Decodes a screenshot or a reference image using the
+     * {@link ScreenshotDecoder} registered as a service, or
+     * {@link PngScreenshotDecoder} if there is none.
+     *
+     * @param data
+     *            the encoded image
+     * @return the decoded image, or {@code null} if the format is not supported
+     * @throws IOException
+     *             if the data cannot be decoded
+     */
+    public static BufferedImage decodeImage(byte[] data) throws IOException {
+        return DecoderHolder.DECODER.decode(data);
     }
 
     /**
@@ -169,9 +200,119 @@ public class ImageUtil {
         p.width = image.getWidth();
         p.height = image.getHeight();
         p.fallback = !(rgb || bgr);
+
+        if (rgb && p.raster.getDataBuffer() instanceof DataBufferInt
+                && p.raster.getDataBuffer().getNumBanks() == 1
+                && p.raster
+                        .getSampleModel() instanceof SinglePixelPackedSampleModel) {
+            DataBuffer dataBuffer = p.raster.getDataBuffer();
+            SinglePixelPackedSampleModel sampleModel = (SinglePixelPackedSampleModel) p.raster
+                    .getSampleModel();
+            p.pixels = ((DataBufferInt) dataBuffer).getData();
+            p.scanlineStride = sampleModel.getScanlineStride();
+            // Sub images share the data buffer with the parent image, and are
+            // located by the sample model translation
+            p.pixelOffset = dataBuffer.getOffset()
+                    + sampleModel.getOffset(
+                            p.raster.getMinX()
+                                    - p.raster.getSampleModelTranslateX(),
+                            p.raster.getMinY()
+                                    - p.raster.getSampleModelTranslateY());
+        }
         return p;
     }
 
+    /**
+     * Checks if the pixels of the image can be read directly from its backing
+     * int array, which is the case for {@link BufferedImage#TYPE_INT_RGB} and
+     * {@link BufferedImage#TYPE_INT_ARGB} images.
+     *
+     * @param properties
+     *            The properties of the image (image + metadata)
+     * @return {@code true} if
+     *         {@link #getBlockDifference(ImageProperties, ImageProperties, int, int)}
+     *         can be used for the image
+     */
+    public static boolean hasIntPixels(final ImageProperties properties) {
+        return properties.pixels != null;
+    }
+
+    /**
+     * Compares the 16x16 blocks starting at (x,y) in two images of the same
+     * size directly from their backing int arrays, without copying the blocks.
+     * Both images must be {@link #hasIntPixels(ImageProperties) int packed}.
+     * <p>
+     * The rows of the blocks are first compared as whole spans, and the RGB
+     * difference is only summed if some pixel differs. Reference pixels that
+     * are not fully opaque are considered masked and are not included in the
+     * sum.
+     *
+     * @param reference
+     *            The properties of the reference image
+     * @param screenshot
+     *            The properties of the screenshot image
+     * @param x
+     *            The x coordinate of the blocks (in pixels)
+     * @param y
+     *            The y coordinate of the blocks (in pixels)
+     * @return -1 if the blocks are identical, otherwise the sum of the absolute
+     *         differences of the red, green and blue channels
+     */
+    public static int getBlockDifference(final ImageProperties reference,
+            final ImageProperties screenshot, int x, int y) {
+        final int width = x + 16 >= reference.width ? reference.width - x : 16;
+        final int height = y + 16 >= reference.height ? reference.height - y
+                : 16;
+
+        final int[] refPixels = reference.pixels;
+        final int[] ssPixels = screenshot.pixels;
+        final int refAlpha = reference.alpha ? 0 : 0xff000000;
+        final int ssAlpha = screenshot.alpha ? 0 : 0xff000000;
+
+        int firstRow = -1;
+        for (int j = 0; j < height; j++) {
+            int refStart = reference.pixelOffset
+                    + (y + j) * reference.scanlineStride + x;
+            int ssStart = screenshot.pixelOffset
+                    + (y + j) * screenshot.scanlineStride + x;
+            if (Arrays.mismatch(refPixels, refStart, refStart + width,
+                    ssPixels, ssStart, ssStart + width) >= 0) {
+                firstRow = j;
+                break;
+            }
+        }
+        if (firstRow < 0) {
+            return -1;
+        }
+
+        int sum = 0;
+        boolean differ = false;
+        for (int j = firstRow; j < height; j++) {
+            int refIndex = reference.pixelOffset
+                    + (y + j) * reference.scanlineStride + x;
+            int ssIndex = screenshot.pixelOffset
+                    + (y + j) * screenshot.scanlineStride + x;
+            for (int i = 0; i < width; i++) {
+                final int targetPixel = refPixels[refIndex + i] | refAlpha;
+                final int testPixel = ssPixels[ssIndex + i] | ssAlpha;
+                if (targetPixel == testPixel) {
+                    continue;
+                }
+                differ = true;
+                if ((targetPixel >>> 24) < 255) {
+                    // Masked pixel, see ImageComparison.rgbCompare
+                    continue;
+                }
+                sum += Math.abs(((targetPixel & 0xff0000) >> 16)
+                        - ((testPixel & 0xff0000) >> 16));
+                sum += Math.abs(((targetPixel & 0xff00) >> 8)
+                        - ((testPixel & 0xff00) >> 8));
+                sum += Math.abs((targetPixel & 0xff) - (testPixel & 0xff));
+            }
+        }
+        return differ ? sum : -1;
+    }
+
     /**
      * Returns the 16x16 RGB block starting at (x,y) from the given image
      *
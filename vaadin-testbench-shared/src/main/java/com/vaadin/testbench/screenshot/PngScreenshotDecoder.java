@@ -0,0 +1,362 @@
+/**
+ * Copyright (C) 2000-2026 Vaadin Ltd
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full
+ * license.
+ */
+package com.vaadin.testbench.screenshot;
+
+import javax.imageio.IIOException;
+import javax.imageio.ImageIO;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * The default {@link ScreenshotDecoder}. Decodes the 8-bit RGB and RGBA PNG
+ * images produced by browsers, as well as 8-bit palette images often used for
+ * reference images, directly into a {@link BufferedImage#TYPE_INT_ARGB} image
+ * so that the pixels can be compared without converting them. Other images,
+ * e.g. grayscale, 16-bit or interlaced PNG images and other formats, are
+ * decoded using {@link ImageIO}.
+ * <p>
+ * The inflater and scanline buffers are reused from a small pool shared by all
+ * threads, so that decoding on many short-lived or virtual threads does not
+ * keep native inflater memory alive for each of them. The decoded image is
+ * always a new instance.
+ */
+public class PngScreenshotDecoder implements ScreenshotDecoder {
+
+    private static final byte[] SIGNATURE = { (byte) 137, 80, 78, 71, 13, 10,
+            26, 10 };
+
+    private static final int IHDR = 0x49484452;
+    private static final int PLTE = 0x504c5445;
+    private static final int IDAT = 0x49444154;
+    private static final int IEND = 0x49454e44;
+    private static final int TRNS = 0x74524e53;
+
+    private static final int COLOR_TYPE_RGB = 2;
+    private static final int COLOR_TYPE_PALETTE = 3;
+    private static final int COLOR_TYPE_RGBA = 6;
+
+    private static final int MAX_POOLED_BUFFERS = Runtime.getRuntime()
+            .availableProcessors();
+
+    private static final Queue<Buffers> pool = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger pooledCount = new AtomicInteger();
+
+    /**
+     * Buffers reused between decodes.
+     */
+    private static class Buffers {
+        private final Inflater inflater = new Inflater();
+        private final int[] palette = new int[256];
+        private byte[] previousRow = new byte[0];
+        private byte[] currentRow = new byte[0];
+
+        private void ensureRowLength(int length) {
+            if (currentRow.length < length) {
+                previousRow = new byte[length];
+                currentRow = new byte[length];
+            }
+        }
+    }
+
+    @Override
+    public BufferedImage decode(byte[] data) throws IOException {
+        if (!isSupported(data)) {
+            return ImageIO.read(new ByteArrayInputStream(data));
+        }
+
+        int width = readInt(data, 16);
+        int height = readInt(data, 20);
+        int colorType = data[25];
+        int bytesPerPixel = colorType == COLOR_TYPE_RGBA ? 4
+                : colorType == COLOR_TYPE_PALETTE ? 1 : 3;
+        if (width <= 0 || height <= 0) {
+            throw new IIOException("Invalid PNG size " + width + "x" + height);
+        }
+        int rowLength = width * bytesPerPixel + 1;
+
+        BufferedImage image = new BufferedImage(width, height,
+                BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer())
+                .getData();
+
+        Buffers buffers = acquireBuffers();
+        try {
+            decodeRows(data, buffers, pixels, width, height, colorType,
+                    bytesPerPixel, rowLength);
+        } finally {
+            releaseBuffers(buffers);
+        }
+        return image;
+    }
+
+    private static void decodeRows(byte[] data, Buffers buffers, int[] pixels,
+            int width, int height, int colorType, int bytesPerPixel,
+            int rowLength) throws IIOException {
+        buffers.ensureRowLength(rowLength);
+        byte[] previousRow = buffers.previousRow;
+        byte[] currentRow = buffers.currentRow;
+        Arrays.fill(previousRow, 0, rowLength, (byte) 0);
+        Inflater inflater = buffers.inflater;
+        inflater.reset();
+        int[] palette = colorType == COLOR_TYPE_PALETTE ? buffers.palette
+                : null;
+        int paletteSize = 0;
+
+        int row = 0;
+        int rowPosition = 0;
+        int offset = SIGNATURE.length;
+        try {
+            while (row < height) {
+                if (offset + 8 > data.length) {
+                    throw new IIOException("Unexpected end of PNG data");
+                }
+                int chunkLength = readInt(data, offset);
+                int chunkType = readInt(data, offset + 4);
+                int chunkStart = offset + 8;
+                if (chunkLength < 0 || chunkStart + chunkLength > data.length) {
+                    throw new IIOException("Invalid PNG chunk length");
+                }
+                offset = chunkStart + chunkLength + 4;
+                if (chunkType == IEND) {
+                    break;
+                } else if (chunkType == PLTE && palette != null) {
+                    paletteSize = readPalette(data, chunkStart, chunkLength,
+                            palette);
+                    continue;
+                } else if (chunkType == TRNS && paletteSize > 0) {
+                    readPaletteAlpha(data, chunkStart, chunkLength, palette,
+                            paletteSize);
+                    continue;
+                } else if (chunkType != IDAT) {
+                    continue;
+                }
+                if (palette != null && paletteSize == 0) {
+                    throw new IIOException("Missing PNG palette");
+                }
+
+                // Inflate the rows directly from the chunk data
+                inflater.setInput(data, chunkStart, chunkLength);
+                while (row < height) {
+                    int inflated = inflater.inflate(currentRow, rowPosition,
+                            rowLength - rowPosition);
+                    if (inflated == 0) {
+                        if (inflater.needsInput()) {
+                            break;
+                        }
+                        throw new IIOException("Invalid PNG image data");
+                    }
+                    rowPosition += inflated;
+                    if (rowPosition == rowLength) {
+                        unfilter(currentRow, previousRow, rowLength,
+                                bytesPerPixel);
+                        copyRow(currentRow, pixels, row * width, width,
+                                bytesPerPixel, palette);
+                        byte[] swap = previousRow;
+                        previousRow = currentRow;
+                        currentRow = swap;
+                        rowPosition = 0;
+                        row++;
+                    }
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new IIOException("Invalid PNG image data", e);
+        }
+        if (row < height) {
+            throw new IIOException("Unexpected end of PNG image data");
+        }
+    }
+
+    private static Buffers acquireBuffers() {
+        Buffers buffers = pool.poll();
+        if (buffers == null) {
+            return new Buffers();
+        }
+        pooledCount.decrementAndGet();
+        return buffers;
+    }
+
+    private static void releaseBuffers(Buffers buffers) {
+        if (pooledCount.incrementAndGet() <= MAX_POOLED_BUFFERS) {
+            pool.offer(buffers);
+        } else {
+            pooledCount.decrementAndGet();
+            // Frees the native memory right away instead of when collected
+            buffers.inflater.end();
+        }
+    }
+
+    /**
+     * Gets the number of buffers kept for reuse.
+     *
+     * @return the number of pooled buffers
+     */
+    static int getPooledBufferCount() {
+        return pooledCount.get();
+    }
+
+    /**
+     * Checks if the data is a PNG image that can be decoded directly, i.e. an
+     * 8-bit, non-interlaced RGBA, palette or RGB image without a transparent
+     * color.
+     */
+    private static boolean isSupported(byte[] data) {
+        if (data.length < 33
+                || !Arrays.equals(data, 0, SIGNATURE.length, SIGNATURE, 0,
+                        SIGNATURE.length)
+                || readInt(data, 8) != 13 || readInt(data, 12) != IHDR) {
+            return false;
+        }
+        int bitDepth = data[24];
+        int colorType = data[25];
+        int interlace = data[28];
+        if (bitDepth != 8
+                || (colorType != COLOR_TYPE_RGB
+                        && colorType != COLOR_TYPE_RGBA
+                        && colorType != COLOR_TYPE_PALETTE)
+                || interlace != 0) {
+            return false;
+        }
+        if (colorType != COLOR_TYPE_RGB) {
+            return true;
+        }
+
+        // A transparent color for RGB images is only supported by ImageIO
+        int offset = SIGNATURE.length;
+        while (offset + 8 <= data.length) {
+            int chunkLength = readInt(data, offset);
+            int chunkType = readInt(data, offset + 4);
+            if (chunkType == TRNS) {
+                return false;
+            } else if (chunkType == IDAT || chunkType == IEND
+                    || chunkLength < 0) {
+                // tRNS must precede the image data
+                return true;
+            }
+            offset += 12 + chunkLength;
+        }
+        return true;
+    }
+
+    /**
+     * Reads the palette as opaque ARGB values. Like ImageIO, unused entries
+     * repeat the last color of the palette.
+     */
+    private static int readPalette(byte[] data, int offset, int length,
+            int[] palette) throws IIOException {
+        int size = Math.min(length / 3, palette.length);
+        if (size == 0) {
+            throw new IIOException("Invalid PNG palette");
+        }
+        for (int i = 0; i < size; i++) {
+            int p = offset + i * 3;
+            palette[i] = 0xff000000 | ((data[p] & 0xff) << 16)
+                    | ((data[p + 1] & 0xff) << 8) | (data[p + 2] & 0xff);
+        }
+        Arrays.fill(palette, size, palette.length, palette[size - 1]);
+        return size;
+    }
+
+    private static void readPaletteAlpha(byte[] data, int offset, int length,
+            int[] palette, int paletteSize) {
+        for (int i = 0; i < Math.min(length, paletteSize); i++) {
+            palette[i] = (palette[i] & 0xffffff)
+                    | ((data[offset + i] & 0xff) << 24);
+        }
+    }
+
+    private static void unfilter(byte[] row, byte[] previous, int length,
+            int bytesPerPixel) throws IIOException {
+        // The first byte is the filter type, the pixels start at index 1
+        switch (row[0]) {
+        case 0: // None
+            break;
+        case 1: // Sub
+            for (int i = 1 + bytesPerPixel; i < length; i++) {
+                row[i] += row[i - bytesPerPixel];
+            }
+            break;
+        case 2: // Up
+            for (int i = 1; i < length; i++) {
+                row[i] += previous[i];
+            }
+            break;
+        case 3: // Average
+            for (int i = 1; i < length; i++) {
+                int left = i > bytesPerPixel ? row[i - bytesPerPixel] & 0xff
+                        : 0;
+                row[i] += (byte) ((left + (previous[i] & 0xff)) >>> 1);
+            }
+            break;
+        case 4: // Paeth
+            for (int i = 1; i < length; i++) {
+                int left = 0;
+                int upperLeft = 0;
+                if (i > bytesPerPixel) {
+                    left = row[i - bytesPerPixel] & 0xff;
+                    upperLeft = previous[i - bytesPerPixel] & 0xff;
+                }
+                row[i] += (byte) paeth(left, previous[i] & 0xff, upperLeft);
+            }
+            break;
+        default:
+            throw new IIOException("Unknown PNG filter type " + row[0]);
+        }
+    }
+
+    private static int paeth(int left, int up, int upperLeft) {
+        int p = left + up - upperLeft;
+        int pLeft = Math.abs(p - left);
+        int pUp = Math.abs(p - up);
+        int pUpperLeft = Math.abs(p - upperLeft);
+        if (pLeft <= pUp && pLeft <= pUpperLeft) {
+            return left;
+        } else if (pUp <= pUpperLeft) {
+            return up;
+        }
+        return upperLeft;
+    }
+
+    private static void copyRow(byte[] row, int[] pixels, int offset,
+            int width, int bytesPerPixel, int[] palette) {
+        int p = 1;
+        if (palette != null) {
+            for (int x = 0; x < width; x++) {
+                pixels[offset + x] = palette[row[p + x] & 0xff];
+            }
+        } else if (bytesPerPixel == 4) {
+            for (int x = 0; x < width; x++) {
+                pixels[offset + x] = ((row[p + 3] & 0xff) << 24)
+                        | ((row[p] & 0xff) << 16) | ((row[p + 1] & 0xff) << 8)
+                        | (row[p + 2] & 0xff);
+                p += 4;
+            }
+        } else {
+            for (int x = 0; x < width; x++) {
+                pixels[offset + x] = 0xff000000 | ((row[p] & 0xff) << 16)
+                        | ((row[p + 1] & 0xff) << 8) | (row[p + 2] & 0xff);
+                p += 3;
+            }
+        }
+    }
+
+    private static int readInt(byte[] data, int offset) {
+        return ((data[offset] & 0xff) << 24) | ((data[offset + 1] & 0xff) << 16)
+                | ((data[offset + 2] & 0xff) << 8) | (data[offset + 3] & 0xff);
+    }
+}
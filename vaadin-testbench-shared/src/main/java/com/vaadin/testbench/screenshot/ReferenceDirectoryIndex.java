@@ -0,0 +1,237 @@
+/**
+ * Copyright (C) 2000-2026 Vaadin Ltd
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full
+ * license.
+ */
+package com.vaadin.testbench.screenshot;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An in-memory index of the files in a reference screenshot directory.
+ * <p>
+ * Looking up reference images probes many file names that do not exist, e.g.
+ * alternative references and references for older browser versions. The
+ * directory is listed once, after which each probe is a set lookup instead of
+ * a file system access. Changes to the directory are tracked using a
+ * {@link WatchService}, so files added or removed during the test run are
+ * found as soon as the file system reports the change. If the file system
+ * cannot be watched, the file system is probed directly.
+ * <p>
+ * The file system may report changes late or not at all, e.g. for network
+ * file systems, and file names are matched case-sensitively. The index is
+ * therefore only used if enabled using
+ * {@link com.vaadin.testbench.Parameters#setScreenshotReferenceDirectoryIndexed(boolean)}.
+ */
+public class ReferenceDirectoryIndex {
+
+    private static final Map<String, ReferenceDirectoryIndex> indexes = new ConcurrentHashMap<>();
+    private static final Map<WatchKey, WatchedDirectory> watchedDirectories = new ConcurrentHashMap<>();
+    private static WatchService watchService;
+    private static boolean watchServiceFailed = false;
+
+    private final Path directory;
+    private final Set<String> files = ConcurrentHashMap.newKeySet();
+    private final Set<String> directories = ConcurrentHashMap.newKeySet();
+    private volatile boolean valid = false;
+
+    private record WatchedDirectory(ReferenceDirectoryIndex index,
+            Path directory) {
+    }
+
+    private ReferenceDirectoryIndex(String directory) {
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+    }
+
+    private static Logger getLogger() {
+        return LoggerFactory.getLogger(ReferenceDirectoryIndex.class);
+    }
+
+    /**
+     * Checks if the given file exists in the given reference directory.
+     *
+     * @param referenceDirectory
+     *            the reference directory
+     * @param fileName
+     *            the name of the file, relative to the reference directory
+     * @return {@code true} if the file or directory exists
+     */
+    public static boolean exists(String referenceDirectory, String fileName) {
+        String name = fileName.replace(File.separatorChar, '/');
+        if (name.startsWith("/") || name.startsWith("./")
+                || name.contains("../")) {
+            return new File(referenceDirectory, fileName).exists();
+        }
+
+        ReferenceDirectoryIndex index = indexes.computeIfAbsent(
+                referenceDirectory, ReferenceDirectoryIndex::new);
+        if (!index.ensureValid()) {
+            return new File(referenceDirectory, fileName).exists();
+        }
+        return index.files.contains(name) || index.directories.contains(name);
+    }
+
+    /**
+     * Discards all indexes. The directories are listed again when they are
+     * used the next time.
+     */
+    public static void clear() {
+        indexes.values().forEach(ReferenceDirectoryIndex::invalidate);
+        indexes.clear();
+    }
+
+    private void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * Lists the directory unless the index is up to date.
+     *
+     * @return {@code true} if the index can be used, {@code false} if the file
+     *         system should be probed directly
+     */
+    private synchronized boolean ensureValid() {
+        if (valid) {
+            return true;
+        }
+        WatchService watcher = getWatchService();
+        if (watcher == null || !Files.isDirectory(directory)) {
+            return false;
+        }
+
+        watchedDirectories.values()
+                .removeIf(watched -> watched.index() == this);
+        files.clear();
+        directories.clear();
+        // Any change from here on invalidates the index again
+        valid = true;
+        try {
+            Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir,
+                        BasicFileAttributes attrs) throws IOException {
+                    WatchKey key = dir.register(watcher,
+                            StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_DELETE);
+                    watchedDirectories.put(key, new WatchedDirectory(
+                            ReferenceDirectoryIndex.this, dir));
+                    if (!dir.equals(directory)) {
+                        directories.add(getName(dir));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file,
+                        BasicFileAttributes attrs) {
+                    files.add(getName(file));
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            getLogger().debug("Unable to index " + directory, e);
+            valid = false;
+            return false;
+        }
+        return true;
+    }
+
+    private String getName(Path file) {
+        return directory.relativize(file).toString().replace(File.separatorChar,
+                '/');
+    }
+
+    private void fileCreated(Path file) {
+        if (Files.isDirectory(file)) {
+            // The new directory must be watched and listed
+            invalidate();
+        } else {
+            files.add(getName(file));
+        }
+    }
+
+    private void fileDeleted(Path file) {
+        String name = getName(file);
+        if (directories.contains(name)) {
+            invalidate();
+        } else {
+            files.remove(name);
+        }
+    }
+
+    private static synchronized WatchService getWatchService() {
+        if (watchService == null && !watchServiceFailed) {
+            try {
+                watchService = FileSystems.getDefault().newWatchService();
+            } catch (IOException | UnsupportedOperationException e) {
+                getLogger().debug(
+                        "Unable to watch the reference screenshot directory",
+                        e);
+                watchServiceFailed = true;
+                return null;
+            }
+            Thread thread = new Thread(() -> processEvents(watchService),
+                    "testbench-reference-directory-watcher");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        return watchService;
+    }
+
+    private static void processEvents(WatchService watcher) {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watcher.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            WatchedDirectory watched = watchedDirectories.get(key);
+            if (watched == null) {
+                key.cancel();
+                continue;
+            }
+            ReferenceDirectoryIndex index = watched.index();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    index.invalidate();
+                } else {
+                    Path file = watched.directory()
+                            .resolve((Path) event.context());
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                        index.fileCreated(file);
+                    } else {
+                        index.fileDeleted(file);
+                    }
+                }
+            }
+            if (!key.reset()) {
+                // The directory was deleted
+                watchedDirectories.remove(key);
+                index.invalidate();
+            }
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/**
+ * Copyright (C) 2000-2026 Vaadin Ltd
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full
+ * license.
+ */
+package com.vaadin.testbench.screenshot;
+
+import javax.imageio.IIOException;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.vaadin.testbench.Parameters;
+
+/**
+ * Process wide cache of decoded reference images. Images are keyed by their
+ * absolute path and last modified time, so a reference that is updated on disk
+ * is decoded again. The cache size is limited by
+ * {@link Parameters#getScreenshotReferenceCacheSize()}, and the least recently
+ * used images are discarded when the limit is exceeded.
+ * <p>
+ * Cached images are shared between threads and must not be modified.
+ */
+public class ReferenceImageCache {
+
+    private static final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(
+            16, 0.75f, true);
+    private static long usedBytes = 0;
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+
+    private static class Entry {
+        private final long lastModified;
+        private final FutureTask<BufferedImage> image;
+        private long bytes = 0;
+
+        private Entry(long lastModified, FutureTask<BufferedImage> image) {
+            this.lastModified = lastModified;
+            this.image = image;
+        }
+    }
+
+    /**
+     * Reads the given image file, using a previously decoded image if the file
+     * has not been modified since it was decoded. Threads that request the
+     * same file at the same time wait for a single decode.
+     *
+     * @param file
+     *            the image file to read
+     * @return the decoded image, or {@code null} if the file could not be
+     *         decoded
+     * @throws IOException
+     *             if an error occurs during reading
+     */
+    public static BufferedImage read(File file) throws IOException {
+        long maxBytes = Parameters.getScreenshotReferenceCacheSize() * 1024L
+                * 1024L;
+        if (maxBytes <= 0) {
+            misses.incrementAndGet();
+            return decode(file);
+        }
+
+        String path = file.getAbsolutePath();
+        long lastModified = file.lastModified();
+        Entry entry;
+        boolean load = false;
+        synchronized (entries) {
+            entry = entries.get(path);
+            if (entry == null || entry.lastModified != lastModified) {
+                if (entry != null) {
+                    remove(path);
+                }
+                entry = new Entry(lastModified,
+                        new FutureTask<>(() -> decode(file)));
+                entries.put(path, entry);
+                load = true;
+            }
+        }
+
+        if (load) {
+            misses.incrementAndGet();
+            entry.image.run();
+        } else {
+            hits.incrementAndGet();
+        }
+
+        BufferedImage image;
+        try {
+            image = entry.image.get();
+        } catch (ExecutionException e) {
+            synchronized (entries) {
+                if (entries.get(path) == entry) {
+                    remove(path);
+                }
+            }
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Unable to read " + path, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading " + path, e);
+        }
+
+        if (load) {
+            synchronized (entries) {
+                if (entries.get(path) == entry) {
+                    if (image == null) {
+                        remove(path);
+                    } else {
+                        entry.bytes = getSizeInBytes(image);
+                        usedBytes += entry.bytes;
+                        evict(maxBytes);
+                    }
+                }
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Removes all images from the cache and resets the hit and miss counters.
+     */
+    public static void clear() {
+        synchronized (entries) {
+            entries.clear();
+            usedBytes = 0;
+        }
+        hits.set(0);
+        misses.set(0);
+    }
+
+    /**
+     * @return the number of reads that were served from the cache
+     */
+    public static long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of reads that had to decode the image file
+     */
+    public static long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of bytes currently used by the cached images
+     */
+    public static long getUsedBytes() {
+        synchronized (entries) {
+            return usedBytes;
+        }
+    }
+
+    private static void remove(String path) {
+        Entry removed = entries.remove(path);
+        if (removed != null) {
+            usedBytes -= removed.bytes;
+        }
+    }
+
+    private static void evict(long maxBytes) {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet()
+                .iterator();
+        while (usedBytes > maxBytes && iterator.hasNext()) {
+            Entry eldest = iterator.next().getValue();
+            iterator.remove();
+            usedBytes -= eldest.bytes;
+        }
+    }
+
+    private static BufferedImage decode(File file) throws IOException {
+        if (!file.canRead()) {
+            // Same as ImageIO.read(File)
+            throw new IIOException("Can't read input file " + file);
+        }
+        return ImageUtil.decodeImage(Files.readAllBytes(file.toPath()));
+    }
+
+    private static long getSizeInBytes(BufferedImage image) {
+        DataBuffer buffer = image.getRaster().getDataBuffer();
+        return (long) buffer.getSize() * buffer.getNumBanks()
+                * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+    }
+}
@@ -8,14 +8,19 @@
  */
 package com.vaadin.testbench.screenshot;
 
-import javax.imageio.ImageIO;
-
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
-import java.io.FileNotFoundException;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -38,23 +43,33 @@ public class ScreenShotFailureReporter {
 
     public void createErrorImageAndHTML(String fileName,
             BufferedImage screenshotImage) {
+        File screenshotFile = ImageFileUtil.getErrorScreenshotFile(fileName);
         try {
             // Write the screenshot into the error directory
-            ImageIO.write(screenshotImage, "png",
-                    ImageFileUtil.getErrorScreenshotFile(fileName));
+            ArtifactWriter.writePng(screenshotImage, screenshotFile);
         } catch (IOException e) {
-            getLogger().error("Error writing screenshot to "
-                    + ImageFileUtil.getErrorScreenshotFile(fileName).getPath(),
+            getLogger().error(
+                    "Error writing screenshot to " + screenshotFile.getPath(),
                     e);
         }
 
         // collect big error blocks of differences
         List<ErrorBlock> errorAreas = collectErrorsToList(xBlocks, yBlocks);
 
-        // Draw boxes around blocks that differ
-        drawErrorsToImage(errorAreas, screenshotImage);
+        // Draw boxes around blocks that differ on a copy, as the screenshot
+        // may still be waiting to be written
+        BufferedImage diffImage = ImageUtil.cloneImage(screenshotImage);
+        drawErrorsToImage(errorAreas, diffImage);
 
-        createDiffHtml(errorAreas, fileName, screenshotImage, referenceImage);
+        File htmlFile = ImageFileUtil
+                .getErrorScreenshotFile(fileName + ".html");
+        try {
+            ArtifactWriter.write(htmlFile.getPath(), () -> createDiffHtml(
+                    errorAreas, htmlFile, diffImage, referenceImage));
+        } catch (IOException e) {
+            getLogger().error("Error writing diff report to "
+                    + htmlFile.getPath(), e);
+        }
     }
 
     private Logger getLogger() {
@@ -218,41 +233,55 @@ public class ScreenShotFailureReporter {
      * Build a small html file that has mouse over picture change for fast
      * checking of errors and click on picture to switch between reference and
      * diff pictures.
+     * <p>
+     * Both images are embedded only once, as data URIs. The error areas are
+     * CSS overlays that show the matching part of the reference image as a
+     * background when hovered. The file is streamed to disk, so the encoded
+     * images are never held in memory as strings.
      *
      * @param blocks
      *            List of ErrorBlock
      * @param fileId
      *            fileName for html file
      */
-    private void createDiffHtml(List<ErrorBlock> blocks, String fileId,
-            BufferedImage screenshotImage, BufferedImage referenceImage) {
-        String image = ImageUtil.encodeImageToBase64(screenshotImage);
-        String ref_image = ImageUtil.encodeImageToBase64(referenceImage);
-        try {
-            PrintWriter writer = new PrintWriter(
-                    ImageFileUtil.getErrorScreenshotFile(fileId + ".html"));
+    private static void createDiffHtml(List<ErrorBlock> blocks, File htmlFile,
+            BufferedImage screenshotImage, BufferedImage referenceImage)
+            throws IOException {
+        try (OutputStream out = new BufferedOutputStream(
+                new FileOutputStream(htmlFile));
+                Writer writer = new OutputStreamWriter(out,
+                        StandardCharsets.UTF_8)) {
             // Write head
-            writer.println("<html>");
-            writer.println("<head>");
-            writer.println(
+            writer.write("<html>\n<head>\n");
+            writer.write(
                     "<script type=\"text/javascript\">var difference = true;function switchImage(){"
                             + "if(difference){difference = false;document.getElementById('reference').style.display='block';"
                             + "document.getElementById('diff').style.display='none';}else{difference = true;"
                             + "document.getElementById('reference').style.display='none';document.getElementById('diff').style.display='block';"
-                            + "}}</script>");
-            writer.println("</head>");
-            writer.println(
-                    "<body onclick=\"switchImage()\" style=\"-moz-user-select: none; -webkit-user-select: none; -ms-user-select: none;\">");
-
-            writer.println(
-                    "<div id=\"diff\" style=\"display: block; position: absolute; top: 0px; left: 0px;\"><img src=\"data:image/png;base64,"
-                            + image
-                            + "\"/><span style=\"position: absolute; top: 0px; left: 0px; opacity:0.4; filter: alpha(opacity=40); font-weight: bold;\">Image for this run</span></div>");
-            writer.println(
-                    "<div id=\"reference\" style=\"display: none; position: absolute; top: 0px; left: 0px; z-index: 999;\"><img src=\"data:image/png;base64,"
-                            + ref_image + "\"/></div>");
-
-            int add = 0;
+                            + "}}</script>\n");
+            writer.write("<style>\n"
+                    + "body { -moz-user-select: none; -webkit-user-select: none; -ms-user-select: none; }\n"
+                    + "#diff { display: block; position: absolute; top: 0px; left: 0px; }\n"
+                    + "#diff span { position: absolute; top: 0px; left: 0px; opacity: 0.4; font-weight: bold; }\n"
+                    + "#reference { display: none; position: absolute; top: 0px; left: 0px; z-index: 999; }\n"
+                    + ".error { position: absolute; z-index: 66; }\n"
+                    + ".error div { display: none; width: 100%; height: 100%; }\n"
+                    + ".error:hover div { display: block; }\n"
+                    + ".ref { background-repeat: no-repeat; background-image: url(data:image/png;base64,");
+            writer.flush();
+            writeBase64Png(referenceImage, out);
+            writer.write("); }\n</style>\n</head>\n");
+            writer.write("<body onclick=\"switchImage()\">\n");
+
+            writer.write(
+                    "<div id=\"diff\"><img src=\"data:image/png;base64,");
+            writer.flush();
+            writeBase64Png(screenshotImage, out);
+            writer.write("\"/><span>Image for this run</span></div>\n");
+            writer.write("<div id=\"reference\" class=\"ref\" style=\"width: "
+                    + referenceImage.getWidth() + "px; height: "
+                    + referenceImage.getHeight() + "px;\"></div>\n");
+
             for (ErrorBlock error : blocks) {
                 int offsetX = 0, offsetY = 0;
                 if (error.getX() > 0) {
@@ -261,42 +290,43 @@ public class ScreenShotFailureReporter {
                 if (error.getY() > 0) {
                     offsetY = 1;
                 }
-                String id = "popUpDiv_" + (error.getX() + add) + "_"
-                        + (error.getY() + add);
-                // position stars so that it's not out of screen.
-                writer.println("<div  onmouseover=\"document.getElementById('"
-                        + id
-                        + "').style.display='block'\"  style=\"z-index: 66;position: absolute; top: 0px; left: 0px; clip: rect("
-                        + (error.getY() - offsetY) + "px,"
-                        + (error.getX() + (error.getXBlocks() * 16) + 1) + "px,"
-                        + (error.getY() + (error.getYBlocks() * 16) + 1) + "px,"
-                        + (error.getX() - offsetX)
-                        + "px);\"><img src=\"data:image/png;base64," + image
-                        + "\"/></div>");
-                // Start "popup" div
-                writer.println(
-                        "<div class=\"popUpDiv\" onclick=\"document.getElementById('reference').style.display='block'; document.getElementById('diff').style.display='none';\" onmouseout=\"this.style.display='none'\" id=\""
-                                + id
-                                + "\"  style=\"display: none; position: absolute; top: 0px; left: 0px; clip: rect("
-                                + (error.getY() - offsetY) + "px,"
-                                + (error.getX() + (error.getXBlocks() * 16) + 1)
-                                + "px,"
-                                + (error.getY() + (error.getYBlocks() * 16) + 1)
-                                + "px," + (error.getX() - offsetX)
-                                + "px); z-index: " + (99 + add) + ";\">");
-                writer.println("<img src=\"data:image/png;base64," + ref_image
-                        + "\" />");
-                // End popup div
-                writer.println("</div>");
-                add++;
+                int left = error.getX() - offsetX;
+                int top = error.getY() - offsetY;
+                int right = error.getX() + (error.getXBlocks() * 16) + 1;
+                int bottom = error.getY() + (error.getYBlocks() * 16) + 1;
+                // Hovering the area shows the same area of the reference, and
+                // clicking it shows the whole reference
+                writer.write("<div class=\"error\" style=\"left: " + left
+                        + "px; top: " + top + "px; width: " + (right - left)
+                        + "px; height: " + (bottom - top) + "px;\">"
+                        + "<div class=\"ref\" style=\"background-position: "
+                        + (-left) + "px " + (-top) + "px;\"></div></div>\n");
             }
 
             // End file
-            writer.println("</body></html>");
-            writer.flush();
-            writer.close();
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
+            writer.write("</body></html>\n");
+        }
+    }
+
+    /**
+     * Encodes the image as a PNG and writes it base64 encoded to the given
+     * stream, leaving the stream open.
+     */
+    private static void writeBase64Png(BufferedImage image, OutputStream out)
+            throws IOException {
+        OutputStream nonClosing = new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+        try (OutputStream base64 = Base64.getEncoder().wrap(nonClosing)) {
+            ArtifactWriter.writePng(image, base64);
         }
     }
 
@@ -0,0 +1,40 @@
+/**
+ * Copyright (C) 2000-2026 Vaadin Ltd
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full
+ * license.
+ */
+package com.vaadin.testbench.screenshot;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * Decodes screenshots and reference images.
+ * <p>
+ * The decoder is looked up using {@link java.util.ServiceLoader}, so a custom
+ * decoder can be used by listing it in
+ * {@code META-INF/services/com.vaadin.testbench.screenshot.ScreenshotDecoder}.
+ * If no decoder is registered, {@link PngScreenshotDecoder} is used.
+ * <p>
+ * Images are compared fastest when they are of type
+ * {@link BufferedImage#TYPE_INT_ARGB} or {@link BufferedImage#TYPE_INT_RGB},
+ * so decoders should produce one of these types when possible.
+ *
+ * @see ImageUtil#decodeImage(byte[])
+ */
+public interface ScreenshotDecoder {
+
+    /**
+     * Decodes the given image data.
+     *
+     * @param data
+     *            the encoded image, usually a PNG
+     * @return the decoded image, or {@code null} if the format is not supported
+     * @throws IOException
+     *             if the data cannot be decoded
+     */
+    BufferedImage decode(byte[] data) throws IOException;
+}